@@ -0,0 +1,75 @@
+package com.structureguard.adapter.bukkit;
+
+import com.structureguard.StructureAdapter;
+import org.bukkit.NamespacedKey;
+import org.bukkit.Registry;
+import org.bukkit.World;
+import org.bukkit.generator.structure.GeneratedStructure;
+import org.bukkit.generator.structure.Structure;
+import org.bukkit.util.BoundingBox;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Structure access through the public Bukkit API (World#getStructures, 1.20.4+).
+ * No server internals at all, so it works on any 1.20.4+ server, Spigot included.
+ *
+ * The API has no start chunk, so the origin reported is the chunk at the centre of
+ * the structure's bounding box - stable per structure, but not the chunk the other
+ * paths report. StructureFinder only uses this for worlds that have no records yet.
+ */
+public class BukkitStructureAdapter implements StructureAdapter {
+    
+    // Structure -> registry name. Structures are registry singletons, so this stays small
+    private final Map<Structure, String> names = new ConcurrentHashMap<>();
+    
+    @Override
+    public String getName() {
+        return "Bukkit structure API (1.20.4+)";
+    }
+    
+    @Override
+    public void probe(World world) {
+        if (Registry.STRUCTURE == null) {
+            throw new IllegalStateException("No structure registry");
+        }
+    }
+    
+    @Override
+    public void forEachStructureAt(World world, int chunkX, int chunkZ, StructureConsumer consumer) {
+        for (GeneratedStructure generated : world.getStructures(chunkX, chunkZ)) {
+            String name = structureName(generated.getStructure());
+            if (name == null) continue;
+            
+            BoundingBox box = generated.getBoundingBox();
+            consumer.accept(name, (int) Math.floor(box.getCenterX()) >> 4, (int) Math.floor(box.getCenterZ()) >> 4);
+        }
+    }
+    
+    /**
+     * The API has no view of a chunk's starts, so this is the full query, keeping the
+     * structures centred in the chunk.
+     */
+    @Override
+    public void forEachStartIn(World world, int chunkX, int chunkZ, StructureConsumer consumer) {
+        forEachStructureAt(world, chunkX, chunkZ, (type, originChunkX, originChunkZ) -> {
+            if (originChunkX == chunkX && originChunkZ == chunkZ) {
+                consumer.accept(type, originChunkX, originChunkZ);
+            }
+        });
+    }
+    
+    private String structureName(Structure structure) {
+        String name = names.get(structure);
+        if (name == null) {
+            NamespacedKey key = structure.getKey();
+            if (key == null) {
+                return null;
+            }
+            name = key.toString().intern();
+            names.put(structure, name);
+        }
+        return name;
+    }
+}
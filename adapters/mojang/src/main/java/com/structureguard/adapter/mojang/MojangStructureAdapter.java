@@ -0,0 +1,94 @@
+package com.structureguard.adapter.mojang;
+
+import com.structureguard.StructureAdapter;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Registry;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.levelgen.structure.Structure;
+import net.minecraft.world.level.levelgen.structure.StructureStart;
+import org.bukkit.World;
+import org.bukkit.craftbukkit.CraftWorld;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Direct structure access for Paper servers running with Mojang names (1.20.5 on).
+ * Same queries as the reflective Mojang path, chunk fallback included. Versions only
+ * differ in how the structure registry is looked up - see structureRegistry.
+ */
+public abstract class MojangStructureAdapter implements StructureAdapter {
+    
+    // Structure -> registry name. Structures are registry singletons, so this stays small
+    private final Map<Structure, String> names = new ConcurrentHashMap<>();
+    
+    @Override
+    public void probe(World world) {
+        ServerLevel level = ((CraftWorld) world).getHandle();
+        level.structureManager();
+        structureRegistry(level);
+    }
+    
+    @Override
+    public void forEachStructureAt(World world, int chunkX, int chunkZ, StructureConsumer consumer) {
+        ServerLevel level = ((CraftWorld) world).getHandle();
+        Map<Structure, LongSet> structures = level.structureManager()
+            .getAllStructuresAt(new BlockPos(chunkX * 16 + 8, 64, chunkZ * 16 + 8));
+        
+        if (!structures.isEmpty()) {
+            for (Map.Entry<Structure, LongSet> entry : structures.entrySet()) {
+                String name = structureName(level, entry.getKey());
+                if (name == null) continue;
+                
+                // References hold the packed origin chunk of the structure start
+                LongIterator references = entry.getValue().iterator();
+                long origin = references.hasNext() ? references.nextLong() : ChunkPos.asLong(chunkX, chunkZ);
+                consumer.accept(name, ChunkPos.getX(origin), ChunkPos.getZ(origin));
+            }
+            return;
+        }
+        
+        // Some mods only record structures as starts in the chunk
+        forEachStart(level, chunkX, chunkZ, consumer);
+    }
+    
+    @Override
+    public void forEachStartIn(World world, int chunkX, int chunkZ, StructureConsumer consumer) {
+        forEachStart(((CraftWorld) world).getHandle(), chunkX, chunkZ, consumer);
+    }
+    
+    private void forEachStart(ServerLevel level, int chunkX, int chunkZ, StructureConsumer consumer) {
+        for (Map.Entry<Structure, StructureStart> entry : level.getChunk(chunkX, chunkZ).getAllStarts().entrySet()) {
+            StructureStart start = entry.getValue();
+            if (start == null) continue;
+            
+            String name = structureName(level, entry.getKey());
+            if (name == null) continue;
+            
+            ChunkPos origin = start.getChunkPos();
+            consumer.accept(name, origin.x, origin.z);
+        }
+    }
+    
+    /**
+     * The level's structure registry - the one call that changed between versions.
+     */
+    protected abstract Registry<Structure> structureRegistry(ServerLevel level);
+    
+    private String structureName(ServerLevel level, Structure structure) {
+        String name = names.get(structure);
+        if (name == null) {
+            ResourceLocation key = structureRegistry(level).getKey(structure);
+            if (key == null) {
+                return null;
+            }
+            name = key.toString().intern();
+            names.put(structure, name);
+        }
+        return name;
+    }
+}
@@ -0,0 +1,24 @@
+package com.structureguard.adapter.v1_20_R4;
+
+import com.structureguard.adapter.mojang.MojangStructureAdapter;
+import net.minecraft.core.Registry;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.levelgen.structure.Structure;
+
+/**
+ * Structure adapter for Paper 1.20.5 to 1.21.1, where the structure registry
+ * comes from RegistryAccess.registryOrThrow.
+ */
+public class StructureAdapterImpl extends MojangStructureAdapter {
+    
+    @Override
+    public String getName() {
+        return "Paper 1.20.5-1.21.1 (v1_20_R4)";
+    }
+    
+    @Override
+    protected Registry<Structure> structureRegistry(ServerLevel level) {
+        return level.registryAccess().registryOrThrow(Registries.STRUCTURE);
+    }
+}
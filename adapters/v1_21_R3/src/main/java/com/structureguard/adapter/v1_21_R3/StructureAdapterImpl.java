@@ -0,0 +1,24 @@
+package com.structureguard.adapter.v1_21_R3;
+
+import com.structureguard.adapter.mojang.MojangStructureAdapter;
+import net.minecraft.core.Registry;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.levelgen.structure.Structure;
+
+/**
+ * Structure adapter for Paper 1.21.2 and later, where RegistryAccess.registryOrThrow
+ * became lookupOrThrow.
+ */
+public class StructureAdapterImpl extends MojangStructureAdapter {
+    
+    @Override
+    public String getName() {
+        return "Paper 1.21.2+ (v1_21_R3)";
+    }
+    
+    @Override
+    protected Registry<Structure> structureRegistry(ServerLevel level) {
+        return level.registryAccess().lookupOrThrow(Registries.STRUCTURE);
+    }
+}
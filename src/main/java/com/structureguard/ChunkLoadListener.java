@@ -1,15 +1,31 @@
 package com.structureguard;
 
+import org.bukkit.Bukkit;
 import org.bukkit.Chunk;
+import org.bukkit.Location;
 import org.bukkit.World;
+import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.bukkit.scheduler.BukkitTask;
 
+import java.lang.reflect.Method;
+import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -20,272 +36,1372 @@ import java.util.concurrent.atomic.AtomicLong;
  * PERFORMANCE OPTIMIZED:
  * - In-memory cache of scanned chunks (loaded from DB on startup)
  * - No synchronous DB queries on main thread
- * - Rate-limited concurrent tasks (max 10)
+ * - Dedicated detection thread pool (not Bukkit's shared async pool)
+ * - Chunks loaded in the same tick are dispatched together as batches
+ * - Chunks nearest to players are detected first
+ * - Each chunk is queued at most once, and dropped from the queue if it unloads
+ * - Detect, match, persist and protect are separate stages with bounded queues
+ * - Regions are created by one main-thread drain under a per-tick time budget
+ * - Bounded pending queue with a configurable overflow policy
+ * - Worker count and batch size back off when MSPT rises above the target
+ * - Unprocessed chunks are saved on shutdown and re-queued on the next startup
+ * - Chunk loads and scanned marks go through preallocated primitive ring buffers
+ * - Optionally, existing chunks wait in a database backlog for off-peak periods
+ * - Where the server reports structure generation, new chunks need no detection at all
+ * - Chunks the world's structure placements can't start a protected structure in are skipped
  */
 public class ChunkLoadListener implements Listener {
     
     private final StructureGuardPlugin plugin;
     
-    // In-memory cache of scanned chunks per world - loaded from DB on startup
-    // Key: worldName, Value: Set of packed chunk coordinates
-    private final Map<String, Set<Long>> scannedChunksCache = new ConcurrentHashMap<>();
+    // In-memory index of scanned chunks per world (shared with /sg scan) - loaded from DB on startup
+    private final ScannedChunkIndex scannedChunks;
     private volatile boolean cacheLoaded = false;
     
-    // Rate limiting: max concurrent async tasks to prevent thread explosion
-    private static final int MAX_CONCURRENT_TASKS = 10;
+    // Dedicated detection pool - one batch per worker thread at most
+    private final ThreadPoolExecutor detectionExecutor;
+    private final int maxConcurrentTasks;
     private final AtomicInteger activeTaskCount = new AtomicInteger(0);
     
-    // Queue for chunks waiting to be processed (when at max concurrent)
-    private final ConcurrentLinkedQueue<ChunkTask> pendingChunks = new ConcurrentLinkedQueue<>();
+    // Scales active workers and batch size between the configured bounds based on MSPT
+    private final DetectionThrottle throttle;
     
-    // Pending DB writes - batched for efficiency
-    private final ConcurrentLinkedQueue<ChunkWriteTask> pendingDbWrites = new ConcurrentLinkedQueue<>();
+    // Chunk loads recorded by the event handler, moved into the pending queue once per tick.
+    // Producer and consumer are both the main thread; the ring keeps the event path allocation-free.
+    private final ChunkRingBuffer ingestRing = new ChunkRingBuffer(INGEST_RING_SIZE);
+    private final ChunkRingBuffer.SlotConsumer ingestConsumer = this::ingestChunk;
+    private static final int INGEST_RING_SIZE = 16384;
+    private static final int FLAG_NEW_CHUNK = 1;
+    
+    // Worlds referenced by ring buffer slots. A world keeps its index until it unloads;
+    // names stay so scanned marks for an unloaded world can still be written.
+    private final Object worldSlotLock = new Object();
+    private volatile World[] worldSlots = new World[0];
+    private volatile String[] worldSlotNames = new String[0];
+    
+    // Bounded queue for chunks waiting to be processed, nearest-to-player first
+    private final PendingChunkQueue pendingChunks;
+    private final ConfigManager.OverflowPolicy overflowPolicy;
+    private final AtomicLong droppedChunkCount = new AtomicLong(0);
+    
+    // Chunks queued or being processed: worldName -> packed chunk coords -> task
+    private final Map<String, ConcurrentLongMap<ChunkTask>> inFlightChunks = new ConcurrentHashMap<>();
+    private final AtomicLong cancelledChunkCount = new AtomicLong(0);
+    
+    // Pipeline after detection: match (rules) -> persist (database) -> protect (main thread).
+    // Each stage is bounded and blocks the stage before it when full, back up to the detect
+    // workers, whose pending queue then applies the overflow policy.
+    private final PipelineStage.Metrics detectMetrics = new PipelineStage.Metrics();
+    private final PipelineStage<StageBatch> matchStage;
+    private final PipelineStage<StageBatch> persistStage;
+    private final PipelineStage.Metrics protectMetrics = new PipelineStage.Metrics();
+    private static final long STAGE_SHUTDOWN_MILLIS = 2000;
+    
+    // Matched structures waiting for their region, drained on the main thread within a time budget.
+    // The semaphore bounds the queue; the persist stage waits on it when the main thread falls behind.
+    private final PriorityBlockingQueue<PendingProtection> pendingProtections;
+    private final Semaphore protectionSlots;
+    private volatile boolean closed = false;
+    private static final long SLOT_POLL_MILLIS = 50;
+    private final int regionQueueSize;
+    private final AtomicLong protectionSequence = new AtomicLong(0);
+    private final long regionBudgetNanos;
+    
+    // Chunks restored from the last shutdown, fed into the queue as it drains (main thread only).
+    // Entries only carry world and coordinates - priority is worked out when they are queued.
+    private final ArrayDeque<ChunkTask> restoreBacklog = new ArrayDeque<>();
+    private final int restoreThreshold;
+    private static final int RESTORE_PER_TICK = 512;
+    
+    // Backlog chunks that aren't loaded are loaded before they are queued, so their starts are
+    // still read on the main thread: asynchronously on Paper (a bounded number at a time),
+    // otherwise a few synchronous loads per tick. Main thread only
+    private Method getChunkAtAsync;
+    private final Set<ChunkTask> loadingBacklog = Collections.newSetFromMap(new IdentityHashMap<>());
+    private static final int MAX_ASYNC_CHUNK_LOADS = 64;
+    private static final int SYNC_CHUNK_LOADS_PER_TICK = 4;
+    
+    // Player chunk positions per world, refreshed at most once per tick (main thread only)
+    private final Map<String, List<int[]>> playerChunkSnapshot = new HashMap<>();
+    private long tickCounter = 0;
+    private long snapshotTick = -1;
+    
+    // Per-tick main-thread task: hands queued chunks to workers in batches and creates regions
+    private static final int MIN_BATCH_SIZE = 16;
+    private final BukkitTask dispatchTask;
+    
+    // Pending DB writes - batched for efficiency. Workers produce, one flusher at a time drains
+    // into the reusable arrays below before grouping by world.
+    private final ChunkRingBuffer pendingDbWrites = new ChunkRingBuffer(DB_RING_SIZE);
+    private final AtomicBoolean flushingDbWrites = new AtomicBoolean(false);
+    private final int[] flushWorlds;
+    private final long[] flushKeys;
+    private int flushCount = 0;
+    private final ChunkRingBuffer.SlotConsumer flushCollector = this::collectDbWrite;
+    private static final int DB_RING_SIZE = 4096;
     private static final int DB_BATCH_SIZE = 50;
     
+    // Off-peak mode: existing chunks are recorded here (main thread) and written to the
+    // database backlog once a second; during off-peak periods the backlog is read back
+    // into restoreBacklog a block at a time. Chunks dropped from a full queue go the same way.
+    private final ChunkRingBuffer deferredWrites = new ChunkRingBuffer(DB_RING_SIZE);
+    private volatile boolean offPeak = false;
+    private volatile boolean fetchingDeferred = false;
+    private boolean deferredBacklogEmpty = false;
+    private static final int DEFERRED_FETCH_SIZE = 1024;
+    
+    // Chunks restored from the last shutdown whose pending rows are still in the database
+    // (world name -> chunk keys). A row is removed only once its chunk is marked scanned, moved
+    // to the off-peak backlog or dropped, so a crash before then restores it again.
+    // Restored chunks dropped from the backlog wait in restoredDone for the next backlog write.
+    private final Map<String, ConcurrentLongMap<Boolean>> restoredChunks = new ConcurrentHashMap<>();
+    private final ChunkRingBuffer restoredDone = new ChunkRingBuffer(DB_RING_SIZE);
+    private static final int TICKS_PER_SECOND = 20;
+    
+    // Structures reported by the server as it generates them (any thread), fed into the
+    // match stage once per tick. Their start chunks are marked scanned when persisted.
+    private final StructureGenerateCapture generationCapture;
+    private final ConcurrentLinkedQueue<PendingProtection> generatedStructures = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<ChunkTask> generatedChunks = new ConcurrentLinkedQueue<>();
+    private StageBatch heldGeneratedBatch;  // Waiting for room in the match stage (main thread only)
+    private static final int GENERATED_PER_TICK = 1024;
+    
+    // Generated batches handed to the match stage and not persisted yet. Whatever is left at
+    // shutdown is saved with the queued structures; their chunks are detected on the next load
+    private final Set<StageBatch> generatedInStages = ConcurrentHashMap.newKeySet();
+    
+    // Start chunks the capture has reported (world name -> chunk key -> the chunk's task), kept
+    // until the chunk is marked scanned. Only these skip detection - a new chunk whose starts
+    // were generated while the capture wasn't listening isn't in here and is detected as usual
+    private final Map<String, ConcurrentLongMap<ChunkTask>> capturedStarts = new ConcurrentHashMap<>();
+    
+    // Per-world placement predictors for the current protection rules
+    private final PlacementPredictors predictors;
+    
     // Statistics
+    private final AtomicLong predictedSkipCount = new AtomicLong(0);
+    private final AtomicLong generatedStructureCount = new AtomicLong(0);
     private final AtomicLong processedChunkCount = new AtomicLong(0);
     private final AtomicLong protectedStructureCount = new AtomicLong(0);
     
-    // Simple holder for chunk task data
-    private static class ChunkTask {
+    // A detected structure on its way through the pipeline to its region
+    private static class PendingProtection {
         final World world;
-        final int chunkX, chunkZ;
-        final String worldName;
-        final long chunkKey;
+        final StructureFinder.StructureResult structure;
+        ConfigManager.ProtectionRule rule;  // Set by the match stage
+        long sequence;  // Assigned when queued - keeps equal-priority entries FIFO
+        boolean restored;  // Saved by the last shutdown - its pending row goes once it is recorded
         
-        ChunkTask(World world, int chunkX, int chunkZ, String worldName, long chunkKey) {
+        PendingProtection(World world, StructureFinder.StructureResult structure) {
             this.world = world;
-            this.chunkX = chunkX;
-            this.chunkZ = chunkZ;
-            this.worldName = worldName;
-            this.chunkKey = chunkKey;
+            this.structure = structure;
         }
     }
     
-    private static class ChunkWriteTask {
-        final String worldName;
-        final int chunkX, chunkZ;
-        ChunkWriteTask(String worldName, int chunkX, int chunkZ) {
-            this.worldName = worldName;
-            this.chunkX = chunkX;
-            this.chunkZ = chunkZ;
+    // One detection batch as it moves from stage to stage. Each stage owns it while working on it.
+    private static class StageBatch {
+        final List<ChunkTask> chunks;        // Every chunk taken for the batch (released when done)
+        final List<ChunkTask> scanned;       // Chunks detection actually ran on
+        List<PendingProtection> structures = new ArrayList<>();
+        
+        StageBatch(List<ChunkTask> chunks) {
+            this.chunks = chunks;
+            this.scanned = new ArrayList<>(chunks.size());
         }
     }
     
     public ChunkLoadListener(StructureGuardPlugin plugin) {
         this.plugin = plugin;
-        // Load scanned chunks cache on startup
+        this.scannedChunks = plugin.getScannedChunkIndex();
+        this.predictors = new PlacementPredictors(plugin);
+        this.flushWorlds = new int[pendingDbWrites.capacity()];
+        this.flushKeys = new long[pendingDbWrites.capacity()];
+        
+        ConfigManager config = plugin.getConfigManager();
+        this.maxConcurrentTasks = config.getMaxWorkers();
+        this.overflowPolicy = config.getOverflowPolicy();
+        this.pendingChunks = new PendingChunkQueue(config.getDetectionQueueSize(), overflowPolicy);
+        this.restoreThreshold = config.getDetectionQueueSize() / 2;
+        int batchSize = config.getDetectionBatchSize();
+        this.throttle = new DetectionThrottle(plugin, config.getTargetMspt(), config.getMinWorkers(), 
+            maxConcurrentTasks, Math.min(MIN_BATCH_SIZE, batchSize), batchSize);
+        this.regionBudgetNanos = (long) (config.getRegionBudgetMillis() * 1_000_000L);
+        
+        // Higher rule priority first (if enabled), then in the order structures were matched
+        Comparator<PendingProtection> protectionOrder = Comparator.comparingLong(p -> p.sequence);
+        if (config.shouldPrioritizeByRule()) {
+            protectionOrder = Comparator.<PendingProtection>comparingInt(p -> -p.rule.priority)
+                .thenComparing(protectionOrder);
+        }
+        this.pendingProtections = new PriorityBlockingQueue<>(64, protectionOrder);
+        this.regionQueueSize = config.getRegionQueueSize();
+        this.protectionSlots = new Semaphore(regionQueueSize);
+        this.matchStage = new PipelineStage<>(plugin, "Match", config.getMatchWorkers(), 
+            config.getStageQueueSize(), this::matchBatch);
+        this.persistStage = new PipelineStage<>(plugin, "Persist", config.getPersistWorkers(), 
+            config.getStageQueueSize(), this::persistBatch);
+        this.detectionExecutor = createDetectionExecutor(maxConcurrentTasks);
+        this.getChunkAtAsync = findGetChunkAtAsync();
+        this.generationCapture = config.isGenerationCaptureEnabled() 
+            ? StructureGenerateCapture.register(plugin, this) : null;
+        if (generationCapture != null) {
+            plugin.getLogger().info("Structures are recorded as they generate; their start chunks skip detection");
+        }
+        plugin.getLogger().info("Structure detection: " + maxConcurrentTasks + " worker threads, queue size " + 
+            config.getDetectionQueueSize() + " (" + overflowPolicy.name().toLowerCase().replace('_', '-') + 
+            "), batches of up to " + batchSize + " chunks");
+        if (throttle.isEnabled()) {
+            plugin.getLogger().info("Adaptive detection: " + config.getMinWorkers() + "-" + maxConcurrentTasks + 
+                " workers, target " + config.getTargetMspt() + " MSPT" + 
+                (throttle.usesServerMspt() ? "" : " (estimated from tick interval)"));
+        }
+        
+        // Dispatch everything that loaded during a tick, and create queued regions, once per tick
+        this.dispatchTask = plugin.getServer().getScheduler().runTaskTimer(plugin, this::onTick, 1L, 1L);
+        
+        // Prepare detection for loaded worlds; scanned chunks are read per region as chunks load
         loadCacheSync();
+        
+        // Pick up chunks that were still queued when the server last stopped
+        restorePendingChunks();
+    }
+    
+    /**
+     * Initialize the StructureFinder for every loaded world.
+     * The scanned-chunk index needs no preloading - its region tiles are read on first use.
+     */
+    private void loadCacheSync() {
+        for (World world : plugin.getServer().getWorlds()) {
+            plugin.getStructureFinder().initForChunkListener(world);
+        }
+        plugin.getConfigManager().debug("Scanned-chunk index: regions loaded on demand, up to " + 
+            plugin.getConfigManager().getScannedIndexMemoryMb() + " MB resident");
+        cacheLoaded = true;
+    }
+    
+    /**
+     * Load chunks saved by the last shutdown in the background, then hand them to
+     * the main thread, which feeds them into the queue without crowding out new loads.
+     * Saved generated structures are queued for recording straight away.
+     * Worlds that are not loaded yet keep their saved chunks for a later startup.
+     * The saved rows are only removed as each chunk or structure is handled.
+     */
+    private void restorePendingChunks() {
+        List<World> worlds = new ArrayList<>(plugin.getServer().getWorlds());
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            Map<World, List<int[]>> saved = new LinkedHashMap<>();
+            for (World world : worlds) {
+                List<int[]> chunks = plugin.getDatabase().getPendingChunks(world.getName());
+                if (!chunks.isEmpty()) {
+                    ConcurrentLongMap<Boolean> restored = restoredChunks.computeIfAbsent(world.getName(), 
+                        k -> new ConcurrentLongMap<>());
+                    for (int[] chunk : chunks) {
+                        restored.putIfAbsent(packChunkCoords(chunk[0], chunk[1]), Boolean.TRUE);
+                    }
+                    saved.put(world, chunks);
+                }
+                
+                // Generated structures go straight back to the generated queue (any thread)
+                List<Object[]> structures = plugin.getDatabase().getPendingStructures(world.getName());
+                for (Object[] structure : structures) {
+                    int chunkX = (Integer) structure[1];
+                    int chunkZ = (Integer) structure[2];
+                    PendingProtection pending = new PendingProtection(world, new StructureFinder.StructureResult(
+                        (String) structure[0], chunkX * 16 + 8, chunkZ * 16 + 8, chunkX, chunkZ));
+                    pending.restored = true;
+                    generatedStructures.add(pending);
+                }
+                if (!structures.isEmpty()) {
+                    plugin.getLogger().info("Restored " + structures.size() + " generated structures in " + 
+                        world.getName());
+                }
+            }
+            if (saved.isEmpty()) {
+                return;
+            }
+            
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                int total = 0;
+                for (Map.Entry<World, List<int[]>> entry : saved.entrySet()) {
+                    World world = entry.getKey();
+                    for (int[] chunk : entry.getValue()) {
+                        restoreBacklog.add(new ChunkTask(world, chunk[0], chunk[1], world.getName(), 
+                            packChunkCoords(chunk[0], chunk[1]), 0, chunk[2] != 0));
+                    }
+                    total += entry.getValue().size();
+                }
+                plugin.getLogger().info("Restored " + total + " chunks waiting for structure detection");
+            });
+        });
+    }
+    
+    /**
+     * Create the fixed-size pool that runs structure detection.
+     * Threads are daemons so a stuck NMS call can never block server shutdown.
+     */
+    private static ThreadPoolExecutor createDetectionExecutor(int threads) {
+        AtomicInteger threadId = new AtomicInteger(0);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "StructureGuard-Detection-" + threadId.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        // Only process newly generated chunks, or all if config says so
+        if (!event.isNewChunk() && !plugin.getConfigManager().shouldProcessExistingChunks()) {
+            return;
+        }
+        
+        // Skip if no protection rules are enabled
+        if (!plugin.getConfigManager().hasEnabledProtectionRules()) {
+            return;
+        }
+        
+        Chunk chunk = event.getChunk();
+        World world = chunk.getWorld();
+        String worldName = world.getName();
+        
+        // Skip disabled worlds (e.g., resource worlds)
+        if (plugin.getConfigManager().isWorldDisabled(worldName)) {
+            return;
+        }
+        
+        // Record the load in the ring - detection is queued from the per-tick task
+        int worldIndex = worldIndex(world);
+        int flags = event.isNewChunk() ? FLAG_NEW_CHUNK : 0;
+        while (!ingestRing.offer(worldIndex, chunk.getX(), chunk.getZ(), flags)) {
+            // Ring is full - this thread is also the consumer, so make room now
+            drainIngest();
+        }
+    }
+    
+    /**
+     * Move recorded chunk loads into the pending queue. Main thread only.
+     */
+    private void drainIngest() {
+        ingestRing.drain(ingestConsumer, INGEST_RING_SIZE);
+    }
+    
+    private void ingestChunk(int worldIndex, int chunkX, int chunkZ, int flags) {
+        World world = worldAt(worldIndex);
+        if (world != null) {
+            queueChunk(world, chunkX, chunkZ, (flags & FLAG_NEW_CHUNK) != 0, false);
+        }
+    }
+    
+    /**
+     * Queue a chunk for detection unless it is already scanned or queued. Main thread only.
+     * @param fromBacklog the chunk comes from the restore/off-peak backlog rather than a load event
+     */
+    private void queueChunk(World world, int chunkX, int chunkZ, boolean newChunk, boolean fromBacklog) {
+        String worldName = world.getName();
+        long chunkKey = packChunkCoords(chunkX, chunkZ);
+        if (!needsDetection(world, worldName, chunkX, chunkZ, chunkKey, newChunk)) {
+            return;
+        }
+        
+        // The capture saw this chunk's starts generate; the generated batch marks it scanned
+        ConcurrentLongMap<ChunkTask> worldCaptured = capturedStarts.get(worldName);
+        if (worldCaptured != null && worldCaptured.get(chunkKey) != null) {
+            return;
+        }
+        
+        // Detection only ever works from a snapshot taken here on the main thread. An existing
+        // chunk that already unloaded is queued again on its next load; anything else goes to
+        // the backlog, which loads it again first
+        if (!world.isChunkLoaded(chunkX, chunkZ)) {
+            if (newChunk || fromBacklog) {
+                restoreBacklog.add(new ChunkTask(world, chunkX, chunkZ, worldName, chunkKey, 0, newChunk));
+            }
+            return;
+        }
+        
+        // Closest to a player goes first; without proximity ordering the queue is FIFO.
+        // Scored once here - dispatch order doesn't follow players who move afterwards
+        long priority = plugin.getConfigManager().shouldPrioritizeNearPlayers() 
+            ? nearestPlayerDistanceSq(worldName, chunkX, chunkZ) : 0;
+        
+        ChunkTask task = new ChunkTask(world, chunkX, chunkZ, worldName, chunkKey, priority, newChunk);
+        task.fromBacklog = fromBacklog;
+        
+        // Skip chunks that are already queued or being processed (load/unload/load churn).
+        // A task cancelled by an unload stays in flight until its worker gets past it, so
+        // it is replaced rather than letting the chunk's new load go unscanned
+        ConcurrentLongMap<ChunkTask> worldInFlight = inFlightChunks.computeIfAbsent(worldName, k -> new ConcurrentLongMap<>());
+        ChunkTask existing = worldInFlight.putIfAbsent(chunkKey, task);
+        if (existing != null && !(existing.cancelled && worldInFlight.replace(chunkKey, existing, task))) {
+            return;
+        }
+        
+        // Read the chunk's structure starts now, while we're on the main thread and it is loaded,
+        // so workers never call into the live chunk or the level. A chunk that can't be read
+        // that way stays unscanned and is tried again on its next load
+        task.structureStarts = plugin.getStructureFinder().captureStructureStarts(world, chunkX, chunkZ);
+        if (task.structureStarts == null) {
+            releaseInFlight(task);
+            return;
+        }
+        
+        // Queue for the per-tick dispatcher - workers pick it up in the next batch.
+        // A dropped chunk goes to the database backlog, which is read back once the queue has room.
+        ChunkTask dropped = pendingChunks.offer(task);
+        if (dropped != null) {
+            droppedChunkCount.incrementAndGet();
+            releaseInFlight(dropped);
+            deferChunk(dropped.world, dropped.chunkX, dropped.chunkZ);
+        }
+    }
+    
+    /**
+     * The checks that keep a chunk out of the queue before anything is allocated for it.
+     * Main thread only.
+     * @return false if the chunk is scanned, can't hold a protected structure, or was deferred
+     */
+    private boolean needsDetection(World world, String worldName, int chunkX, int chunkZ, long chunkKey, 
+                                   boolean newChunk) {
+        // Fast in-memory check - NO database query on main thread! Chunks in regions that
+        // aren't resident yet are queued anyway and checked by the detection worker
+        if (isChunkScannedCached(worldName, chunkKey)) {
+            return false;
+        }
+        
+        // No protected structure can start here according to the world's placement rules.
+        // Not marked scanned: the rules are checked again on every load, so a type that
+        // becomes protected after a reload is still detected here
+        if (!predictors.get(world).mayStartStructure(chunkX, chunkZ)) {
+            predictedSkipCount.incrementAndGet();
+            return false;
+        }
+        
+        // Off-peak mode: existing chunks wait in the database backlog until things are quiet
+        if (!newChunk && !offPeak && plugin.getConfigManager().shouldDeferExistingChunks()) {
+            deferChunk(world, chunkX, chunkZ);
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * Record a chunk for the database backlog: an existing chunk outside off-peak hours,
+     * or any chunk dropped from the full detection queue. A full ring is flushed first.
+     */
+    private void deferChunk(World world, int chunkX, int chunkZ) {
+        // The drain gives up while a persist worker is flushing scanned marks, so keep trying
+        int worldIndex = worldIndex(world);
+        while (!deferredWrites.offer(worldIndex, chunkX, chunkZ, 0)) {
+            flushDeferredChunks();
+            Thread.yield();
+        }
+    }
+    
+    /**
+     * Write recorded backlog chunks to the database asynchronously, then remove the pending
+     * rows of restored chunks that are now in the backlog or were dropped from it.
+     */
+    private void flushDeferredChunks() {
+        Map<String, long[]> byWorld = drainByWorld(deferredWrites);
+        Map<String, long[]> dropped = drainByWorld(restoredDone);
+        if (!byWorld.isEmpty()) {
+            deferredBacklogEmpty = false;
+        }
+        if (!byWorld.isEmpty() || !dropped.isEmpty()) {
+            runWrite(() -> {
+                for (Map.Entry<String, long[]> entry : byWorld.entrySet()) {
+                    plugin.getDatabase().deferChunks(entry.getKey(), entry.getValue());
+                    removeRestoredRows(entry.getKey(), entry.getValue());
+                }
+                for (Map.Entry<String, long[]> entry : dropped.entrySet()) {
+                    removeRestoredRows(entry.getKey(), entry.getValue());
+                }
+            });
+        }
+    }
+    
+    /**
+     * Note a restored chunk that left the backlog without being queued (scanned, ruled out,
+     * disabled or never generated), so its pending row is removed with the next backlog write.
+     * Main thread only.
+     */
+    private void restoredChunkDone(ChunkTask saved) {
+        ConcurrentLongMap<Boolean> restored = restoredChunks.get(saved.worldName);
+        if (restored == null || restored.get(saved.chunkKey) == null) {
+            return;
+        }
+        int worldIndex = worldIndex(saved.world);
+        while (!restoredDone.offer(worldIndex, saved.chunkX, saved.chunkZ, 0)) {
+            flushDeferredChunks();
+            Thread.yield();
+        }
+    }
+    
+    /**
+     * Remove the pending rows of the restored chunks among these packed keys. Call only once the
+     * chunks' new state (scanned or deferred) has been written. Any thread.
+     */
+    private void removeRestoredRows(String worldName, long[] keys) {
+        ConcurrentLongMap<Boolean> restored = restoredChunks.get(worldName);
+        if (restored == null) {
+            return;
+        }
+        long[] handled = new long[keys.length];
+        int count = 0;
+        for (long key : keys) {
+            if (restored.remove(key, Boolean.TRUE)) {
+                handled[count++] = key;
+            }
+        }
+        if (count > 0) {
+            plugin.getDatabase().removePendingChunks(worldName, Arrays.copyOf(handled, count));
+        }
+    }
+    
+    /**
+     * Run a database write in the background - or right here once the listener is closed,
+     * since the scheduler drops async tasks that haven't started when the plugin disables.
+     */
+    private void runWrite(Runnable write) {
+        if (closed) {
+            write.run();
+        } else {
+            plugin.getServer().getScheduler().runTaskAsynchronously(plugin, write);
+        }
+    }
+    
+    /**
+     * Once a second: re-check whether this is an off-peak period, write recorded backlog
+     * chunks, and pull the next block of backlog chunks into the queue feed - while off-peak,
+     * or at any time when existing chunks aren't deferred (the backlog then only holds chunks
+     * dropped from a full queue).
+     */
+    private void updateOffPeak() {
+        ConfigManager config = plugin.getConfigManager();
+        flushDeferredChunks();
+        
+        boolean deferring = config.shouldDeferExistingChunks();
+        if (!deferring) {
+            offPeak = false;
+        } else {
+            updateOffPeakPeriod(config);
+        }
+        
+        // Only top up once the previous block has mostly gone into the queue
+        if ((offPeak || !deferring) && !fetchingDeferred && !deferredBacklogEmpty 
+                && restoreBacklog.size() < RESTORE_PER_TICK && pendingChunks.size() < restoreThreshold) {
+            fetchDeferredChunks();
+        }
+    }
+    
+    private void updateOffPeakPeriod(ConfigManager config) {
+        int maxPlayers = config.getOffPeakMaxPlayers();
+        boolean nowOffPeak = (maxPlayers >= 0 && plugin.getServer().getOnlinePlayers().size() <= maxPlayers) 
+            || config.isOffPeakTime(LocalTime.now());
+        if (nowOffPeak != offPeak) {
+            offPeak = nowOffPeak;
+            plugin.getConfigManager().debug(nowOffPeak 
+                ? "Off-peak: processing existing-chunk backlog" 
+                : "Peak hours: deferring existing chunks");
+        }
+    }
+    
+    /**
+     * Read the next block of backlog chunks in the background and hand them to the queue feed.
+     */
+    private void fetchDeferredChunks() {
+        List<World> worlds = new ArrayList<>(plugin.getServer().getWorlds());
+        fetchingDeferred = true;
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            for (World world : worlds) {
+                if (plugin.getConfigManager().isWorldDisabled(world.getName())) {
+                    continue;
+                }
+                List<int[]> chunks = plugin.getDatabase().takeDeferredChunks(world.getName(), DEFERRED_FETCH_SIZE);
+                if (chunks.isEmpty()) {
+                    continue;
+                }
+                
+                plugin.getServer().getScheduler().runTask(plugin, () -> {
+                    for (int[] chunk : chunks) {
+                        restoreBacklog.add(new ChunkTask(world, chunk[0], chunk[1], world.getName(), 
+                            packChunkCoords(chunk[0], chunk[1]), 0, false));
+                    }
+                    plugin.getConfigManager().debug("Off-peak: " + chunks.size() + " backlog chunks from " + 
+                        world.getName());
+                    fetchingDeferred = false;
+                });
+                return;
+            }
+            // Nothing left - stop polling until more chunks are written to the backlog
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                deferredBacklogEmpty = true;
+                fetchingDeferred = false;
+            });
+        });
+    }
+    
+    /**
+     * Drop queued detection work for chunks that unload before a worker reaches them.
+     * Only done when existing chunks are processed - otherwise a new chunk would
+     * never be queued again and its structures would stay unprotected.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        if (!plugin.getConfigManager().shouldProcessExistingChunks()) {
+            return;
+        }
+        
+        Chunk chunk = event.getChunk();
+        ConcurrentLongMap<ChunkTask> worldInFlight = inFlightChunks.get(chunk.getWorld().getName());
+        if (worldInFlight == null) {
+            return;
+        }
+        
+        // Backlog chunks were only loaded to be read - nothing would queue them again
+        ChunkTask task = worldInFlight.get(packChunkCoords(chunk.getX(), chunk.getZ()));
+        if (task == null || task.fromBacklog) {
+            return;
+        }
+        
+        // Workers skip cancelled tasks they have already taken but not started
+        task.cancelled = true;
+        if (pendingChunks.remove(task)) {
+            cancelledChunkCount.incrementAndGet();
+            releaseInFlight(task);
+        }
+    }
+    
+    /**
+     * Retire a world's ring buffer index and detection context so the unloaded World
+     * can be garbage collected.
+     * Entries still in the rings for it are skipped (ingest) or written by name (scanned marks).
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        plugin.getStructureFinder().forgetWorld(event.getWorld());
+        predictors.forget(event.getWorld().getName());
+        capturedStarts.remove(event.getWorld().getName());
+        synchronized (worldSlotLock) {
+            World[] slots = worldSlots.clone();
+            for (int i = 0; i < slots.length; i++) {
+                if (slots[i] == event.getWorld()) {
+                    slots[i] = null;
+                }
+            }
+            worldSlots = slots;
+        }
+    }
+    
+    /**
+     * Get the ring buffer index for a world, assigning one the first time it is seen.
+     */
+    private int worldIndex(World world) {
+        World[] slots = worldSlots;
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] == world) {
+                return i;
+            }
+        }
+        
+        synchronized (worldSlotLock) {
+            slots = worldSlots;
+            for (int i = 0; i < slots.length; i++) {
+                if (slots[i] == world) {
+                    return i;
+                }
+            }
+            // Names first, so an index is never visible before its name
+            String[] names = Arrays.copyOf(worldSlotNames, slots.length + 1);
+            names[slots.length] = world.getName();
+            worldSlotNames = names;
+            World[] grown = Arrays.copyOf(slots, slots.length + 1);
+            grown[slots.length] = world;
+            worldSlots = grown;
+            return slots.length;
+        }
+    }
+    
+    private World worldAt(int index) {
+        World[] slots = worldSlots;
+        return index < slots.length ? slots[index] : null;
+    }
+    
+    /**
+     * Forget an in-flight chunk so a later load can queue it again.
+     */
+    private void releaseInFlight(ChunkTask task) {
+        ConcurrentLongMap<ChunkTask> worldInFlight = inFlightChunks.get(task.worldName);
+        if (worldInFlight != null) {
+            worldInFlight.remove(task.chunkKey, task);
+        }
+    }
+    
+    /**
+     * Squared distance (in chunks) from a chunk to the nearest player in the same world.
+     * Returns Long.MAX_VALUE when the world has no players. Main thread only.
+     */
+    private long nearestPlayerDistanceSq(String worldName, int chunkX, int chunkZ) {
+        if (snapshotTick != tickCounter) {
+            // Rebuild the player position snapshot once per tick, not per chunk
+            playerChunkSnapshot.clear();
+            for (Player player : plugin.getServer().getOnlinePlayers()) {
+                Location loc = player.getLocation();
+                playerChunkSnapshot.computeIfAbsent(player.getWorld().getName(), k -> new ArrayList<>())
+                    .add(new int[]{loc.getBlockX() >> 4, loc.getBlockZ() >> 4});
+            }
+            snapshotTick = tickCounter;
+        }
+        
+        List<int[]> players = playerChunkSnapshot.get(worldName);
+        if (players == null) {
+            return Long.MAX_VALUE;
+        }
+        
+        long best = Long.MAX_VALUE;
+        for (int[] pos : players) {
+            long dx = pos[0] - chunkX;
+            long dz = pos[1] - chunkZ;
+            best = Math.min(best, dx * dx + dz * dz);
+        }
+        return best;
+    }
+    
+    /**
+     * Check if chunk is scanned using resident index tiles (O(1) lookup, no DB query, no boxing).
+     */
+    private boolean isChunkScannedCached(String worldName, long chunkKey) {
+        return scannedChunks.isScannedIfLoaded(worldName, chunkKey);
+    }
+    
+    /**
+     * Mark chunk as scanned in memory cache and queue for DB write.
+     */
+    private void markChunkScannedCached(ChunkTask task) {
+        markChunkScannedCached(task.world, task.worldName, task.chunkX, task.chunkZ, task.chunkKey);
+    }
+    
+    private void markChunkScannedCached(World world, String worldName, int chunkX, int chunkZ, long chunkKey) {
+        // Add to memory cache immediately; the tile stays resident until the DB write lands
+        scannedChunks.markUnsaved(worldName, chunkKey);
+        
+        // Queue for batched DB write; if the ring is full, drain it (or wait for whoever is)
+        int worldIndex = worldIndex(world);
+        while (!pendingDbWrites.offer(worldIndex, chunkX, chunkZ, 0)) {
+            flushDbWrites();
+            Thread.yield();
+        }
+        
+        // Flush to DB if batch size reached
+        if (pendingDbWrites.size() >= DB_BATCH_SIZE) {
+            flushDbWrites();
+        }
+    }
+    
+    /**
+     * Flush pending DB writes asynchronously.
+     */
+    private void flushDbWrites() {
+        Map<String, long[]> byWorld = drainDbWrites();
+        
+        if (!byWorld.isEmpty()) {
+            // Write to DB asynchronously
+            runWrite(() -> {
+                for (Map.Entry<String, long[]> entry : byWorld.entrySet()) {
+                    plugin.getDatabase().markChunksScanned(entry.getKey(), entry.getValue());
+                    scannedChunks.markSaved(entry.getKey(), entry.getValue());
+                    removeRestoredRows(entry.getKey(), entry.getValue());
+                }
+            });
+        }
+    }
+    
+    /**
+     * Take everything in the DB write ring, grouped by world as packed chunk keys.
+     * Returns an empty map if another thread is already draining.
+     */
+    private Map<String, long[]> drainDbWrites() {
+        return drainByWorld(pendingDbWrites);
+    }
+    
+    /**
+     * Take everything in a ring, grouped by world as packed chunk keys. Rings share the
+     * scratch arrays, so only one drain runs at a time across all of them; returns an
+     * empty map if another thread is already draining.
+     */
+    private Map<String, long[]> drainByWorld(ChunkRingBuffer ring) {
+        return drainByWorld(ring, false);
+    }
+    
+    /**
+     * @param wait wait for a drain running on another thread instead of giving up (shutdown)
+     */
+    private Map<String, long[]> drainByWorld(ChunkRingBuffer ring, boolean wait) {
+        while (!flushingDbWrites.compareAndSet(false, true)) {
+            if (!wait) {
+                return Collections.emptyMap();
+            }
+            Thread.yield();
+        }
+        
+        try {
+            flushCount = 0;
+            ring.drain(flushCollector, flushKeys.length);
+            if (flushCount == 0) {
+                return Collections.emptyMap();
+            }
+            
+            // Count per world index, then copy each world's keys out in one pass
+            String[] names = worldSlotNames;
+            int[] perWorld = new int[names.length];
+            for (int i = 0; i < flushCount; i++) {
+                perWorld[flushWorlds[i]]++;
+            }
+            
+            long[][] keys = new long[names.length][];
+            for (int w = 0; w < names.length; w++) {
+                if (perWorld[w] > 0) {
+                    keys[w] = new long[perWorld[w]];
+                    perWorld[w] = 0;
+                }
+            }
+            for (int i = 0; i < flushCount; i++) {
+                int w = flushWorlds[i];
+                keys[w][perWorld[w]++] = flushKeys[i];
+            }
+            
+            Map<String, long[]> byWorld = new HashMap<>();
+            for (int w = 0; w < names.length; w++) {
+                if (keys[w] != null) {
+                    byWorld.put(names[w], keys[w]);
+                }
+            }
+            return byWorld;
+        } finally {
+            flushingDbWrites.set(false);
+        }
+    }
+    
+    private void collectDbWrite(int worldIndex, int chunkX, int chunkZ, int flags) {
+        flushWorlds[flushCount] = worldIndex;
+        flushKeys[flushCount] = packChunkCoords(chunkX, chunkZ);
+        flushCount++;
+    }
+    
+    /**
+     * Per-tick main-thread work: update the throttle, dispatch detection batches, 
+     * then create queued regions.
+     */
+    private void onTick() {
+        tickCounter++;
+        throttle.tick();
+        if (tickCounter % TICKS_PER_SECOND == 0) {
+            updateOffPeak();
+        }
+        drainIngest();
+        feedRestoredChunks();
+        dispatchBatches();
+        dispatchGenerated();
+        drainProtections();
+    }
+    
+    /**
+     * Record a structure the server just generated. Called by StructureGenerateCapture,
+     * usually from a world generation thread.
+     * @param startChunkX the chunk the structure starts in
+     * @param originChunkX the origin to record (differs from the start chunk on the Bukkit structure API)
+     * @param coversChunk true for natural generation - the start chunk then needs no detection
+     */
+    void onStructureGenerated(World world, String structureType, int startChunkX, int startChunkZ, 
+                              int originChunkX, int originChunkZ, boolean coversChunk) {
+        ConfigManager config = plugin.getConfigManager();
+        if (!config.hasEnabledProtectionRules() || config.isWorldDisabled(world.getName())) {
+            return;
+        }
+        
+        if (!config.isStructureIgnored(structureType)) {
+            generatedStructures.add(new PendingProtection(world, new StructureFinder.StructureResult(
+                structureType, originChunkX * 16 + 8, originChunkZ * 16 + 8, originChunkX, originChunkZ)));
+            generatedStructureCount.incrementAndGet();
+        }
+        if (coversChunk) {
+            ChunkTask task = new ChunkTask(world, startChunkX, startChunkZ, world.getName(), 
+                packChunkCoords(startChunkX, startChunkZ), 0, true);
+            capturedStarts.computeIfAbsent(task.worldName, k -> new ConcurrentLongMap<>())
+                .putIfAbsent(task.chunkKey, task);
+            generatedChunks.add(task);
+        }
+        config.debug("Generated: " + structureType + " at chunk " + originChunkX + "," + originChunkZ);
+    }
+    
+    /**
+     * Hand structures reported since the last tick to the match stage as one batch,
+     * skipping detection. If the stage is full, the batch waits for a later tick
+     * rather than blocking the main thread.
+     */
+    private void dispatchGenerated() {
+        if (heldGeneratedBatch == null) {
+            heldGeneratedBatch = takeGeneratedBatch();
+        }
+        if (heldGeneratedBatch != null) {
+            // Tracked before the offer, so a worker finishing it right away finds it in the set
+            generatedInStages.add(heldGeneratedBatch);
+            if (matchStage.offer(heldGeneratedBatch)) {
+                heldGeneratedBatch = null;
+            } else {
+                generatedInStages.remove(heldGeneratedBatch);
+            }
+        }
+    }
+    
+    /**
+     * Take up to GENERATED_PER_TICK reported structures and start chunks as a stage batch.
+     * @return null if nothing has been reported
+     */
+    private StageBatch takeGeneratedBatch() {
+        if (generatedStructures.isEmpty() && generatedChunks.isEmpty()) {
+            return null;
+        }
+        List<ChunkTask> chunks = new ArrayList<>();
+        ChunkTask chunk;
+        while (chunks.size() < GENERATED_PER_TICK && (chunk = generatedChunks.poll()) != null) {
+            chunks.add(chunk);
+        }
+        StageBatch batch = new StageBatch(chunks);
+        batch.scanned.addAll(chunks);
+        PendingProtection pending;
+        while (batch.structures.size() < GENERATED_PER_TICK && (pending = generatedStructures.poll()) != null) {
+            batch.structures.add(pending);
+        }
+        return batch;
+    }
+    
+    /**
+     * Move restored chunks into the queue while it is less than half full,
+     * so a large backlog never pushes out chunks players are loading right now.
+     * Chunks that aren't loaded are loaded first, within the per-tick load budget.
+     */
+    private void feedRestoredChunks() {
+        int fed = 0;
+        int syncLoads = 0;
+        while (!restoreBacklog.isEmpty() && fed < RESTORE_PER_TICK && pendingChunks.size() < restoreThreshold) {
+            ChunkTask saved = restoreBacklog.peek();
+            if (plugin.getConfigManager().isWorldDisabled(saved.worldName) || 
+                    !needsDetection(saved.world, saved.worldName, saved.chunkX, saved.chunkZ, saved.chunkKey, 
+                        saved.newChunk)) {
+                restoreBacklog.poll();
+                restoredChunkDone(saved);
+                fed++;
+                continue;
+            }
+            
+            if (!saved.world.isChunkLoaded(saved.chunkX, saved.chunkZ)) {
+                if (getChunkAtAsync != null) {
+                    if (loadingBacklog.size() >= MAX_ASYNC_CHUNK_LOADS) {
+                        break;
+                    }
+                    restoreBacklog.poll();
+                    fed++;
+                    loadBacklogChunkAsync(saved);
+                    continue;
+                }
+                if (syncLoads >= SYNC_CHUNK_LOADS_PER_TICK) {
+                    break;
+                }
+                syncLoads++;
+                // Not generated (e.g. the world was reset since) - there is nothing to detect
+                if (!saved.world.loadChunk(saved.chunkX, saved.chunkZ, false)) {
+                    restoreBacklog.poll();
+                    restoredChunkDone(saved);
+                    fed++;
+                    continue;
+                }
+            }
+            
+            restoreBacklog.poll();
+            fed++;
+            queueChunk(saved.world, saved.chunkX, saved.chunkZ, saved.newChunk, true);
+        }
     }
     
     /**
-     * Load scanned chunks from database into memory cache.
-     * Done synchronously during plugin enable to ensure cache is ready.
+     * Load a backlog chunk through Paper's async chunk loading, without generating it,
+     * and queue it once it is loaded.
      */
-    private void loadCacheSync() {
-        for (World world : plugin.getServer().getWorlds()) {
-            String worldName = world.getName();
-            Set<Long> chunks = plugin.getDatabase().getScannedChunks(worldName);
-            Set<Long> cacheSet = ConcurrentHashMap.newKeySet();
-            cacheSet.addAll(chunks);
-            scannedChunksCache.put(worldName, cacheSet);
-            plugin.getLogger().info("Loaded " + chunks.size() + " scanned chunks for " + worldName);
-            
-            // Also initialize the StructureFinder for this world
-            plugin.getStructureFinder().initForChunkListener(world);
+    private void loadBacklogChunkAsync(ChunkTask saved) {
+        CompletableFuture<?> future;
+        try {
+            future = (CompletableFuture<?>) getChunkAtAsync.invoke(saved.world, saved.chunkX, saved.chunkZ, false);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Load synchronously from now on
+            plugin.getConfigManager().debug("Async chunk loading unavailable: " + e);
+            getChunkAtAsync = null;
+            restoreBacklog.addFirst(saved);
+            return;
         }
-        cacheLoaded = true;
+        
+        loadingBacklog.add(saved);
+        future.whenComplete((chunk, error) -> {
+            if (Bukkit.isPrimaryThread()) {
+                onBacklogChunkLoaded(saved, chunk != null);
+            } else if (plugin.isEnabled()) {
+                plugin.getServer().getScheduler().runTask(plugin, () -> onBacklogChunkLoaded(saved, chunk != null));
+            }
+        });
     }
     
-    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
-    public void onChunkLoad(ChunkLoadEvent event) {
-        // Only process newly generated chunks, or all if config says so
-        if (!event.isNewChunk() && !plugin.getConfigManager().shouldProcessExistingChunks()) {
+    private void onBacklogChunkLoaded(ChunkTask saved, boolean loaded) {
+        // Not in the set any more: saved for the next startup by shutdown()
+        if (!loadingBacklog.remove(saved)) {
             return;
         }
-        
-        // Skip if no protection rules are enabled
-        if (!plugin.getConfigManager().hasEnabledProtectionRules()) {
-            return;
+        if (loaded && !plugin.getConfigManager().isWorldDisabled(saved.worldName)) {
+            queueChunk(saved.world, saved.chunkX, saved.chunkZ, saved.newChunk, true);
+        } else {
+            restoredChunkDone(saved);
         }
-        
-        Chunk chunk = event.getChunk();
-        World world = chunk.getWorld();
-        String worldName = world.getName();
-        
-        // Skip disabled worlds (e.g., resource worlds)
-        if (plugin.getConfigManager().isWorldDisabled(worldName)) {
-            return;
+    }
+    
+    /**
+     * Paper's World#getChunkAtAsync(int, int, boolean), or null on Spigot.
+     */
+    private static Method findGetChunkAtAsync() {
+        try {
+            return World.class.getMethod("getChunkAtAsync", int.class, int.class, boolean.class);
+        } catch (NoSuchMethodException e) {
+            return null;
         }
-        
-        // Fast in-memory check - NO database query on main thread!
-        long chunkKey = packChunkCoords(chunk.getX(), chunk.getZ());
-        if (isChunkScannedCached(worldName, chunkKey)) {
+    }
+    
+    /**
+     * Hand queued chunks to idle workers, up to the throttle's current worker limit.
+     * Runs once per tick on the main thread, so every chunk that loaded during the
+     * tick is dispatched together.
+     */
+    private void dispatchBatches() {
+        int free = throttle.getWorkerLimit() - activeTaskCount.get();
+        if (free <= 0 || pendingChunks.isEmpty()) {
             return;
         }
         
-        final int chunkX = chunk.getX();
-        final int chunkZ = chunk.getZ();
+        // Spread this tick's chunks across idle workers instead of giving one worker everything
+        int share = (pendingChunks.size() + free - 1) / free;
+        int batchLimit = throttle.getBatchLimit();
+        int size = Math.min(batchLimit, Math.max(Math.min(MIN_BATCH_SIZE, batchLimit), share));
         
-        ChunkTask task = new ChunkTask(world, chunkX, chunkZ, worldName, chunkKey);
-        
-        // Rate limiting: if under limit, process immediately; otherwise queue
-        if (activeTaskCount.get() < MAX_CONCURRENT_TASKS) {
-            startAsyncTask(task);
-        } else {
-            // Queue for later - will be picked up when a task completes
-            pendingChunks.offer(task);
+        for (int i = 0; i < free; i++) {
+            List<ChunkTask> batch = drainBatch(size);
+            if (batch.isEmpty()) {
+                return;
+            }
+            startAsyncTask(batch);
         }
     }
     
     /**
-     * Check if chunk is scanned using in-memory cache (O(1) lookup, no DB query).
+     * Take up to maxSize of the highest-priority chunks from the pending queue.
      */
-    private boolean isChunkScannedCached(String worldName, long chunkKey) {
-        Set<Long> worldCache = scannedChunksCache.get(worldName);
-        if (worldCache == null) {
-            // World not in cache yet - create empty set
-            worldCache = ConcurrentHashMap.newKeySet();
-            scannedChunksCache.put(worldName, worldCache);
-            return false;
-        }
-        return worldCache.contains(chunkKey);
+    private List<ChunkTask> drainBatch(int maxSize) {
+        return pendingChunks.drain(maxSize);
     }
     
     /**
-     * Mark chunk as scanned in memory cache and queue for DB write.
+     * Start a batch on the dedicated detection pool.
      */
-    private void markChunkScannedCached(String worldName, int chunkX, int chunkZ, long chunkKey) {
-        // Add to memory cache immediately
-        Set<Long> worldCache = scannedChunksCache.computeIfAbsent(worldName, k -> ConcurrentHashMap.newKeySet());
-        worldCache.add(chunkKey);
-        
-        // Queue for batched DB write
-        pendingDbWrites.offer(new ChunkWriteTask(worldName, chunkX, chunkZ));
+    private void startAsyncTask(List<ChunkTask> batch) {
+        activeTaskCount.incrementAndGet();
         
-        // Flush to DB if batch size reached
-        if (pendingDbWrites.size() >= DB_BATCH_SIZE) {
-            flushDbWrites();
+        try {
+            detectionExecutor.execute(() -> runBatch(batch));
+        } catch (RejectedExecutionException e) {
+            // Pool is shutting down - leave the chunks unscanned
+            activeTaskCount.decrementAndGet();
         }
     }
     
     /**
-     * Flush pending DB writes asynchronously.
+     * Detect a batch, then keep draining the queue while there is work.
+     * Stops early if the throttle lowered the worker limit below the busy count.
+     * Runs on a detection worker thread.
      */
-    private void flushDbWrites() {
-        // Group by world
-        Map<String, List<int[]>> byWorld = new HashMap<>();
-        ChunkWriteTask task;
-        int count = 0;
-        while ((task = pendingDbWrites.poll()) != null && count < DB_BATCH_SIZE * 2) {
-            byWorld.computeIfAbsent(task.worldName, k -> new ArrayList<>())
-                   .add(new int[]{task.chunkX, task.chunkZ});
-            count++;
-        }
-        
-        if (!byWorld.isEmpty()) {
-            // Write to DB asynchronously
-            plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
-                for (Map.Entry<String, List<int[]>> entry : byWorld.entrySet()) {
-                    plugin.getDatabase().markChunksScanned(entry.getKey(), entry.getValue());
+    private void runBatch(List<ChunkTask> batch) {
+        boolean released = false;
+        try {
+            while (!batch.isEmpty()) {
+                detectBatch(batch);
+                if (releaseWorkerIfOverLimit()) {
+                    released = true;
+                    return;
                 }
-            });
+                batch = drainBatch(throttle.getBatchLimit());
+            }
+        } catch (InterruptedException e) {
+            // Shutting down - the chunks stay in flight and are saved for the next startup
+        } catch (Exception e) {
+            plugin.getConfigManager().debug("Error processing chunk batch: " + e.getMessage());
+            // Don't leave the failed batch stuck in-flight - let the chunks be queued again
+            for (ChunkTask task : batch) {
+                releaseInFlight(task);
+            }
+        } finally {
+            if (!released) {
+                activeTaskCount.decrementAndGet();
+            }
         }
     }
     
     /**
-     * Start an async task using Bukkit's scheduler (maintains proper context for NMS).
+     * Give up this worker's slot if more workers are busy than the throttle allows.
+     * Compare-and-set so only the surplus workers stop, not all of them at once.
      */
-    private void startAsyncTask(ChunkTask task) {
-        activeTaskCount.incrementAndGet();
+    private boolean releaseWorkerIfOverLimit() {
+        int active;
+        while ((active = activeTaskCount.get()) > throttle.getWorkerLimit()) {
+            if (activeTaskCount.compareAndSet(active, active - 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Detect stage: find the structure starts in each chunk of the batch and pass
+     * the batch on to the match stage, waiting while that stage is full.
+     */
+    private void detectBatch(List<ChunkTask> batch) throws InterruptedException {
+        long start = System.nanoTime();
+        StageBatch stageBatch = new StageBatch(batch);
         
-        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+        for (ChunkTask task : batch) {
+            // Chunk unloaded while waiting - it will be queued again on its next load
+            if (task.cancelled) {
+                cancelledChunkCount.incrementAndGet();
+                continue;
+            }
+            
+            // Region wasn't resident when the chunk was queued - check it properly now
+            if (scannedChunks.isScanned(task.worldName, task.chunkX, task.chunkZ)) {
+                continue;
+            }
+            
             try {
-                processChunkStructures(task.world, task.chunkX, task.chunkZ);
-                processedChunkCount.incrementAndGet();
+                // Name and filter the starts captured at queue time - the chunk itself is never read here
+                List<StructureFinder.StructureResult> structures = plugin.getStructureFinder()
+                    .getStructuresFromSnapshot(task.world, task.chunkX, task.chunkZ, task.structureStarts);
                 
-                // Mark as scanned in memory cache + queue for batched DB write
-                markChunkScannedCached(task.worldName, task.chunkX, task.chunkZ, task.chunkKey);
+                plugin.getConfigManager().debug("detectBatch: chunk " + task.chunkX + "," + task.chunkZ + 
+                    " found " + structures.size() + " structures");
+                
+                for (StructureFinder.StructureResult structure : structures) {
+                    stageBatch.structures.add(new PendingProtection(task.world, structure));
+                }
             } catch (Exception e) {
                 plugin.getConfigManager().debug("Error processing chunk " + task.chunkX + "," + task.chunkZ + ": " + e.getMessage());
-            } finally {
-                activeTaskCount.decrementAndGet();
-                // Process next queued chunk if any
-                processNextQueued();
             }
-        });
+            processedChunkCount.incrementAndGet();
+            stageBatch.scanned.add(task);
+        }
+        detectMetrics.recordWork(System.nanoTime() - start);
+        
+        matchStage.put(stageBatch);
     }
     
     /**
-     * Process the next queued chunk if there's capacity.
+     * Match stage: keep only structures with an enabled protection rule.
+     * Rule lookups are memoised across the batch.
      */
-    private void processNextQueued() {
-        if (activeTaskCount.get() < MAX_CONCURRENT_TASKS) {
-            ChunkTask next = pendingChunks.poll();
-            if (next != null) {
-                startAsyncTask(next);
+    private void matchBatch(StageBatch batch) throws InterruptedException {
+        try {
+            Map<String, ConfigManager.ProtectionRule> ruleCache = new HashMap<>();
+            List<PendingProtection> matched = new ArrayList<>();
+            
+            for (PendingProtection pending : batch.structures) {
+                String type = pending.structure.structureType;
+                ConfigManager.ProtectionRule rule;
+                if (ruleCache.containsKey(type)) {
+                    rule = ruleCache.get(type);
+                } else {
+                    rule = plugin.getConfigManager().getProtectionRule(type);
+                    ruleCache.put(type, rule);
+                }
+                
+                if (rule == null || !rule.enabled) {
+                    plugin.getConfigManager().debug("  " + type + ": no matching rule or not enabled");
+                    continue;
+                }
+                
+                plugin.getConfigManager().debug("  " + type + ": matches rule " + rule.pattern);
+                pending.rule = rule;
+                matched.add(pending);
             }
+            
+            batch.structures = matched;
+        } catch (RuntimeException e) {
+            releaseInFlight(batch);
+            throw e;
         }
+        persistStage.put(batch);
     }
     
     /**
-     * Process structures in a chunk and create regions if needed.
+     * Persist stage: drop structures that are already protected, record the rest in
+     * the database, and queue them for region creation. All database work for a batch
+     * happens here, so a busy database lock only holds up this stage.
      */
-    private void processChunkStructures(World world, int chunkX, int chunkZ) {
+    private void persistBatch(StageBatch batch) throws InterruptedException {
         try {
-            // Get structure starts from chunk using the StructureFinder
-            List<StructureFinder.StructureResult> structures = 
-                plugin.getStructureFinder().getStructuresInChunk(world, chunkX, chunkZ);
-            
-            plugin.getConfigManager().debug("processChunkStructures: chunk " + chunkX + "," + chunkZ + 
-                " found " + structures.size() + " structures");
-            
-            if (structures.isEmpty()) {
-                return;
-            }
-            
-            // Only log when we actually find structures worth mentioning
-            int protectable = 0;
+            // Drop anything already protected in the database (one query batch per world)
+            List<PendingProtection> toProtect = filterUnprotected(batch.structures);
             
-            for (StructureFinder.StructureResult structure : structures) {
-                plugin.getConfigManager().debug("  Checking structure: " + structure.structureType);
+            if (!toProtect.isEmpty()) {
+                plugin.getConfigManager().debug("Protecting " + toProtect.size() + " structures from a batch of " + 
+                    batch.chunks.size() + " chunks");
                 
-                // Check if this structure type should be protected
-                ConfigManager.ProtectionRule rule = plugin.getConfigManager().getProtectionRule(structure.structureType);
-                if (rule == null || !rule.enabled) {
-                    plugin.getConfigManager().debug("    No matching rule or not enabled (rule=" + 
-                        (rule != null ? rule.pattern : "null") + ")");
-                    continue;
+                // Record the structures now, so region creation never waits on the database lock
+                Map<String, List<Object[]>> byWorld = new LinkedHashMap<>();
+                for (PendingProtection pending : toProtect) {
+                    byWorld.computeIfAbsent(pending.world.getName(), k -> new ArrayList<>())
+                        .add(new Object[]{pending.structure.structureType, pending.structure.x, pending.structure.z});
                 }
-                
-                plugin.getConfigManager().debug("    Found matching rule: " + rule.pattern);
-                
-                // Check if already protected in database
-                if (plugin.getDatabase().isStructureProtected(world.getName(), structure.structureType, 
-                        structure.x, structure.z)) {
-                    plugin.getConfigManager().debug("    Already protected in database");
-                    continue;
+                for (Map.Entry<String, List<Object[]>> entry : byWorld.entrySet()) {
+                    plugin.getDatabase().addStructuresBatch(entry.getKey(), entry.getValue());
                 }
                 
-                protectable++;
-                plugin.getConfigManager().debug("    Will protect this structure!");
-                
-                // Create protection on main thread (WorldGuard requires it)
-                final StructureFinder.StructureResult finalStructure = structure;
-                final ConfigManager.ProtectionRule finalRule = rule;
-                
-                plugin.getServer().getScheduler().runTask(plugin, () -> {
-                    createProtection(world, finalStructure, finalRule);
-                });
+                // Regions are created on the main thread (WorldGuard requires it) by the per-tick drain
+                for (PendingProtection pending : toProtect) {
+                    awaitProtectionSlot();
+                    pending.sequence = protectionSequence.getAndIncrement();
+                    pendingProtections.offer(pending);
+                }
             }
             
-            if (protectable > 0) {
-                plugin.getConfigManager().debug("Protecting " + protectable + " structures in chunk " + 
-                    chunkX + "," + chunkZ);
+            // Mark as scanned in memory cache + queue for batched DB write
+            for (ChunkTask task : batch.scanned) {
+                markChunkScannedCached(task);
+            }
+            removeRestoredStructures(batch.structures);
+        } catch (RuntimeException e) {
+            releaseInFlight(batch);
+            throw e;
+        }
+        
+        // Only now allow the chunks to be queued again - the scanned cache covers them from here
+        releaseInFlight(batch);
+        if (generatedInStages.remove(batch)) {
+            releaseCaptured(batch);
+        }
+    }
+    
+    /**
+     * Remove the pending rows of restored structures, now recorded (or already protected).
+     */
+    private void removeRestoredStructures(List<PendingProtection> structures) {
+        Map<String, List<Object[]>> byWorld = new LinkedHashMap<>();
+        for (PendingProtection pending : structures) {
+            if (pending.restored) {
+                byWorld.computeIfAbsent(pending.world.getName(), k -> new ArrayList<>())
+                    .add(new Object[]{pending.structure.structureType, pending.structure.chunkX, pending.structure.chunkZ});
+            }
+        }
+        for (Map.Entry<String, List<Object[]>> entry : byWorld.entrySet()) {
+            plugin.getDatabase().removePendingStructures(entry.getKey(), entry.getValue());
+        }
+    }
+    
+    /**
+     * Forget the captured start chunks of a persisted generated batch.
+     */
+    private void releaseCaptured(StageBatch batch) {
+        for (ChunkTask task : batch.scanned) {
+            ConcurrentLongMap<ChunkTask> worldCaptured = capturedStarts.get(task.worldName);
+            if (worldCaptured != null) {
+                worldCaptured.remove(task.chunkKey, task);
+            }
+        }
+    }
+    
+    /**
+     * Wait for room in the region queue; the main thread frees one slot per region created.
+     * Gives up once the listener is closed, since the shutdown drain creates whatever is queued.
+     */
+    private void awaitProtectionSlot() throws InterruptedException {
+        if (protectionSlots.tryAcquire()) {
+            return;
+        }
+        long start = System.nanoTime();
+        while (!protectionSlots.tryAcquire(SLOT_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (closed) {
+                break;
+            }
+        }
+        protectMetrics.recordBackpressure(System.nanoTime() - start);
+    }
+    
+    private void releaseInFlight(StageBatch batch) {
+        for (ChunkTask task : batch.chunks) {
+            releaseInFlight(task);
+        }
+    }
+    
+    /**
+     * Remove structures that are already protected (or duplicated within the batch).
+     */
+    private List<PendingProtection> filterUnprotected(List<PendingProtection> matched) {
+        if (matched.isEmpty()) {
+            return matched;
+        }
+        
+        // Group by world, deduping identical type+origin entries
+        Map<String, List<PendingProtection>> byWorld = new LinkedHashMap<>();
+        Set<String> seen = new HashSet<>();
+        for (PendingProtection pending : matched) {
+            String worldName = pending.world.getName();
+            String key = worldName + ":" + pending.structure.structureType + ":" + 
+                pending.structure.x + ":" + pending.structure.z;
+            if (seen.add(key)) {
+                byWorld.computeIfAbsent(worldName, k -> new ArrayList<>()).add(pending);
+            }
+        }
+        
+        List<PendingProtection> result = new ArrayList<>();
+        for (Map.Entry<String, List<PendingProtection>> entry : byWorld.entrySet()) {
+            List<PendingProtection> candidates = entry.getValue();
+            List<Object[]> lookup = new ArrayList<>(candidates.size());
+            for (PendingProtection pending : candidates) {
+                lookup.add(new Object[]{pending.structure.structureType, pending.structure.x, pending.structure.z});
             }
             
-        } catch (Exception e) {
-            plugin.getConfigManager().debug("Error in processChunkStructures: " + e.getMessage());
+            boolean[] alreadyProtected = plugin.getDatabase().areStructuresProtected(entry.getKey(), lookup);
+            for (int i = 0; i < candidates.size(); i++) {
+                if (alreadyProtected[i]) {
+                    plugin.getConfigManager().debug("  " + candidates.get(i).structure.structureType + 
+                        " already protected in database");
+                } else {
+                    result.add(candidates.get(i));
+                }
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Protect stage: create queued regions until this tick's time budget is spent; the rest carry over.
+     * Always creates at least one so the queue keeps moving under sustained load.
+     */
+    private void drainProtections() {
+        long start = System.nanoTime();
+        PendingProtection pending;
+        while ((pending = pendingProtections.poll()) != null) {
+            protectionSlots.release();
+            long created = System.nanoTime();
+            createProtection(pending.world, pending.structure, pending.rule);
+            protectMetrics.recordWork(System.nanoTime() - created);
+            if (System.nanoTime() - start >= regionBudgetNanos) {
+                break;
+            }
         }
     }
     
@@ -295,10 +1411,7 @@ public class ChunkLoadListener implements Listener {
     private void createProtection(World world, StructureFinder.StructureResult structure, 
                                    ConfigManager.ProtectionRule rule) {
         try {
-            // Add to database first
-            boolean added = plugin.getDatabase().addStructure(world.getName(), structure.structureType, 
-                structure.x, structure.z);
-            
+            // Already recorded in the database by the persist stage
             // Create a StructureInfo for the RegionManager
             StructureDatabase.StructureInfo dbInfo = new StructureDatabase.StructureInfo(
                 world.getName(), 
@@ -334,7 +1447,28 @@ public class ChunkLoadListener implements Listener {
      * Pack chunk coordinates into a single long for efficient storage.
      */
     private long packChunkCoords(int x, int z) {
-        return ((long) x & 0xFFFFFFFFL) | (((long) z) << 32);
+        return ScannedChunkIndex.pack(x, z);
+    }
+    
+    /**
+     * Get the number of chunks skipped this session because no protected structure can start there.
+     */
+    public long getPredictedSkipCount() {
+        return predictedSkipCount.get();
+    }
+    
+    /**
+     * Get the number of structures recorded from generation events this session.
+     */
+    public long getGeneratedStructureCount() {
+        return generatedStructureCount.get();
+    }
+    
+    /**
+     * Check if structures are being recorded as they generate.
+     */
+    public boolean isCapturingGeneration() {
+        return generationCapture != null;
     }
     
     /**
@@ -358,6 +1492,47 @@ public class ChunkLoadListener implements Listener {
         return pendingChunks.size();
     }
     
+    /**
+     * Get the number of chunks restored from the last shutdown that are not queued yet.
+     */
+    public int getRestoringCount() {
+        return restoreBacklog.size();
+    }
+    
+    /**
+     * Check if the off-peak backlog is currently being processed.
+     */
+    public boolean isOffPeak() {
+        return offPeak;
+    }
+    
+    /**
+     * Get the number of matched structures waiting for their region to be created.
+     */
+    public int getPendingProtectionCount() {
+        return pendingProtections.size();
+    }
+    
+    int getRegionQueueSize() {
+        return regionQueueSize;
+    }
+    
+    PipelineStage.Metrics getDetectMetrics() {
+        return detectMetrics;
+    }
+    
+    PipelineStage<?> getMatchStage() {
+        return matchStage;
+    }
+    
+    PipelineStage<?> getPersistStage() {
+        return persistStage;
+    }
+    
+    PipelineStage.Metrics getProtectMetrics() {
+        return protectMetrics;
+    }
+    
     /**
      * Get current active task count.
      */
@@ -366,11 +1541,59 @@ public class ChunkLoadListener implements Listener {
     }
     
     /**
-     * Get cached chunk count for a world.
+     * Get the number of dedicated detection workers.
+     */
+    public int getMaxConcurrentTasks() {
+        return maxConcurrentTasks;
+    }
+    
+    /**
+     * Get the number of workers the throttle currently allows to run.
+     */
+    public int getWorkerLimit() {
+        return throttle.getWorkerLimit();
+    }
+    
+    /**
+     * Get the current maximum chunks per detection batch.
+     */
+    public int getBatchLimit() {
+        return throttle.getBatchLimit();
+    }
+    
+    /**
+     * Check if detection adapts to MSPT.
+     */
+    public boolean isAdaptive() {
+        return throttle.isEnabled();
+    }
+    
+    /**
+     * Get the MSPT seen at the throttle's last adjustment (0 before the first).
+     */
+    public double getLastMspt() {
+        return throttle.getLastMspt();
+    }
+    
+    /**
+     * Get the number of chunks dropped because the pending queue was full.
+     */
+    public long getDroppedChunkCount() {
+        return droppedChunkCount.get();
+    }
+    
+    /**
+     * Get the number of queued chunks skipped because they unloaded first.
+     */
+    public long getCancelledChunkCount() {
+        return cancelledChunkCount.get();
+    }
+    
+    /**
+     * Get the number of scanned chunks for a world in resident index tiles.
      */
     public int getCachedChunkCount(String worldName) {
-        Set<Long> cache = scannedChunksCache.get(worldName);
-        return cache != null ? cache.size() : 0;
+        return (int) scannedChunks.size(worldName);
     }
     
     /**
@@ -380,7 +1603,7 @@ public class ChunkLoadListener implements Listener {
         // Flush any pending DB writes first
         flushDbWrites();
         // Clear all world caches
-        scannedChunksCache.clear();
+        scannedChunks.clear();
         // Reload cache from DB
         loadCacheSync();
         plugin.getConfigManager().debug("Cleared and reloaded all chunk caches");
@@ -390,29 +1613,128 @@ public class ChunkLoadListener implements Listener {
      * Clear cache for a specific world (used when resetting a world).
      */
     public void clearWorldCache(String worldName) {
-        Set<Long> cache = scannedChunksCache.get(worldName);
-        if (cache != null) {
-            cache.clear();
-        }
+        scannedChunks.clearWorld(worldName);
         // Flush any pending DB writes
         flushDbWrites();
         plugin.getConfigManager().debug("Cleared chunk cache for world reset: " + worldName);
     }
     
     /**
-     * Flush remaining DB writes on shutdown.
+     * Stop the detection pool, save chunks that were never detected, and flush
+     * remaining DB writes on shutdown.
      */
     public void shutdown() {
+        // Empty the queue so workers stop after their current batch, and let those
+        // batches finish so their scanned marks are flushed below
+        dispatchTask.cancel();
+        drainIngest();
+        List<ChunkTask> unprocessed = pendingChunks.drain(Integer.MAX_VALUE);
+        
+        // The main thread stops freeing region slots here - don't let the persist stage wait for one
+        closed = true;
+        
+        // Stop each stage in order, so every batch still moving can reach the next one
+        detectionExecutor.shutdown();
+        try {
+            if (!detectionExecutor.awaitTermination(STAGE_SHUTDOWN_MILLIS, TimeUnit.MILLISECONDS)) {
+                detectionExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            detectionExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        matchStage.close(STAGE_SHUTDOWN_MILLIS);
+        persistStage.close(STAGE_SHUTDOWN_MILLIS);
+        
+        // Anything still in flight belongs to a batch that did not get through the pipeline in time
+        Set<ChunkTask> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        seen.addAll(unprocessed);
+        for (ConcurrentLongMap<ChunkTask> worldInFlight : inFlightChunks.values()) {
+            worldInFlight.forEach((key, task) -> {
+                if (seen.add(task)) {
+                    unprocessed.add(task);
+                }
+            });
+        }
+        inFlightChunks.clear();
+        unprocessed.addAll(restoreBacklog);
+        restoreBacklog.clear();
+        unprocessed.addAll(loadingBacklog);
+        loadingBacklog.clear();
+        savePendingChunks(unprocessed);
+        
+        // Generated structures have no chunk to be detected from later - save the ones
+        // that haven't been recorded yet, queued or still in the stages
+        List<PendingProtection> unrecorded = new ArrayList<>();
+        if (heldGeneratedBatch != null) {
+            unrecorded.addAll(heldGeneratedBatch.structures);
+            heldGeneratedBatch = null;
+        }
+        for (StageBatch batch : generatedInStages) {
+            unrecorded.addAll(batch.structures);
+        }
+        generatedInStages.clear();
+        unrecorded.addAll(generatedStructures);
+        generatedStructures.clear();
+        savePendingStructures(unrecorded);
+        
+        // Nothing left to carry over to - create the remaining queued regions now
+        PendingProtection pending;
+        while ((pending = pendingProtections.poll()) != null) {
+            createProtection(pending.world, pending.structure, pending.rule);
+        }
+        
+        // Write the rest of the off-peak backlog. A persist worker that outlived its stage may
+        // still be draining, so wait for it rather than leaving the rings unwritten
+        for (Map.Entry<String, long[]> entry : drainByWorld(deferredWrites, true).entrySet()) {
+            plugin.getDatabase().deferChunks(entry.getKey(), entry.getValue());
+            removeRestoredRows(entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<String, long[]> entry : drainByWorld(restoredDone, true).entrySet()) {
+            removeRestoredRows(entry.getKey(), entry.getValue());
+        }
+        
         // Flush all pending writes grouped by world
-        Map<String, List<int[]>> byWorld = new HashMap<>();
-        ChunkWriteTask task;
-        while ((task = pendingDbWrites.poll()) != null) {
+        Map<String, long[]> byWorld = drainByWorld(pendingDbWrites, true);
+        for (Map.Entry<String, long[]> entry : byWorld.entrySet()) {
+            plugin.getDatabase().markChunksScanned(entry.getKey(), entry.getValue());
+            removeRestoredRows(entry.getKey(), entry.getValue());
+        }
+    }
+    
+    /**
+     * Save unprocessed chunks (in queue order) so the next startup can restore them.
+     */
+    private void savePendingChunks(List<ChunkTask> tasks) {
+        Map<String, List<int[]>> byWorld = new LinkedHashMap<>();
+        for (ChunkTask task : tasks) {
             byWorld.computeIfAbsent(task.worldName, k -> new ArrayList<>())
-                   .add(new int[]{task.chunkX, task.chunkZ});
+                   .add(new int[]{task.chunkX, task.chunkZ, task.newChunk ? 1 : 0});
         }
         
         for (Map.Entry<String, List<int[]>> entry : byWorld.entrySet()) {
-            plugin.getDatabase().markChunksScanned(entry.getKey(), entry.getValue());
+            plugin.getDatabase().savePendingChunks(entry.getKey(), entry.getValue());
+        }
+        if (!tasks.isEmpty()) {
+            plugin.getLogger().info("Saved " + tasks.size() + " chunks waiting for structure detection");
+        }
+    }
+    
+    /**
+     * Save generated structures for the next startup, grouped by world.
+     */
+    private void savePendingStructures(List<PendingProtection> structures) {
+        Map<String, List<Object[]>> byWorld = new LinkedHashMap<>();
+        for (PendingProtection pending : structures) {
+            byWorld.computeIfAbsent(pending.world.getName(), k -> new ArrayList<>())
+                   .add(new Object[]{pending.structure.structureType, pending.structure.chunkX, pending.structure.chunkZ});
+        }
+        
+        for (Map.Entry<String, List<Object[]>> entry : byWorld.entrySet()) {
+            plugin.getDatabase().savePendingStructures(entry.getKey(), entry.getValue());
+        }
+        if (!structures.isEmpty()) {
+            plugin.getLogger().info("Saved " + structures.size() + " generated structures waiting to be recorded");
         }
     }
     
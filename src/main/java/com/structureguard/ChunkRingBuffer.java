@@ -0,0 +1,121 @@
+package com.structureguard;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Preallocated ring of primitive chunk slots (world index, chunkX, chunkZ, flags).
+ * Producers may run on any thread; only one thread may drain at a time.
+ * Neither offer nor drain allocates.
+ *
+ * Each slot has a sequence number that tells producers and the consumer whose
+ * turn it is, so no locks are taken (bounded MPMC queue design by D. Vyukov,
+ * reduced to a single consumer).
+ */
+class ChunkRingBuffer {
+    
+    /**
+     * Receives drained slots. Keep the instance in a field - a new lambda per
+     * drain call would allocate.
+     */
+    interface SlotConsumer {
+        void accept(int worldIndex, int chunkX, int chunkZ, int flags);
+    }
+    
+    private final int capacity;
+    private final int mask;
+    private final int[] worldIndexes;
+    private final int[] chunkXs;
+    private final int[] chunkZs;
+    private final int[] flags;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong(0);
+    private volatile long head = 0;  // Only written by the consumer
+    
+    /**
+     * @param minCapacity rounded up to a power of two
+     */
+    ChunkRingBuffer(int minCapacity) {
+        int size = Integer.highestOneBit(Math.max(2, minCapacity - 1)) << 1;
+        this.capacity = size;
+        this.mask = size - 1;
+        this.worldIndexes = new int[size];
+        this.chunkXs = new int[size];
+        this.chunkZs = new int[size];
+        this.flags = new int[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+    
+    /**
+     * Add a chunk. Safe to call from any thread.
+     * @return false if the ring is full
+     */
+    boolean offer(int worldIndex, int chunkX, int chunkZ, int slotFlags) {
+        long pos;
+        while (true) {
+            pos = tail.get();
+            long seq = sequences.get((int) pos & mask);
+            if (seq == pos) {
+                // Slot is free - claim it
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    break;
+                }
+            } else if (seq < pos) {
+                // Consumer has not freed this slot yet
+                return false;
+            }
+            // Another producer claimed it first - retry with the new tail
+        }
+        
+        int slot = (int) pos & mask;
+        worldIndexes[slot] = worldIndex;
+        chunkXs[slot] = chunkX;
+        chunkZs[slot] = chunkZ;
+        flags[slot] = slotFlags;
+        // Publish: the volatile write makes the slot contents visible to the consumer
+        sequences.set(slot, pos + 1);
+        return true;
+    }
+    
+    /**
+     * Hand up to max published slots to the consumer, in the order they were claimed.
+     * Callers must ensure only one thread drains at a time.
+     * @return the number of slots drained
+     */
+    int drain(SlotConsumer consumer, int max) {
+        long pos = head;
+        int drained = 0;
+        while (drained < max) {
+            int slot = (int) pos & mask;
+            if (sequences.get(slot) != pos + 1) {
+                // Empty, or the producer that claimed it has not published yet
+                break;
+            }
+            consumer.accept(worldIndexes[slot], chunkXs[slot], chunkZs[slot], flags[slot]);
+            // Free the slot for the producer one lap ahead
+            sequences.set(slot, pos + capacity);
+            pos++;
+            drained++;
+        }
+        head = pos;
+        return drained;
+    }
+    
+    /**
+     * Approximate number of claimed slots not yet drained.
+     */
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+    
+    boolean isEmpty() {
+        return size() == 0;
+    }
+    
+    int capacity() {
+        return capacity;
+    }
+}
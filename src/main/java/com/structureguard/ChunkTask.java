@@ -0,0 +1,40 @@
+package com.structureguard;
+
+import org.bukkit.World;
+
+/**
+ * A loaded chunk waiting for structure detection.
+ * Lower priority values are processed first. The priority is fixed when the chunk is
+ * queued and is not re-scored if players move away before it is dispatched.
+ */
+class ChunkTask {
+    final World world;
+    final int chunkX, chunkZ;
+    final String worldName;
+    final long chunkKey;
+    final long priority;
+    final boolean newChunk;
+    
+    // Set on the main thread when the chunk unloads before detection starts
+    volatile boolean cancelled;
+    
+    // Queued from the restore/off-peak backlog, which loaded the chunk only to read it
+    boolean fromBacklog;
+    
+    // Structure starts captured on the main thread when queued (see StructureFinder.captureStructureStarts).
+    // Only loaded chunks are queued, so every task has one
+    int[] structureStarts;
+    
+    // Insertion order, assigned by PendingChunkQueue - breaks priority ties FIFO
+    long sequence;
+    
+    ChunkTask(World world, int chunkX, int chunkZ, String worldName, long chunkKey, long priority, boolean newChunk) {
+        this.world = world;
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+        this.worldName = worldName;
+        this.chunkKey = chunkKey;
+        this.priority = priority;
+        this.newChunk = newChunk;
+    }
+}
@@ -1155,8 +1155,50 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
         if (listener != null) {
             long processed = listener.getProcessedChunkCount();
             long pending = listener.getPendingCount();
+            long dropped = listener.getDroppedChunkCount();
+            long cancelled = listener.getCancelledChunkCount();
             String pendingInfo = pending > 0 ? ", §e" + pending + " queued§7" : "";
-            sender.sendMessage("§7On-Demand: §aActive §7(" + processed + " chunks" + pendingInfo + ")");
+            String droppedInfo = dropped > 0 ? ", §c" + dropped + " dropped§7" : "";
+            String cancelledInfo = cancelled > 0 ? ", " + cancelled + " unloaded before scan" : "";
+            int restoring = listener.getRestoringCount();
+            String restoringInfo = restoring > 0 ? ", " + restoring + " restored from last shutdown" : "";
+            String generatedInfo = listener.isCapturingGeneration() 
+                ? ", " + listener.getGeneratedStructureCount() + " structures from generation" : "";
+            long predicted = listener.getPredictedSkipCount();
+            String predictedInfo = predicted > 0 ? ", " + predicted + " ruled out by placement" : "";
+            sender.sendMessage("§7On-Demand: §aActive §7(" + processed + " chunks" + pendingInfo + droppedInfo + 
+                cancelledInfo + restoringInfo + generatedInfo + predictedInfo + ")");
+            if (plugin.getConfigManager().shouldDeferExistingChunks()) {
+                sender.sendMessage("§7Existing chunks: §f" + plugin.getDatabase().getDeferredChunkCount() + 
+                    "§7 in off-peak backlog (" + (listener.isOffPeak() ? "§aprocessing" : "§ewaiting for off-peak") + 
+                    "§7)");
+            }
+            if (listener.isAdaptive() && listener.getLastMspt() > 0) {
+                double mspt = listener.getLastMspt();
+                double target = plugin.getConfigManager().getTargetMspt();
+                sender.sendMessage("§7Adaptive: " + (mspt > target ? "§e" : "§a") + 
+                    String.format("%.1f", mspt) + "§7 MSPT (target " + target + "), batches of " + 
+                    listener.getBatchLimit());
+            }
+            
+            // One line per pipeline stage - high "stalled" time means that stage is the bottleneck
+            sender.sendMessage("§7Pipeline:");
+            sendStageLine(sender, "detect", listener.getActiveTaskCount(), listener.getWorkerLimit(), 
+                (int) listener.getPendingCount(), plugin.getConfigManager().getDetectionQueueSize(), 
+                listener.getDetectMetrics());
+            PipelineStage<?> match = listener.getMatchStage();
+            sendStageLine(sender, "match", match.getMetrics().busy().get(), match.getWorkerCount(), 
+                match.size(), match.capacity(), match.getMetrics());
+            PipelineStage<?> persist = listener.getPersistStage();
+            sendStageLine(sender, "persist", persist.getMetrics().busy().get(), persist.getWorkerCount(), 
+                persist.size(), persist.capacity(), persist.getMetrics());
+            sendStageLine(sender, "protect", 0, 1, listener.getPendingProtectionCount(), 
+                listener.getRegionQueueSize(), listener.getProtectMetrics());
+            
+            ScannedChunkIndex index = plugin.getScannedChunkIndex();
+            sender.sendMessage("§7Scanned index: §f" + index.getResidentTiles() + "§7 regions resident (" + 
+                String.format("%.1f", index.getResidentBytes() / 1048576.0) + " of " + 
+                index.getMaxBytes() / 1048576 + " MB)");
         } else {
             sender.sendMessage("§7On-Demand: §cInactive");
         }
@@ -1177,6 +1219,18 @@ public class CommandHandler implements CommandExecutor, TabCompleter {
         return true;
     }
     
+    /**
+     * Show one pipeline stage: busy workers, queue fill, throughput and time spent stalling the stage before it.
+     */
+    private void sendStageLine(CommandSender sender, String name, int busy, int workers, int queued, int capacity,
+                               PipelineStage.Metrics metrics) {
+        String queueColor = queued >= capacity ? "§c" : queued > capacity / 2 ? "§e" : "§f";
+        sender.sendMessage("§7  " + name + ": §f" + busy + "§7/§f" + workers + "§7 busy, " + queueColor + queued + 
+            "§7/" + capacity + " queued, " + metrics.getProcessed() + " done, " + 
+            String.format("%.2f", metrics.getAverageMillis()) + "ms avg, " + 
+            String.format("%.1f", metrics.getBackpressureSeconds()) + "s stalled upstream");
+    }
+    
     private boolean cmdReload(CommandSender sender, String[] args) {
         if (!sender.hasPermission("structureguard.admin")) {
             sender.sendMessage("§cNo permission.");
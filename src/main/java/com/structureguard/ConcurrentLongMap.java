@@ -0,0 +1,263 @@
+package com.structureguard;
+
+import java.util.function.LongFunction;
+import java.util.function.Predicate;
+
+/**
+ * Concurrent map from primitive long keys to values - no boxed keys, no per-entry nodes.
+ * Keys are spread over independently locked stripes, each an open-addressing
+ * table with linear probing, so threads working on different keys rarely
+ * contend.
+ */
+class ConcurrentLongMap<V> {
+    
+    /**
+     * Receives each entry in forEach.
+     */
+    interface EntryConsumer<V> {
+        void accept(long key, V value);
+    }
+    
+    private static final int STRIPES = 64;  // Power of two
+    private static final int STRIPE_SHIFT = 64 - Integer.numberOfTrailingZeros(STRIPES);
+    private static final int MIN_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+    
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    
+    // A slot is free while its value is null, so any long (including 0) is a valid key
+    private static final class Stripe {
+        long[] keys;
+        Object[] values;
+        int size;
+        
+        Stripe(int capacity) {
+            keys = new long[capacity];
+            values = new Object[capacity];
+        }
+    }
+    
+    ConcurrentLongMap() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(MIN_CAPACITY);
+        }
+    }
+    
+    /**
+     * @return the value for the key, or null if absent
+     */
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        long hash = mix(key);
+        Stripe stripe = stripes[(int) (hash >>> STRIPE_SHIFT)];
+        synchronized (stripe) {
+            int slot = find(stripe.keys, stripe.values, key, hash);
+            return (V) stripe.values[slot];
+        }
+    }
+    
+    /**
+     * Get the value for a key, creating it with the factory (under the stripe lock) if absent.
+     */
+    @SuppressWarnings("unchecked")
+    V computeIfAbsent(long key, LongFunction<V> factory) {
+        long hash = mix(key);
+        Stripe stripe = stripes[(int) (hash >>> STRIPE_SHIFT)];
+        synchronized (stripe) {
+            int slot = find(stripe.keys, stripe.values, key, hash);
+            Object existing = stripe.values[slot];
+            if (existing != null) {
+                return (V) existing;
+            }
+            
+            V created = factory.apply(key);
+            insert(stripe, slot, key, hash, created);
+            return created;
+        }
+    }
+    
+    /**
+     * Map the key to the value unless it is already mapped.
+     * @return the existing value, or null if the value was added
+     */
+    @SuppressWarnings("unchecked")
+    V putIfAbsent(long key, V value) {
+        long hash = mix(key);
+        Stripe stripe = stripes[(int) (hash >>> STRIPE_SHIFT)];
+        synchronized (stripe) {
+            int slot = find(stripe.keys, stripe.values, key, hash);
+            Object existing = stripe.values[slot];
+            if (existing != null) {
+                return (V) existing;
+            }
+            insert(stripe, slot, key, hash, value);
+            return null;
+        }
+    }
+    
+    /**
+     * Replace the key's value only if it is currently the expected instance.
+     * @return true if the value was replaced
+     */
+    boolean replace(long key, V expected, V value) {
+        long hash = mix(key);
+        Stripe stripe = stripes[(int) (hash >>> STRIPE_SHIFT)];
+        synchronized (stripe) {
+            int slot = find(stripe.keys, stripe.values, key, hash);
+            if (stripe.values[slot] != expected || expected == null) {
+                return false;
+            }
+            stripe.values[slot] = value;
+            return true;
+        }
+    }
+    
+    /**
+     * Remove the key only if it is currently mapped to this instance.
+     * @return true if the entry was removed
+     */
+    boolean remove(long key, V value) {
+        long hash = mix(key);
+        Stripe stripe = stripes[(int) (hash >>> STRIPE_SHIFT)];
+        synchronized (stripe) {
+            int slot = find(stripe.keys, stripe.values, key, hash);
+            if (stripe.values[slot] != value || value == null) {
+                return false;
+            }
+            delete(stripe, slot);
+            return true;
+        }
+    }
+    
+    /**
+     * Remove a key if its value matches the condition, checked under the stripe lock.
+     * @return true if the entry was removed
+     */
+    @SuppressWarnings("unchecked")
+    boolean removeIf(long key, Predicate<V> condition) {
+        long hash = mix(key);
+        Stripe stripe = stripes[(int) (hash >>> STRIPE_SHIFT)];
+        synchronized (stripe) {
+            int slot = find(stripe.keys, stripe.values, key, hash);
+            Object value = stripe.values[slot];
+            if (value == null || !condition.test((V) value)) {
+                return false;
+            }
+            delete(stripe, slot);
+            return true;
+        }
+    }
+    
+    long size() {
+        long total = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                total += stripe.size;
+            }
+        }
+        return total;
+    }
+    
+    void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.keys = new long[MIN_CAPACITY];
+                stripe.values = new Object[MIN_CAPACITY];
+                stripe.size = 0;
+            }
+        }
+    }
+    
+    /**
+     * Visit every entry. Each stripe is locked while it is visited.
+     */
+    @SuppressWarnings("unchecked")
+    void forEach(EntryConsumer<V> consumer) {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                for (int i = 0; i < stripe.values.length; i++) {
+                    if (stripe.values[i] != null) {
+                        consumer.accept(stripe.keys[i], (V) stripe.values[i]);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Store a new entry in the free slot found for it, growing the stripe first if needed.
+     * Caller holds the stripe lock.
+     */
+    private static void insert(Stripe stripe, int slot, long key, long hash, Object value) {
+        if (stripe.size + 1 > stripe.keys.length * LOAD_FACTOR) {
+            rehash(stripe, stripe.keys.length * 2);
+            slot = find(stripe.keys, stripe.values, key, hash);
+        }
+        stripe.keys[slot] = key;
+        stripe.values[slot] = value;
+        stripe.size++;
+    }
+    
+    /**
+     * Backward-shift deletion: pull later entries of the probe chain into the gap.
+     * Caller holds the stripe lock.
+     */
+    private static void delete(Stripe stripe, int slot) {
+        long[] keys = stripe.keys;
+        Object[] values = stripe.values;
+        int mask = keys.length - 1;
+        int gap = slot;
+        values[gap] = null;
+        for (int i = (gap + 1) & mask; values[i] != null; i = (i + 1) & mask) {
+            int home = (int) mix(keys[i]) & mask;
+            // Entry can move into the gap unless its home slot lies in (gap, i]
+            boolean homeAfterGap = gap <= i ? (home > gap && home <= i) : (home > gap || home <= i);
+            if (!homeAfterGap) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                values[i] = null;
+                gap = i;
+            }
+        }
+        stripe.size--;
+    }
+    
+    /**
+     * Slot holding the key, or the free slot where it would go.
+     */
+    private static int find(long[] keys, Object[] values, long key, long hash) {
+        int mask = keys.length - 1;
+        for (int i = (int) hash & mask; ; i = (i + 1) & mask) {
+            if (values[i] == null || keys[i] == key) {
+                return i;
+            }
+        }
+    }
+    
+    private static void rehash(Stripe stripe, int capacity) {
+        long[] keys = new long[capacity];
+        Object[] values = new Object[capacity];
+        for (int i = 0; i < stripe.values.length; i++) {
+            if (stripe.values[i] != null) {
+                int slot = find(keys, values, stripe.keys[i], mix(stripe.keys[i]));
+                keys[slot] = stripe.keys[i];
+                values[slot] = stripe.values[i];
+            }
+        }
+        stripe.keys = keys;
+        stripe.values = values;
+    }
+    
+    /**
+     * Murmur3 finalizer - packed coordinates are far from uniformly distributed,
+     * so both the stripe (high bits) and the slot (low bits) need a well-mixed hash.
+     */
+    static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
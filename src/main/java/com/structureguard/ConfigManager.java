@@ -3,6 +3,9 @@ package com.structureguard;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -20,9 +23,32 @@ public class ConfigManager {
     private int defaultYMin;
     private int defaultYMax;
     private boolean processExistingChunks;
+    private boolean deferExistingChunks;
+    private List<int[]> offPeakWindows;
+    private int offPeakMaxPlayers;
     private Map<String, String> defaultFlags;
     private Set<String> disabledWorlds;
     
+    // Detection pool tuning (read once by ChunkLoadListener on startup)
+    private int maxWorkers;
+    private int minWorkers;
+    private double targetMspt;
+    private int detectionQueueSize;
+    private int detectionBatchSize;
+    private OverflowPolicy overflowPolicy;
+    private boolean prioritizeNearPlayers;
+    private boolean prioritizeByRule;
+    private double regionBudgetMillis;
+    private int matchWorkers;
+    private int persistWorkers;
+    private int stageQueueSize;
+    private int regionQueueSize;
+    private int scannedIndexMemoryMb;
+    private boolean nmsAdapterEnabled;
+    private String bukkitStructureApi;
+    private boolean generationCaptureEnabled;
+    private boolean placementPredictionEnabled;
+    
     // Protection rules - pattern -> rule
     private final Map<String, ProtectionRule> protectionRules = new HashMap<>();
     
@@ -40,6 +66,56 @@ public class ConfigManager {
         defaultYMax = config.getInt("default-y-max", 320);
         processExistingChunks = config.getBoolean("process-existing-chunks", true);
         
+        // Existing chunks: scan immediately, or keep a backlog for off-peak hours
+        String existingMode = config.getString("existing-chunks.mode", "immediate").toLowerCase();
+        deferExistingChunks = existingMode.equals("off-peak");
+        if (!deferExistingChunks && !existingMode.equals("immediate")) {
+            plugin.getLogger().warning("Unknown existing-chunks.mode '" + existingMode + "', using immediate");
+        }
+        offPeakWindows = new ArrayList<>();
+        for (String window : config.getStringList("existing-chunks.off-peak-hours")) {
+            int[] parsed = parseTimeWindow(window);
+            if (parsed != null) {
+                offPeakWindows.add(parsed);
+            } else {
+                plugin.getLogger().warning("Invalid off-peak window '" + window + "' (expected HH:mm-HH:mm)");
+            }
+        }
+        offPeakMaxPlayers = config.getInt("existing-chunks.max-players", 2);
+        
+        // Detection pool - 0 workers means auto-size from available cores
+        // (detection-threads is the pre-adaptive name for max-workers)
+        maxWorkers = config.getInt("performance.max-workers", config.getInt("performance.detection-threads", 0));
+        if (maxWorkers <= 0) {
+            maxWorkers = Math.max(2, Runtime.getRuntime().availableProcessors() / 4);
+        }
+        minWorkers = Math.max(1, Math.min(maxWorkers, config.getInt("performance.min-workers", 1)));
+        targetMspt = Math.max(0.0, config.getDouble("performance.target-mspt", 45.0));
+        detectionQueueSize = Math.max(64, config.getInt("performance.detection-queue-size", 10000));
+        detectionBatchSize = Math.max(1, config.getInt("performance.detection-batch-size", 256));
+        overflowPolicy = OverflowPolicy.fromConfig(config.getString("performance.overflow-policy", "drop-oldest"));
+        prioritizeNearPlayers = config.getBoolean("performance.prioritize-near-players", true);
+        prioritizeByRule = config.getBoolean("performance.prioritize-by-rule", true);
+        regionBudgetMillis = Math.max(0.1, config.getDouble("performance.region-budget-ms", 5.0));
+        matchWorkers = Math.max(1, config.getInt("performance.match-workers", 1));
+        persistWorkers = Math.max(1, config.getInt("performance.persist-workers", 1));
+        stageQueueSize = Math.max(1, config.getInt("performance.stage-queue-size", 64));
+        regionQueueSize = Math.max(1, config.getInt("performance.region-queue-size", 5000));
+        scannedIndexMemoryMb = Math.max(1, config.getInt("performance.scanned-index-memory-mb", 16));
+        nmsAdapterEnabled = config.getBoolean("performance.nms-adapter", true);
+        generationCaptureEnabled = config.getBoolean("performance.generation-capture", true);
+        placementPredictionEnabled = config.getBoolean("performance.placement-prediction", true);
+        bukkitStructureApi = config.getString("performance.bukkit-structure-api", "auto").toLowerCase();
+        if (!bukkitStructureApi.equals("auto") && !bukkitStructureApi.equals("always") && !bukkitStructureApi.equals("never")) {
+            plugin.getLogger().warning("Unknown performance.bukkit-structure-api '" + bukkitStructureApi + "', using auto");
+            bukkitStructureApi = "auto";
+        }
+        if (overflowPolicy == null) {
+            plugin.getLogger().warning("Unknown performance.overflow-policy '" + 
+                config.getString("performance.overflow-policy") + "', using drop-oldest");
+            overflowPolicy = OverflowPolicy.DROP_OLDEST;
+        }
+        
         // Load disabled worlds
         disabledWorlds = new HashSet<>();
         List<String> disabledList = config.getStringList("disabled-worlds");
@@ -278,6 +354,179 @@ public class ConfigManager {
         return processExistingChunks;
     }
     
+    /**
+     * Check if existing chunks go to the off-peak backlog instead of being scanned right away.
+     */
+    public boolean shouldDeferExistingChunks() {
+        return processExistingChunks && deferExistingChunks;
+    }
+    
+    /**
+     * Check if a time of day falls inside one of the configured off-peak windows.
+     */
+    public boolean isOffPeakTime(LocalTime time) {
+        int minute = time.getHour() * 60 + time.getMinute();
+        for (int[] window : offPeakWindows) {
+            boolean inside = window[0] <= window[1]
+                ? minute >= window[0] && minute < window[1]
+                : minute >= window[0] || minute < window[1];  // Wraps past midnight
+            if (inside) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Get the player count at or below which the backlog is processed (-1 = time windows only).
+     */
+    public int getOffPeakMaxPlayers() {
+        return offPeakMaxPlayers;
+    }
+    
+    /**
+     * Parse "HH:mm-HH:mm" into {startMinute, endMinute}, or null if malformed.
+     */
+    private static int[] parseTimeWindow(String window) {
+        String[] parts = window.trim().split("-");
+        if (parts.length != 2) {
+            return null;
+        }
+        try {
+            LocalTime start = LocalTime.parse(parts[0].trim());
+            LocalTime end = LocalTime.parse(parts[1].trim());
+            return new int[]{start.getHour() * 60 + start.getMinute(), end.getHour() * 60 + end.getMinute()};
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Get the number of dedicated structure detection threads (the most that can run at once).
+     */
+    public int getMaxWorkers() {
+        return maxWorkers;
+    }
+    
+    /**
+     * Get the fewest detection workers kept running while the server is lagging.
+     */
+    public int getMinWorkers() {
+        return minWorkers;
+    }
+    
+    /**
+     * Get the MSPT above which detection backs off (0 = always run at max workers).
+     */
+    public double getTargetMspt() {
+        return targetMspt;
+    }
+    
+    /**
+     * Get the maximum number of chunks waiting for a detection worker.
+     */
+    public int getDetectionQueueSize() {
+        return detectionQueueSize;
+    }
+    
+    /**
+     * Get the maximum number of chunks a detection worker processes as one batch.
+     */
+    public int getDetectionBatchSize() {
+        return detectionBatchSize;
+    }
+    
+    /**
+     * Check if queued chunks closest to a player should be detected first.
+     */
+    public boolean shouldPrioritizeNearPlayers() {
+        return prioritizeNearPlayers;
+    }
+    
+    /**
+     * Check if structures matching higher-priority rules should be protected first.
+     */
+    public boolean shouldPrioritizeByRule() {
+        return prioritizeByRule;
+    }
+    
+    /**
+     * Get the main-thread time per tick (ms) that may be spent creating regions.
+     */
+    public double getRegionBudgetMillis() {
+        return regionBudgetMillis;
+    }
+    
+    /**
+     * Get the number of threads matching detected structures against protection rules.
+     */
+    public int getMatchWorkers() {
+        return matchWorkers;
+    }
+    
+    /**
+     * Get the number of threads checking and recording structures in the database.
+     */
+    public int getPersistWorkers() {
+        return persistWorkers;
+    }
+    
+    /**
+     * Get the maximum detection batches waiting in front of the match and persist stages.
+     */
+    public int getStageQueueSize() {
+        return stageQueueSize;
+    }
+    
+    /**
+     * Get the maximum structures waiting for their region to be created.
+     */
+    public int getRegionQueueSize() {
+        return regionQueueSize;
+    }
+    
+    /**
+     * Get the memory cap for resident scanned-chunk region tiles, in megabytes.
+     */
+    public int getScannedIndexMemoryMb() {
+        return scannedIndexMemoryMb;
+    }
+    
+    /**
+     * Whether to use a compiled structure adapter when one matches the server version.
+     */
+    public boolean isNmsAdapterEnabled() {
+        return nmsAdapterEnabled;
+    }
+    
+    /**
+     * Whether to record structures from the server's structure generation event, where it has one.
+     */
+    public boolean isGenerationCaptureEnabled() {
+        return generationCaptureEnabled;
+    }
+    
+    /**
+     * Whether to skip chunks where the world's structure placements can't start a protected structure.
+     */
+    public boolean isPlacementPredictionEnabled() {
+        return placementPredictionEnabled;
+    }
+    
+    /**
+     * When to detect through the public Bukkit structure API: auto, always or never.
+     */
+    public String getBukkitStructureApi() {
+        return bukkitStructureApi;
+    }
+    
+    /**
+     * Get what to do with chunks that arrive while the detection queue is full.
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+    
     /**
      * Check if a world is disabled for structure protection.
      */
@@ -320,6 +569,27 @@ public class ConfigManager {
         return false;
     }
     
+    /**
+     * Behaviour when the pending detection queue is full.
+     */
+    public enum OverflowPolicy {
+        DROP_OLDEST,  // Evict the longest-waiting (lowest-priority) chunk to make room
+        DROP_NEWEST;  // Discard the chunk that just loaded
+        
+        /**
+         * Parse a config value such as "drop-oldest".
+         * @return the policy, or null if the value is not recognised
+         */
+        public static OverflowPolicy fromConfig(String value) {
+            if (value == null) return null;
+            try {
+                return valueOf(value.trim().toUpperCase().replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+    
     /**
      * Protection rule definition.
      */
@@ -0,0 +1,164 @@
+package com.structureguard;
+
+import org.bukkit.Server;
+
+import java.lang.reflect.Method;
+
+/**
+ * Feedback loop that sizes structure detection to how busy the server is.
+ * Halves the active worker limit and batch size while MSPT is above the target,
+ * and grows them back (one worker, double the batch) once the server has headroom.
+ *
+ * MSPT comes from Paper's Server#getAverageTickTime() when available. On Spigot it
+ * falls back to a smoothed tick interval, which only shows lag once ticks take
+ * longer than 50ms.
+ *
+ * tick() must be called once per server tick from the main thread; the limits
+ * may be read from any thread.
+ */
+class DetectionThrottle {
+    
+    private static final double TICK_MILLIS = 50.0;
+    private static final int ADJUST_INTERVAL_TICKS = 20;
+    // Grow again only once MSPT is comfortably below target, so the limits don't flap
+    private static final double RECOVER_RATIO = 0.8;
+    private static final double INTERVAL_SMOOTHING = 0.1;
+    
+    private final StructureGuardPlugin plugin;
+    private final double targetMspt;
+    private final int minWorkers;
+    private final int maxWorkers;
+    private final int minBatch;
+    private final int maxBatch;
+    private final Method averageTickTime;
+    
+    private volatile int workerLimit;
+    private volatile int batchLimit;
+    private volatile double lastMspt = 0;
+    
+    // Main thread only
+    private long lastTickNanos = 0;
+    private double smoothedInterval = TICK_MILLIS;
+    private int ticksSinceAdjust = 0;
+    
+    DetectionThrottle(StructureGuardPlugin plugin, double targetMspt, int minWorkers, int maxWorkers, int minBatch, int maxBatch) {
+        this.plugin = plugin;
+        this.targetMspt = targetMspt;
+        this.minWorkers = minWorkers;
+        this.maxWorkers = maxWorkers;
+        this.minBatch = minBatch;
+        this.maxBatch = maxBatch;
+        this.averageTickTime = findAverageTickTime();
+        this.workerLimit = maxWorkers;
+        this.batchLimit = maxBatch;
+    }
+    
+    /**
+     * Paper exposes the real average tick duration; Spigot does not.
+     */
+    private static Method findAverageTickTime() {
+        try {
+            return Server.class.getMethod("getAverageTickTime");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Check if the limits follow MSPT (false when target-mspt is 0).
+     */
+    boolean isEnabled() {
+        return targetMspt > 0;
+    }
+    
+    /**
+     * Check if MSPT is read from Paper rather than estimated from the tick interval.
+     */
+    boolean usesServerMspt() {
+        return averageTickTime != null;
+    }
+    
+    /**
+     * Record a tick and re-evaluate the limits once per adjustment interval.
+     */
+    void tick() {
+        long now = System.nanoTime();
+        if (lastTickNanos != 0) {
+            double interval = (now - lastTickNanos) / 1_000_000.0;
+            smoothedInterval += (interval - smoothedInterval) * INTERVAL_SMOOTHING;
+        }
+        lastTickNanos = now;
+        
+        if (!isEnabled() || ++ticksSinceAdjust < ADJUST_INTERVAL_TICKS) {
+            return;
+        }
+        ticksSinceAdjust = 0;
+        adjust(readMspt());
+    }
+    
+    private double readMspt() {
+        if (averageTickTime != null) {
+            try {
+                return ((Number) averageTickTime.invoke(plugin.getServer())).doubleValue();
+            } catch (Exception e) {
+                // Fall through to the tick interval estimate
+            }
+        }
+        return smoothedInterval;
+    }
+    
+    /**
+     * Halve or grow the limits for one MSPT reading.
+     */
+    void adjust(double mspt) {
+        lastMspt = mspt;
+        
+        // A tick interval can't drop below 50ms, so without Paper the best we can
+        // tell is whether the server is keeping up
+        double high = usesServerMspt() ? targetMspt : Math.max(targetMspt, TICK_MILLIS + 1.0);
+        double low = usesServerMspt() ? targetMspt * RECOVER_RATIO : TICK_MILLIS + 0.5;
+        
+        int workers = workerLimit;
+        int batch = batchLimit;
+        if (mspt > high) {
+            workers = Math.max(minWorkers, workers / 2);
+            batch = Math.max(minBatch, batch / 2);
+        } else if (mspt < low) {
+            workers = Math.min(maxWorkers, workers + 1);
+            batch = Math.min(maxBatch, batch * 2);
+        }
+        
+        if (workers != workerLimit || batch != batchLimit) {
+            workerLimit = workers;
+            batchLimit = batch;
+            plugin.getConfigManager().debug(String.format(
+                "Detection throttle: MSPT %.1f (target %.1f) -> %d workers, batches of %d",
+                mspt, targetMspt, workers, batch));
+        }
+    }
+    
+    /**
+     * Get the number of detection workers currently allowed to run.
+     */
+    int getWorkerLimit() {
+        return workerLimit;
+    }
+    
+    /**
+     * Get the current maximum chunks per detection batch.
+     */
+    int getBatchLimit() {
+        return batchLimit;
+    }
+    
+    /**
+     * Get the MSPT seen at the last adjustment (0 before the first one).
+     */
+    double getLastMspt() {
+        return lastMspt;
+    }
+    
+    double getTargetMspt() {
+        return targetMspt;
+    }
+}
@@ -0,0 +1,87 @@
+package com.structureguard;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Bounded queue of chunks waiting for detection, ordered by priority then arrival.
+ * With equal priorities this is a plain FIFO queue.
+ * Thread-safe: all operations are synchronized.
+ */
+class PendingChunkQueue {
+    
+    private static final Comparator<ChunkTask> ORDER = Comparator
+        .comparingLong((ChunkTask t) -> t.priority)
+        .thenComparingLong(t -> t.sequence);
+    
+    private final TreeSet<ChunkTask> tasks = new TreeSet<>(ORDER);
+    private final int capacity;
+    private final ConfigManager.OverflowPolicy overflowPolicy;
+    private long nextSequence = 0;
+    
+    PendingChunkQueue(int capacity, ConfigManager.OverflowPolicy overflowPolicy) {
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+    }
+    
+    /**
+     * Add a chunk, applying the overflow policy when the queue is full.
+     * DROP_OLDEST evicts the oldest of the lowest-priority entries, unless the
+     * incoming chunk ranks even lower, in which case the incoming chunk is dropped.
+     * @return the chunk that was dropped (queued or incoming), or null if nothing was dropped
+     */
+    synchronized ChunkTask offer(ChunkTask task) {
+        task.sequence = nextSequence++;
+        if (tasks.size() < capacity) {
+            tasks.add(task);
+            return null;
+        }
+        
+        if (overflowPolicy == ConfigManager.OverflowPolicy.DROP_OLDEST) {
+            long worstPriority = tasks.last().priority;
+            if (task.priority <= worstPriority) {
+                // Oldest entry among those with the worst priority
+                ChunkTask probe = new ChunkTask(null, 0, 0, null, 0, worstPriority, false);
+                probe.sequence = Long.MIN_VALUE;
+                ChunkTask evicted = tasks.ceiling(probe);
+                tasks.remove(evicted);
+                tasks.add(task);
+                return evicted;
+            }
+        }
+        return task;
+    }
+    
+    /**
+     * Remove a specific chunk if it is still waiting.
+     * @return true if it was queued and has been removed
+     */
+    synchronized boolean remove(ChunkTask task) {
+        return tasks.remove(task);
+    }
+    
+    /**
+     * Remove and return up to maxSize of the highest-priority chunks.
+     */
+    synchronized List<ChunkTask> drain(int maxSize) {
+        List<ChunkTask> batch = new ArrayList<>(Math.min(maxSize, tasks.size()));
+        while (batch.size() < maxSize && !tasks.isEmpty()) {
+            batch.add(tasks.pollFirst());
+        }
+        return batch;
+    }
+    
+    synchronized int size() {
+        return tasks.size();
+    }
+    
+    synchronized boolean isEmpty() {
+        return tasks.isEmpty();
+    }
+    
+    synchronized void clear() {
+        tasks.clear();
+    }
+}
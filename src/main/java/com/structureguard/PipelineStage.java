@@ -0,0 +1,181 @@
+package com.structureguard;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One stage of the detection pipeline: a bounded queue served by its own worker threads.
+ * put() blocks while the queue is full, so a slow stage holds back the stage feeding it
+ * instead of letting work pile up in memory.
+ */
+class PipelineStage<T> {
+    
+    /**
+     * Work done for each queued item. Runs on the stage's worker threads.
+     */
+    interface Handler<T> {
+        void handle(T item) throws Exception;
+    }
+    
+    /**
+     * Throughput counters for a stage, shown in /sg status.
+     */
+    static class Metrics {
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder busyNanos = new LongAdder();
+        private final LongAdder backpressureNanos = new LongAdder();
+        private final AtomicInteger busy = new AtomicInteger(0);
+        
+        void recordWork(long nanos) {
+            processed.increment();
+            busyNanos.add(nanos);
+        }
+        
+        void recordBackpressure(long nanos) {
+            backpressureNanos.add(nanos);
+        }
+        
+        AtomicInteger busy() {
+            return busy;
+        }
+        
+        long getProcessed() {
+            return processed.sum();
+        }
+        
+        /**
+         * Average time per item, in milliseconds.
+         */
+        double getAverageMillis() {
+            long count = processed.sum();
+            return count == 0 ? 0 : busyNanos.sum() / 1_000_000.0 / count;
+        }
+        
+        /**
+         * Total time the previous stage spent waiting for room in this one.
+         */
+        double getBackpressureSeconds() {
+            return backpressureNanos.sum() / 1_000_000_000.0;
+        }
+    }
+    
+    private static final long POLL_MILLIS = 100;
+    
+    private final String name;
+    private final StructureGuardPlugin plugin;
+    private final ArrayBlockingQueue<T> queue;
+    private final Handler<T> handler;
+    private final List<Thread> threads = new ArrayList<>();
+    private final Metrics metrics = new Metrics();
+    private volatile boolean closing = false;
+    
+    PipelineStage(StructureGuardPlugin plugin, String name, int workers, int capacity, Handler<T> handler) {
+        this.plugin = plugin;
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.handler = handler;
+        
+        for (int i = 1; i <= workers; i++) {
+            Thread thread = new Thread(this::workerLoop, "StructureGuard-" + name + "-" + i);
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+        }
+    }
+    
+    /**
+     * Queue an item, waiting while the stage is full.
+     */
+    void put(T item) throws InterruptedException {
+        if (queue.offer(item)) {
+            return;
+        }
+        long start = System.nanoTime();
+        queue.put(item);
+        metrics.recordBackpressure(System.nanoTime() - start);
+    }
+    
+    /**
+     * Queue an item only if there is room right now.
+     * @return false if the stage is full
+     */
+    boolean offer(T item) {
+        return queue.offer(item);
+    }
+    
+    private void workerLoop() {
+        while (true) {
+            T item;
+            try {
+                item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (item == null) {
+                if (closing) {
+                    return;
+                }
+                continue;
+            }
+            
+            metrics.busy().incrementAndGet();
+            long start = System.nanoTime();
+            try {
+                handler.handle(item);
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                plugin.getConfigManager().debug("Error in " + name + " stage: " + e.getMessage());
+            } finally {
+                metrics.recordWork(System.nanoTime() - start);
+                metrics.busy().decrementAndGet();
+            }
+        }
+    }
+    
+    /**
+     * Let the workers finish what is queued, waiting up to timeoutMillis,
+     * then interrupt any that are still running.
+     */
+    void close(long timeoutMillis) {
+        closing = true;
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        for (Thread thread : threads) {
+            try {
+                thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        for (Thread thread : threads) {
+            if (thread.isAlive()) {
+                thread.interrupt();
+            }
+        }
+    }
+    
+    String getName() {
+        return name;
+    }
+    
+    int getWorkerCount() {
+        return threads.size();
+    }
+    
+    int size() {
+        return queue.size();
+    }
+    
+    int capacity() {
+        return queue.size() + queue.remainingCapacity();
+    }
+    
+    Metrics getMetrics() {
+        return metrics;
+    }
+}
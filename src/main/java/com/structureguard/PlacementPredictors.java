@@ -0,0 +1,103 @@
+package com.structureguard;
+
+import org.bukkit.World;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-world placement predictors for the current protection rules. Each one is built in
+ * the background the first time its world is asked for, and all of them are rebuilt
+ * after a config reload, since the protected structure types may have changed.
+ * ALL_CHUNKS stands in while a predictor is building or when the world can't be predicted.
+ *
+ * A chunk a predictor rules out is only skipped for that load - it must not be marked
+ * scanned, or a structure type protected after a reload would never be looked for there.
+ *
+ * get() and forget() are main thread only.
+ */
+class PlacementPredictors {
+    
+    // Recorded structures checked per type before a predictor is trusted
+    private static final int CHECKS_PER_TYPE = 256;
+    
+    private final StructureGuardPlugin plugin;
+    
+    // World name -> predictor for the protection rules of predictorConfig
+    private final Map<String, StructurePlacementPredictor> predictors = new ConcurrentHashMap<>();
+    private volatile ConfigManager predictorConfig;
+    
+    PlacementPredictors(StructureGuardPlugin plugin) {
+        this.plugin = plugin;
+    }
+    
+    /**
+     * Get the world's predictor, starting a background build the first time
+     * (and again after a config reload).
+     */
+    StructurePlacementPredictor get(World world) {
+        ConfigManager config = plugin.getConfigManager();
+        if (config != predictorConfig) {
+            predictors.clear();
+            predictorConfig = config;
+        }
+        if (!config.isPlacementPredictionEnabled()) {
+            return StructurePlacementPredictor.ALL_CHUNKS;
+        }
+        
+        StructurePlacementPredictor predictor = predictors.get(world.getName());
+        if (predictor == null) {
+            predictors.put(world.getName(), StructurePlacementPredictor.ALL_CHUNKS);
+            plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> build(world, config));
+            return StructurePlacementPredictor.ALL_CHUNKS;
+        }
+        return predictor;
+    }
+    
+    /**
+     * Drop an unloaded world's predictor.
+     */
+    void forget(String worldName) {
+        predictors.remove(worldName);
+    }
+    
+    /**
+     * Build a world's predictor for the protected structure types, and check it against the
+     * structures already recorded there. If any recorded origin is a chunk the predictor
+     * would skip (e.g. a mod changing placement), prediction stays off for the world.
+     */
+    private void build(World world, ConfigManager config) {
+        // Worlds on the Bukkit structure API record centre chunks, which needn't be start chunks
+        if (plugin.getStructureFinder().reportsCentreOrigins(world)) {
+            return;
+        }
+        StructurePlacementPredictor predictor = plugin.getStructureFinder().createPlacementPredictor(world, type -> {
+            ConfigManager.ProtectionRule rule = config.getProtectionRule(type);
+            return rule != null && rule.enabled && !config.isStructureIgnored(type);
+        });
+        if (predictor == null || !predictor.isPredicting()) {
+            return;
+        }
+        
+        for (String type : predictor.getStructureTypes()) {
+            List<int[]> recorded = plugin.getDatabase().getStructuresOfType(world.getName(), type);
+            for (int i = 0; i < recorded.size() && i < CHECKS_PER_TYPE; i++) {
+                int[] origin = recorded.get(i);
+                if (!predictor.mayStartStructure(origin[0] >> 4, origin[1] >> 4)) {
+                    plugin.getLogger().warning("Placement prediction disabled for " + world.getName() + ": " +
+                        type + " at " + origin[0] + "," + origin[1] + " is not where the placement rules put it");
+                    return;
+                }
+            }
+        }
+        
+        // Publish only if the config hasn't been reloaded meanwhile
+        if (predictorConfig == config) {
+            predictors.replace(world.getName(), StructurePlacementPredictor.ALL_CHUNKS, predictor);
+            config.debug("Placement prediction for " + world.getName() + ": " +
+                predictor.getPlacementCount() + " placements, " + predictor.getStructureTypes().size() +
+                " protected structure types");
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.structureguard;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-world Bloom filter over the (type, x, z) of protected structures.
+ * A negative answer is definite, so "not protected" checks skip the database;
+ * a positive one only means the database has to be asked.
+ * Bits are never cleared - structures that lose their region stay as false positives
+ * until the world's filter is rebuilt.
+ * Thread-safe: bits are set with compare-and-set.
+ */
+class ProtectedStructureFilter {
+    
+    private static final int BITS_PER_ENTRY = 10;
+    private static final int HASHES = 7;  // ~1% false positives at 10 bits per entry
+    private static final int MIN_CAPACITY = 4096;
+    
+    /**
+     * Filter for one world, sized for an expected number of structures.
+     */
+    static final class Filter {
+        private final AtomicLongArray words;
+        private final int mask;
+        private final int capacity;
+        private final AtomicInteger count = new AtomicInteger();
+        
+        Filter(int expected) {
+            this.capacity = Math.max(MIN_CAPACITY, expected * 2);
+            int bits = Integer.highestOneBit(capacity * BITS_PER_ENTRY - 1) << 1;
+            this.words = new AtomicLongArray(bits >>> 6);
+            this.mask = bits - 1;
+        }
+        
+        void add(String structureType, int x, int z) {
+            long hash = hash(structureType, x, z);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32) | 1;
+            for (int i = 0; i < HASHES; i++) {
+                int bit = (h1 + i * h2) & mask;
+                long bitMask = 1L << bit;
+                int word = bit >>> 6;
+                long current;
+                while (((current = words.get(word)) & bitMask) == 0) {
+                    if (words.compareAndSet(word, current, current | bitMask)) {
+                        break;
+                    }
+                }
+            }
+            count.incrementAndGet();
+        }
+        
+        boolean mightContain(String structureType, int x, int z) {
+            long hash = hash(structureType, x, z);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32) | 1;
+            for (int i = 0; i < HASHES; i++) {
+                int bit = (h1 + i * h2) & mask;
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        /**
+         * True once more structures were added than the filter was sized for,
+         * which pushes the false-positive rate up.
+         */
+        boolean isOverfull() {
+            return count.get() > capacity;
+        }
+    }
+    
+    private final Map<String, Filter> worlds = new ConcurrentHashMap<>();
+    
+    void add(String world, String structureType, int x, int z) {
+        worlds.computeIfAbsent(world, k -> new Filter(0)).add(structureType, x, z);
+    }
+    
+    /**
+     * @return false if the structure is definitely not protected
+     */
+    boolean mightContain(String world, String structureType, int x, int z) {
+        Filter filter = worlds.get(world);
+        return filter != null && filter.mightContain(structureType, x, z);
+    }
+    
+    boolean isOverfull(String world) {
+        Filter filter = worlds.get(world);
+        return filter != null && filter.isOverfull();
+    }
+    
+    /**
+     * Swap in a freshly built filter for a world.
+     */
+    void install(String world, Filter filter) {
+        worlds.put(world, filter);
+    }
+    
+    void clear() {
+        worlds.clear();
+    }
+    
+    /**
+     * 64-bit hash of a structure; the two halves drive the double hashing above.
+     */
+    private static long hash(String structureType, int x, int z) {
+        long key = (x * 0x9E3779B97F4A7C15L) ^ (z * 0xC2B2AE3D27D4EB4FL) ^ structureType.hashCode();
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
@@ -0,0 +1,219 @@
+package com.structureguard;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * The NMS members reflection discovery settled on, saved to reflection-profile.yml.
+ * On the next start StructureFinder looks these up directly instead of searching
+ * ServerLevel, StructureManager, chunk and registry classes again.
+ *
+ * A profile is keyed by server implementation, version and a hash of the world
+ * classes. Each member also records the runtime class it was found on, and lookups
+ * fail if that class has changed - callers then fall back to full discovery.
+ */
+class ReflectionProfile {
+    
+    static final String FILE_NAME = "reflection-profile.yml";
+    private static final int FORMAT = 1;
+    
+    // A recorded type, field or method: owner class, member name, parameter type names
+    private static final class Member {
+        final String owner;
+        final String name;
+        final List<String> params;
+        
+        Member(String owner, String name, List<String> params) {
+            this.owner = owner;
+            this.name = name;
+            this.params = params;
+        }
+    }
+    
+    private final String implementation;
+    private final String version;
+    private final String classHash;
+    private final Map<String, Member> members = new LinkedHashMap<>();
+    private boolean fabricPath;
+    
+    private ReflectionProfile(String implementation, String version, String classHash) {
+        this.implementation = implementation;
+        this.version = version;
+        this.classHash = classHash;
+    }
+    
+    /**
+     * Empty profile for this server and these world classes (CraftWorld, ServerLevel).
+     */
+    static ReflectionProfile create(Class<?>... worldClasses) {
+        return new ReflectionProfile(Bukkit.getName(), Bukkit.getVersion(), hash(worldClasses));
+    }
+    
+    /**
+     * Whether this profile was recorded on this server with these world classes.
+     */
+    boolean matches(Class<?>... worldClasses) {
+        return String.valueOf(Bukkit.getName()).equals(implementation) &&
+               String.valueOf(Bukkit.getVersion()).equals(version) &&
+               hash(worldClasses).equals(classHash);
+    }
+    
+    boolean isFabricPath() {
+        return fabricPath;
+    }
+    
+    void setFabricPath(boolean fabricPath) {
+        this.fabricPath = fabricPath;
+    }
+    
+    boolean has(String slot) {
+        return members.containsKey(slot);
+    }
+    
+    void recordType(String slot, Class<?> type) {
+        members.put(slot, new Member(type.getName(), "", new ArrayList<>()));
+    }
+    
+    void recordField(String slot, Field field) {
+        members.put(slot, new Member(field.getDeclaringClass().getName(), field.getName(), new ArrayList<>()));
+    }
+    
+    /**
+     * Record a method as found on the receiver's runtime class.
+     */
+    void recordMethod(String slot, Object receiver, Method method) {
+        List<String> params = new ArrayList<>();
+        for (Class<?> param : method.getParameterTypes()) {
+            params.add(param.getName());
+        }
+        members.put(slot, new Member(receiver.getClass().getName(), method.getName(), params));
+    }
+    
+    Class<?> type(String slot, ClassLoader loader) throws ReflectiveOperationException {
+        return Class.forName(member(slot).owner, false, loader);
+    }
+    
+    /**
+     * Static field recorded in the slot.
+     */
+    Field field(String slot, ClassLoader loader) throws ReflectiveOperationException {
+        Member member = member(slot);
+        return Class.forName(member.owner, false, loader).getField(member.name);
+    }
+    
+    /**
+     * Method recorded in the slot, looked up on the receiver's class and its superclasses.
+     * @throws ReflectiveOperationException if the receiver's class isn't the one recorded
+     */
+    Method method(String slot, Object receiver) throws ReflectiveOperationException {
+        Member member = member(slot);
+        Class<?> owner = receiver.getClass();
+        if (!owner.getName().equals(member.owner)) {
+            throw new NoSuchMethodException(slot + ": expected " + member.owner + ", found " + owner.getName());
+        }
+        Class<?>[] params = new Class<?>[member.params.size()];
+        for (int i = 0; i < params.length; i++) {
+            params[i] = parameterType(member.params.get(i), owner.getClassLoader());
+        }
+        // Declared up the hierarchy, so non-public methods discovery settled on replay too
+        for (Class<?> type = owner; type != null; type = type.getSuperclass()) {
+            try {
+                Method method = type.getDeclaredMethod(member.name, params);
+                method.setAccessible(true);
+                return method;
+            } catch (NoSuchMethodException e) {
+                // Try the superclass
+            }
+        }
+        throw new NoSuchMethodException(slot + ": " + member.owner + "." + member.name + " not found");
+    }
+    
+    private Member member(String slot) throws NoSuchFieldException {
+        Member member = members.get(slot);
+        if (member == null) {
+            throw new NoSuchFieldException("Profile has no " + slot);
+        }
+        return member;
+    }
+    
+    /**
+     * @return the saved profile, or null if there is none or it can't be read
+     */
+    static ReflectionProfile load(File file) {
+        if (!file.exists()) {
+            return null;
+        }
+        YamlConfiguration yaml = YamlConfiguration.loadConfiguration(file);
+        if (yaml.getInt("format", 0) != FORMAT) {
+            return null;
+        }
+        ReflectionProfile profile = new ReflectionProfile(
+            yaml.getString("implementation"), yaml.getString("version"), yaml.getString("classes", ""));
+        profile.fabricPath = yaml.getBoolean("fabric-path", false);
+        ConfigurationSection section = yaml.getConfigurationSection("members");
+        if (section != null) {
+            for (String slot : section.getKeys(false)) {
+                profile.members.put(slot, new Member(
+                    section.getString(slot + ".owner"),
+                    section.getString(slot + ".name", ""),
+                    section.getStringList(slot + ".params")));
+            }
+        }
+        return profile;
+    }
+    
+    void save(File file) throws IOException {
+        YamlConfiguration yaml = new YamlConfiguration();
+        yaml.set("format", FORMAT);
+        yaml.set("implementation", implementation);
+        yaml.set("version", version);
+        yaml.set("classes", classHash);
+        yaml.set("fabric-path", fabricPath);
+        for (Map.Entry<String, Member> entry : members.entrySet()) {
+            Member member = entry.getValue();
+            String path = "members." + entry.getKey();
+            yaml.set(path + ".owner", member.owner);
+            if (!member.name.isEmpty()) {
+                yaml.set(path + ".name", member.name);
+            }
+            if (!member.params.isEmpty()) {
+                yaml.set(path + ".params", member.params);
+            }
+        }
+        yaml.save(file);
+    }
+    
+    private static Class<?> parameterType(String name, ClassLoader loader) throws ClassNotFoundException {
+        switch (name) {
+            case "int": return int.class;
+            case "long": return long.class;
+            case "boolean": return boolean.class;
+            case "double": return double.class;
+            case "float": return float.class;
+            case "short": return short.class;
+            case "byte": return byte.class;
+            case "char": return char.class;
+            default: return Class.forName(name, false, loader);
+        }
+    }
+    
+    private static String hash(Class<?>... classes) {
+        CRC32 crc = new CRC32();
+        for (Class<?> clazz : classes) {
+            crc.update(clazz.getName().getBytes(java.nio.charset.StandardCharsets.UTF_8));
+            crc.update(0);
+        }
+        return Long.toHexString(crc.getValue());
+    }
+}
@@ -0,0 +1,388 @@
+package com.structureguard;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongFunction;
+
+/**
+ * In-memory index of scanned chunks, shared by on-demand detection and /sg scan.
+ * Chunks are grouped by 32x32 region (the same grid as .mca region files), and each
+ * region is a 1024-bit bitmap - 128 bytes however many of its chunks are scanned.
+ *
+ * Region tiles are read from the database the first time a chunk in them is looked
+ * up, and the least recently used tiles are evicted once the index grows past
+ * performance.scanned-index-memory-mb. Tiles holding marks that haven't been written
+ * to the database yet are never evicted.
+ * Thread-safe: bits are set with compare-and-set, no locks on the lookup path.
+ */
+public class ScannedChunkIndex {
+    
+    static final int REGION_SHIFT = 5;
+    static final int REGION_MASK = (1 << REGION_SHIFT) - 1;
+    static final int BITMAP_BYTES = (1 << (REGION_SHIFT * 2)) / 8;
+    private static final int BITMAP_WORDS = BITMAP_BYTES / 8;
+    // Rough heap cost of one resident tile: bitmap, tile objects and its map slot
+    static final int TILE_BYTES = 256;
+    
+    /**
+     * Scanned-chunk bitmap of one region.
+     */
+    private static final class Tile {
+        final AtomicLongArray bits = new AtomicLongArray(BITMAP_WORDS);
+        // Marks not yet written to the database - the tile is pinned while this is above 0
+        final AtomicInteger unsaved = new AtomicInteger();
+        // Whether the stored bitmap has been merged in; until then only set bits are meaningful
+        volatile boolean loaded;
+        // Written without synchronization - only used to pick eviction victims
+        long lastUsed = System.nanoTime();
+    }
+    
+    private final StructureGuardPlugin plugin;
+    // World name -> packed region coords -> tile
+    private final Map<String, ConcurrentLongMap<Tile>> worlds = new ConcurrentHashMap<>();
+    private final AtomicInteger residentTiles = new AtomicInteger();
+    private final AtomicBoolean evicting = new AtomicBoolean(false);
+    // Resident count when an eviction pass last came up short on unpinned tiles, -1 if it didn't
+    private volatile int evictionBlockedAt = -1;
+    // Bumped whenever a tile is unpinned, so a pass can tell if one was unpinned while it ran
+    private final AtomicInteger unpins = new AtomicInteger();
+    private final LongFunction<Tile> newTile = key -> {
+        residentTiles.incrementAndGet();
+        return new Tile();
+    };
+    
+    public ScannedChunkIndex(StructureGuardPlugin plugin) {
+        this.plugin = plugin;
+    }
+    
+    /**
+     * Check against resident tiles only. Never touches the database, so it is safe on the
+     * main thread; false means "not known to be scanned" rather than "not scanned".
+     */
+    public boolean isScannedIfLoaded(String world, long chunkKey) {
+        int chunkX = (int) chunkKey;
+        int chunkZ = (int) (chunkKey >>> 32);
+        ConcurrentLongMap<Tile> tiles = worlds.get(world);
+        if (tiles == null) {
+            return false;
+        }
+        Tile tile = tiles.get(regionKey(chunkX, chunkZ));
+        if (tile == null) {
+            return false;
+        }
+        tile.lastUsed = System.nanoTime();
+        return isSet(tile, chunkX, chunkZ);
+    }
+    
+    /**
+     * Check if a chunk is scanned, reading its region from the database if it isn't resident.
+     * May block on the database - don't call from the main thread.
+     */
+    public boolean isScanned(String world, int chunkX, int chunkZ) {
+        return isSet(loadedTile(world, chunkX, chunkZ), chunkX, chunkZ);
+    }
+    
+    /**
+     * Read every region overlapping a chunk range with one query, so a scan of the area
+     * doesn't query region by region. Skipped if the range wouldn't fit under the memory cap.
+     */
+    public void loadRange(String world, int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+        int minRegionX = minChunkX >> REGION_SHIFT;
+        int minRegionZ = minChunkZ >> REGION_SHIFT;
+        int maxRegionX = maxChunkX >> REGION_SHIFT;
+        int maxRegionZ = maxChunkZ >> REGION_SHIFT;
+        long regions = (long) (maxRegionX - minRegionX + 1) * (maxRegionZ - minRegionZ + 1);
+        if (regions > maxTiles() / 2) {
+            return;
+        }
+        
+        ConcurrentLongMap<Tile> tiles = worldTiles(world);
+        plugin.getDatabase().forEachScannedRegion(world, minRegionX, minRegionZ, maxRegionX, maxRegionZ,
+            (regionX, regionZ, bits) -> merge(tiles.computeIfAbsent(pack(regionX, regionZ), newTile), bits));
+        
+        // Regions without a row have no scanned chunks - their (empty) tiles are loaded too
+        for (int regionX = minRegionX; regionX <= maxRegionX; regionX++) {
+            for (int regionZ = minRegionZ; regionZ <= maxRegionZ; regionZ++) {
+                tiles.computeIfAbsent(pack(regionX, regionZ), newTile).loaded = true;
+            }
+        }
+        evictIfOverCap();
+    }
+    
+    /**
+     * Record a scanned chunk whose database row has already been written.
+     */
+    public void markScanned(String world, int chunkX, int chunkZ) {
+        setBit(worldTiles(world).computeIfAbsent(regionKey(chunkX, chunkZ), newTile), chunkX, chunkZ);
+        evictIfOverCap();
+    }
+    
+    /**
+     * Record a scanned chunk that is still waiting to be written to the database.
+     * Its tile stays resident until markSaved is called for the chunk.
+     */
+    public void markUnsaved(String world, long chunkKey) {
+        int chunkX = (int) chunkKey;
+        int chunkZ = (int) (chunkKey >>> 32);
+        ConcurrentLongMap<Tile> tiles = worldTiles(world);
+        long key = regionKey(chunkX, chunkZ);
+        while (true) {
+            Tile tile = tiles.computeIfAbsent(key, newTile);
+            tile.unsaved.incrementAndGet();
+            // Pin first, then confirm the tile wasn't evicted in between
+            if (tiles.get(key) == tile) {
+                setBit(tile, chunkX, chunkZ);
+                break;
+            }
+            tile.unsaved.decrementAndGet();
+        }
+        evictIfOverCap();
+    }
+    
+    /**
+     * Unpin the tiles of chunks passed to markUnsaved once their rows are written.
+     */
+    public void markSaved(String world, long[] chunkKeys) {
+        ConcurrentLongMap<Tile> tiles = worlds.get(world);
+        if (tiles == null) {
+            return;
+        }
+        for (long chunkKey : chunkKeys) {
+            Tile tile = tiles.get(regionKey((int) chunkKey, (int) (chunkKey >>> 32)));
+            if (tile != null && tile.unsaved.getAndUpdate(count -> count > 0 ? count - 1 : 0) == 1) {
+                // Unpinned a tile, so the next pass has something to evict
+                unpins.incrementAndGet();
+                evictionBlockedAt = -1;
+            }
+        }
+    }
+    
+    /**
+     * Count the scanned chunks in a world's resident tiles.
+     */
+    public long size(String world) {
+        ConcurrentLongMap<Tile> tiles = worlds.get(world);
+        if (tiles == null) {
+            return 0;
+        }
+        long[] total = new long[1];
+        tiles.forEach((key, tile) -> {
+            for (int word = 0; word < BITMAP_WORDS; word++) {
+                total[0] += Long.bitCount(tile.bits.get(word));
+            }
+        });
+        return total[0];
+    }
+    
+    public int getResidentTiles() {
+        return residentTiles.get();
+    }
+    
+    public long getResidentBytes() {
+        return (long) residentTiles.get() * TILE_BYTES;
+    }
+    
+    public long getMaxBytes() {
+        return (long) maxTiles() * TILE_BYTES;
+    }
+    
+    /**
+     * Forget a world's scanned chunks (used when its scan history is reset).
+     */
+    public void clearWorld(String world) {
+        ConcurrentLongMap<Tile> tiles = worlds.get(world);
+        if (tiles != null) {
+            residentTiles.addAndGet((int) -tiles.size());
+            tiles.clear();
+            evictionBlockedAt = -1;
+        }
+    }
+    
+    /**
+     * Drop every resident tile; they are read from the database again on next use.
+     */
+    public void clear() {
+        for (String world : worlds.keySet()) {
+            clearWorld(world);
+        }
+    }
+    
+    private ConcurrentLongMap<Tile> worldTiles(String world) {
+        return worlds.computeIfAbsent(world, k -> new ConcurrentLongMap<>());
+    }
+    
+    /**
+     * The tile for a chunk's region, with the stored bitmap merged in.
+     */
+    private Tile loadedTile(String world, int chunkX, int chunkZ) {
+        ConcurrentLongMap<Tile> tiles = worldTiles(world);
+        long key = regionKey(chunkX, chunkZ);
+        Tile tile = tiles.get(key);
+        if (tile == null || !tile.loaded) {
+            // Read outside the map's locks; a concurrent load of the same tile just merges twice
+            byte[] stored = plugin.getDatabase().getScannedRegion(world,
+                chunkX >> REGION_SHIFT, chunkZ >> REGION_SHIFT);
+            tile = tiles.computeIfAbsent(key, newTile);
+            if (stored != null) {
+                merge(tile, stored);
+            }
+            tile.loaded = true;
+            evictIfOverCap();
+        }
+        tile.lastUsed = System.nanoTime();
+        return tile;
+    }
+    
+    private int maxTiles() {
+        return (int) Math.min(Integer.MAX_VALUE,
+            plugin.getConfigManager().getScannedIndexMemoryMb() * 1024L * 1024L / TILE_BYTES);
+    }
+    
+    /**
+     * Evict the least recently used unpinned tiles down to 90% of the cap,
+     * so a busy index doesn't evict again on every load. One thread at a time.
+     *
+     * While pinned tiles hold the index over the cap, a pass finds too little to evict.
+     * Rather than rescan every tile on each mark and load, passes then wait until a tile
+     * is unpinned or another tenth of the cap has been loaded.
+     */
+    private void evictIfOverCap() {
+        int max = maxTiles();
+        int resident = residentTiles.get();
+        if (resident <= max) {
+            return;
+        }
+        int blockedAt = evictionBlockedAt;
+        if (blockedAt >= 0 && resident < blockedAt + Math.max(1, max / 10)) {
+            return;
+        }
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        int unpinsAtStart = unpins.get();
+        
+        try {
+            int excess = residentTiles.get() - max / 10 * 9;
+            
+            // Find the last-use time below which enough unpinned tiles fall
+            long[][] stamps = {new long[Math.max(16, residentTiles.get())]};
+            int[] count = {0};
+            for (ConcurrentLongMap<Tile> tiles : worlds.values()) {
+                tiles.forEach((key, tile) -> {
+                    if (tile.unsaved.get() == 0) {
+                        if (count[0] == stamps[0].length) {
+                            stamps[0] = Arrays.copyOf(stamps[0], count[0] * 2);
+                        }
+                        stamps[0][count[0]++] = tile.lastUsed;
+                    }
+                });
+            }
+            if (count[0] == 0 || excess <= 0) {
+                return;
+            }
+            long[] sorted = Arrays.copyOf(stamps[0], count[0]);
+            Arrays.sort(sorted);
+            long cutoff = sorted[Math.min(excess, sorted.length) - 1];
+            
+            int evicted = 0;
+            for (ConcurrentLongMap<Tile> tiles : worlds.values()) {
+                long[][] victims = {new long[16]};
+                int[] victimCount = {0};
+                tiles.forEach((key, tile) -> {
+                    if (tile.lastUsed <= cutoff) {
+                        if (victimCount[0] == victims[0].length) {
+                            victims[0] = Arrays.copyOf(victims[0], victimCount[0] * 2);
+                        }
+                        victims[0][victimCount[0]++] = key;
+                    }
+                });
+                for (int i = 0; i < victimCount[0] && evicted < excess; i++) {
+                    // Re-checked under the stripe lock - markUnsaved pins before confirming its tile
+                    if (tiles.removeIf(victims[0][i], tile -> tile.unsaved.get() == 0 && tile.lastUsed <= cutoff)) {
+                        residentTiles.decrementAndGet();
+                        evicted++;
+                    }
+                }
+            }
+            plugin.getConfigManager().debug("Evicted " + evicted + " scanned-chunk tiles, " +
+                residentTiles.get() + " resident");
+        } finally {
+            int left = residentTiles.get();
+            evictionBlockedAt = left > max && unpins.get() == unpinsAtStart ? left : -1;
+            evicting.set(false);
+        }
+    }
+    
+    private static boolean isSet(Tile tile, int chunkX, int chunkZ) {
+        int bit = bitIndex(chunkX, chunkZ);
+        return (tile.bits.get(bit >>> 6) & (1L << bit)) != 0;
+    }
+    
+    private static void setBit(Tile tile, int chunkX, int chunkZ) {
+        int bit = bitIndex(chunkX, chunkZ);
+        orWord(tile.bits, bit >>> 6, 1L << bit);
+    }
+    
+    private static void merge(Tile tile, byte[] stored) {
+        if (stored.length != BITMAP_BYTES) {
+            return;
+        }
+        for (int word = 0; word < BITMAP_WORDS; word++) {
+            orWord(tile.bits, word, readWord(stored, word));
+        }
+        tile.loaded = true;
+    }
+    
+    private static void orWord(AtomicLongArray bitmap, int word, long bits) {
+        long current;
+        while (((current = bitmap.get(word)) | bits) != current) {
+            if (bitmap.compareAndSet(word, current, current | bits)) {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Read 64 bits of a stored bitmap (little-endian, like setBit).
+     */
+    private static long readWord(byte[] bits, int word) {
+        long value = 0;
+        for (int i = 7; i >= 0; i--) {
+            value = (value << 8) | (bits[word * 8 + i] & 0xFFL);
+        }
+        return value;
+    }
+    
+    /**
+     * Pack chunk (or region) coordinates into a single long.
+     */
+    public static long pack(int x, int z) {
+        return ((long) x & 0xFFFFFFFFL) | (((long) z) << 32);
+    }
+    
+    /**
+     * Packed coordinates of the region containing a chunk.
+     */
+    static long regionKey(int chunkX, int chunkZ) {
+        return pack(chunkX >> REGION_SHIFT, chunkZ >> REGION_SHIFT);
+    }
+    
+    /**
+     * Position of a chunk within its region's bitmap (0-1023).
+     */
+    static int bitIndex(int chunkX, int chunkZ) {
+        return ((chunkZ & REGION_MASK) << REGION_SHIFT) | (chunkX & REGION_MASK);
+    }
+    
+    /**
+     * Set a chunk's bit in a stored (byte[BITMAP_BYTES]) bitmap.
+     */
+    static void setBit(byte[] bits, int chunkX, int chunkZ) {
+        int bit = bitIndex(chunkX, chunkZ);
+        bits[bit >>> 3] |= (byte) (1 << (bit & 7));
+    }
+}
@@ -0,0 +1,43 @@
+package com.structureguard;
+
+import org.bukkit.World;
+
+/**
+ * Structure access compiled against one server version, instead of discovered by reflection.
+ * Implementations live in the adapters/ Gradle modules and are picked by Minecraft version
+ * in StructureFinder; servers without a working adapter use the reflective path.
+ */
+public interface StructureAdapter {
+    
+    /**
+     * Receives each structure found by a query.
+     */
+    interface StructureConsumer {
+        void accept(String structureType, int originChunkX, int originChunkZ);
+    }
+    
+    /**
+     * Short description for /sg debug, e.g. "Paper 1.21.2+ (v1_21_R3)".
+     */
+    String getName();
+    
+    /**
+     * Check the adapter links against this server for the world, without reading any chunk
+     * (e.g. resolve the structure registry). Throws if it doesn't work here.
+     * Called on the main thread while the world is initialized.
+     */
+    void probe(World world);
+    
+    /**
+     * Report every structure with a piece in the chunk, along with the chunk its origin is in.
+     * Called from detection workers, the same way the reflective path is.
+     */
+    void forEachStructureAt(World world, int chunkX, int chunkZ, StructureConsumer consumer);
+    
+    /**
+     * Report the structures that start in the chunk, read from the chunk itself rather than
+     * through a reference query. This is what detection snapshots at queue time.
+     * Main thread only - the chunk must be loaded.
+     */
+    void forEachStartIn(World world, int chunkX, int chunkZ, StructureConsumer consumer);
+}
@@ -13,6 +13,7 @@ public class StructureDatabase {
     private final StructureGuardPlugin plugin;
     private Connection connection;
     private final Object dbLock = new Object(); // Lock for thread-safe database access
+    private final ProtectedStructureFilter protectedFilter = new ProtectedStructureFilter();
     
     public StructureDatabase(StructureGuardPlugin plugin) {
         this.plugin = plugin;
@@ -37,16 +38,54 @@ public class StructureDatabase {
                     "UNIQUE(world, structure_type, x, z))"
                 );
                 
-                // Track which chunks have been scanned (for resume-aware scanning)
+                // Track which chunks have been scanned (for resume-aware scanning).
+                // One row per 32x32 region, a 128-byte bitmap with a bit per chunk
                 stmt.executeUpdate(
-                    "CREATE TABLE IF NOT EXISTS scanned_chunks (" +
+                    "CREATE TABLE IF NOT EXISTS scanned_regions (" +
+                    "world TEXT NOT NULL," +
+                    "region_x INTEGER NOT NULL," +
+                    "region_z INTEGER NOT NULL," +
+                    "bits BLOB NOT NULL," +
+                    "PRIMARY KEY(world, region_x, region_z))"
+                );
+                
+                // Chunks still waiting for detection at shutdown, restored on next startup
+                stmt.executeUpdate(
+                    "CREATE TABLE IF NOT EXISTS pending_chunks (" +
+                    "world TEXT NOT NULL," +
+                    "chunk_x INTEGER NOT NULL," +
+                    "chunk_z INTEGER NOT NULL," +
+                    "new_chunk INTEGER DEFAULT 0," +
+                    "PRIMARY KEY(world, chunk_x, chunk_z))"
+                );
+                
+                // Structures reported by generation but not yet recorded at shutdown, restored on next startup
+                stmt.executeUpdate(
+                    "CREATE TABLE IF NOT EXISTS pending_structures (" +
+                    "world TEXT NOT NULL," +
+                    "structure_type TEXT NOT NULL," +
+                    "chunk_x INTEGER NOT NULL," +
+                    "chunk_z INTEGER NOT NULL," +
+                    "PRIMARY KEY(world, structure_type, chunk_x, chunk_z))"
+                );
+                
+                // Existing chunks waiting for an off-peak window before being scanned
+                stmt.executeUpdate(
+                    "CREATE TABLE IF NOT EXISTS deferred_chunks (" +
                     "world TEXT NOT NULL," +
                     "chunk_x INTEGER NOT NULL," +
                     "chunk_z INTEGER NOT NULL," +
-                    "scanned_at INTEGER DEFAULT (strftime('%s','now'))," +
+                    "deferred_at INTEGER DEFAULT (strftime('%s','now'))," +
                     "PRIMARY KEY(world, chunk_x, chunk_z))"
                 );
                 
+                // Which origin convention a world's structures are recorded with (start or centre chunk)
+                stmt.executeUpdate(
+                    "CREATE TABLE IF NOT EXISTS world_origins (" +
+                    "world TEXT PRIMARY KEY," +
+                    "origins TEXT NOT NULL)"
+                );
+                
                 stmt.executeUpdate(
                     "CREATE INDEX IF NOT EXISTS idx_type ON structures(structure_type)"
                 );
@@ -58,6 +97,8 @@ public class StructureDatabase {
                 );
             }
             
+            migrateScannedChunks();
+            rebuildProtectedFilter(null);
             plugin.getLogger().info("Structure database initialized");
             
         } catch (SQLException e) {
@@ -65,6 +106,93 @@ public class StructureDatabase {
         }
     }
     
+    /**
+     * Convert the old one-row-per-chunk scanned_chunks table into region bitmaps, then drop it.
+     */
+    private void migrateScannedChunks() throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery(
+                "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'scanned_chunks'"
+            )) {
+                if (!rs.next()) {
+                    return;
+                }
+            }
+            
+            Map<String, Map<Long, byte[]>> byWorld = new HashMap<>();
+            int migrated = 0;
+            try (ResultSet rs = stmt.executeQuery("SELECT world, chunk_x, chunk_z FROM scanned_chunks")) {
+                while (rs.next()) {
+                    addToBitmaps(byWorld.computeIfAbsent(rs.getString(1), k -> new HashMap<>()),
+                        rs.getInt(2), rs.getInt(3));
+                    migrated++;
+                }
+            }
+            for (Map.Entry<String, Map<Long, byte[]>> entry : byWorld.entrySet()) {
+                if (!mergeScannedRegions(entry.getKey(), entry.getValue())) {
+                    // Keep the old table so the migration is retried on next startup
+                    return;
+                }
+            }
+            stmt.executeUpdate("DROP TABLE scanned_chunks");
+            plugin.getLogger().info("Migrated " + migrated + " scanned chunks to region bitmaps");
+        }
+    }
+    
+    /**
+     * Rebuild the protected-structure filter from the database, for one world or (null) all of them.
+     */
+    private void rebuildProtectedFilter(String world) {
+        String worldFilter = world == null ? "" : " AND world = ?";
+        synchronized (dbLock) {
+            try {
+                // Size each world's filter from its protected count first
+                Map<String, ProtectedStructureFilter.Filter> filters = new HashMap<>();
+                try (PreparedStatement stmt = connection.prepareStatement(
+                    "SELECT world, COUNT(*) FROM structures WHERE has_region = 1" + worldFilter + " GROUP BY world"
+                )) {
+                    if (world != null) {
+                        stmt.setString(1, world);
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            filters.put(rs.getString(1), new ProtectedStructureFilter.Filter(rs.getInt(2)));
+                        }
+                    }
+                }
+                
+                try (PreparedStatement stmt = connection.prepareStatement(
+                    "SELECT world, structure_type, x, z FROM structures WHERE has_region = 1" + worldFilter
+                )) {
+                    if (world != null) {
+                        stmt.setString(1, world);
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            ProtectedStructureFilter.Filter filter = filters.get(rs.getString(1));
+                            if (filter != null) {
+                                filter.add(rs.getString(2), rs.getInt(3), rs.getInt(4));
+                            }
+                        }
+                    }
+                }
+                
+                if (world == null) {
+                    protectedFilter.clear();
+                } else {
+                    filters.putIfAbsent(world, new ProtectedStructureFilter.Filter(0));
+                }
+                for (Map.Entry<String, ProtectedStructureFilter.Filter> entry : filters.entrySet()) {
+                    protectedFilter.install(entry.getKey(), entry.getValue());
+                }
+                plugin.getConfigManager().debug("Rebuilt protected-structure filter for " + 
+                    (world == null ? filters.size() + " worlds" : world));
+            } catch (SQLException e) {
+                plugin.getLogger().warning("Failed to build protected structure filter: " + e.getMessage());
+            }
+        }
+    }
+    
     /**
      * Add a structure to the database. Ignores duplicates.
      * Thread-safe.
@@ -143,6 +271,13 @@ public class StructureDatabase {
     
     // ==================== SCANNED CHUNKS TRACKING ====================
     
+    /**
+     * Receives one stored region bitmap (ScannedChunkIndex.BITMAP_BYTES bytes).
+     */
+    public interface ScannedRegionConsumer {
+        void accept(int regionX, int regionZ, byte[] bits);
+    }
+    
     /**
      * Check if a chunk has already been scanned.
      * Thread-safe.
@@ -150,13 +285,18 @@ public class StructureDatabase {
     public boolean isChunkScanned(String world, int chunkX, int chunkZ) {
         synchronized (dbLock) {
             try (PreparedStatement stmt = connection.prepareStatement(
-                "SELECT 1 FROM scanned_chunks WHERE world = ? AND chunk_x = ? AND chunk_z = ?"
+                "SELECT bits FROM scanned_regions WHERE world = ? AND region_x = ? AND region_z = ?"
             )) {
                 stmt.setString(1, world);
-                stmt.setInt(2, chunkX);
-                stmt.setInt(3, chunkZ);
+                stmt.setInt(2, chunkX >> ScannedChunkIndex.REGION_SHIFT);
+                stmt.setInt(3, chunkZ >> ScannedChunkIndex.REGION_SHIFT);
                 try (ResultSet rs = stmt.executeQuery()) {
-                    return rs.next();
+                    if (!rs.next()) {
+                        return false;
+                    }
+                    byte[] bits = rs.getBytes(1);
+                    int bit = ScannedChunkIndex.bitIndex(chunkX, chunkZ);
+                    return bits != null && (bit >>> 3) < bits.length && (bits[bit >>> 3] & (1 << (bit & 7))) != 0;
                 }
             } catch (SQLException e) {
                 return false;
@@ -165,40 +305,96 @@ public class StructureDatabase {
     }
     
     /**
-     * Get all scanned chunks for a world as a Set for fast lookup.
-     * Returns packed long values (chunkX | (chunkZ << 32))
+     * Get the stored scanned-chunk bitmap of one region, or null if none of its chunks are scanned.
+     * Thread-safe.
+     */
+    public byte[] getScannedRegion(String world, int regionX, int regionZ) {
+        synchronized (dbLock) {
+            try (PreparedStatement stmt = connection.prepareStatement(
+                "SELECT bits FROM scanned_regions WHERE world = ? AND region_x = ? AND region_z = ?"
+            )) {
+                stmt.setString(1, world);
+                stmt.setInt(2, regionX);
+                stmt.setInt(3, regionZ);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next() ? rs.getBytes(1) : null;
+                }
+            } catch (SQLException e) {
+                plugin.getConfigManager().debug("Failed to get scanned region: " + e.getMessage());
+                return null;
+            }
+        }
+    }
+    
+    /**
+     * Stream the scanned-chunk bitmap of every stored region within a region range (inclusive).
      * Thread-safe.
      */
-    public Set<Long> getScannedChunks(String world) {
-        Set<Long> scanned = new HashSet<>();
+    public void forEachScannedRegion(String world, int minRegionX, int minRegionZ, int maxRegionX, int maxRegionZ,
+                                     ScannedRegionConsumer consumer) {
         synchronized (dbLock) {
             try (PreparedStatement stmt = connection.prepareStatement(
-                "SELECT chunk_x, chunk_z FROM scanned_chunks WHERE world = ?"
+                "SELECT region_x, region_z, bits FROM scanned_regions WHERE world = ? " +
+                "AND region_x BETWEEN ? AND ? AND region_z BETWEEN ? AND ?"
             )) {
                 stmt.setString(1, world);
+                stmt.setInt(2, minRegionX);
+                stmt.setInt(3, maxRegionX);
+                stmt.setInt(4, minRegionZ);
+                stmt.setInt(5, maxRegionZ);
                 try (ResultSet rs = stmt.executeQuery()) {
                     while (rs.next()) {
-                        int x = rs.getInt("chunk_x");
-                        int z = rs.getInt("chunk_z");
-                        // Pack into long for fast HashSet lookup
-                        long packed = ((long) x & 0xFFFFFFFFL) | (((long) z) << 32);
-                        scanned.add(packed);
+                        byte[] bits = rs.getBytes(3);
+                        if (bits != null && bits.length == ScannedChunkIndex.BITMAP_BYTES) {
+                            consumer.accept(rs.getInt(1), rs.getInt(2), bits);
+                        }
                     }
                 }
             } catch (SQLException e) {
                 plugin.getLogger().warning("Failed to get scanned chunks: " + e.getMessage());
             }
         }
-        return scanned;
     }
     
     /**
      * Mark chunks as scanned in batch (for performance).
-     * Thread-safe with synchronized block.
+     * Thread-safe.
      */
     public void markChunksScanned(String world, List<int[]> chunks) {
         if (chunks == null || chunks.isEmpty()) return;
         
+        Map<Long, byte[]> regions = new HashMap<>();
+        for (int[] chunk : chunks) {
+            addToBitmaps(regions, chunk[0], chunk[1]);
+        }
+        mergeScannedRegions(world, regions);
+    }
+    
+    /**
+     * Mark chunks as scanned in batch, given packed chunk keys (chunkX | (chunkZ << 32)).
+     * Thread-safe.
+     */
+    public void markChunksScanned(String world, long[] chunks) {
+        if (chunks == null || chunks.length == 0) return;
+        
+        Map<Long, byte[]> regions = new HashMap<>();
+        for (long key : chunks) {
+            addToBitmaps(regions, (int) key, (int) (key >>> 32));
+        }
+        mergeScannedRegions(world, regions);
+    }
+    
+    private static void addToBitmaps(Map<Long, byte[]> regions, int chunkX, int chunkZ) {
+        byte[] bits = regions.computeIfAbsent(ScannedChunkIndex.regionKey(chunkX, chunkZ),
+            k -> new byte[ScannedChunkIndex.BITMAP_BYTES]);
+        ScannedChunkIndex.setBit(bits, chunkX, chunkZ);
+    }
+    
+    /**
+     * OR region bitmaps (keyed by packed region coords) into the stored ones, in one transaction.
+     * @return false if the write failed and was rolled back
+     */
+    private boolean mergeScannedRegions(String world, Map<Long, byte[]> regions) {
         synchronized (dbLock) {
             try {
                 // Check current auto-commit state
@@ -208,17 +404,36 @@ public class StructureDatabase {
                     connection.setAutoCommit(false);
                 }
                 
-                try (PreparedStatement stmt = connection.prepareStatement(
-                    "INSERT OR IGNORE INTO scanned_chunks (world, chunk_x, chunk_z) VALUES (?, ?, ?)"
-                )) {
-                    for (int[] chunk : chunks) {
-                        stmt.setString(1, world);
-                        stmt.setInt(2, chunk[0]);
-                        stmt.setInt(3, chunk[1]);
-                        stmt.addBatch();
+                try (PreparedStatement select = connection.prepareStatement(
+                        "SELECT bits FROM scanned_regions WHERE world = ? AND region_x = ? AND region_z = ?");
+                     PreparedStatement upsert = connection.prepareStatement(
+                        "INSERT OR REPLACE INTO scanned_regions (world, region_x, region_z, bits) VALUES (?, ?, ?, ?)")) {
+                    for (Map.Entry<Long, byte[]> entry : regions.entrySet()) {
+                        long key = entry.getKey();
+                        int regionX = (int) key;
+                        int regionZ = (int) (key >>> 32);
+                        byte[] bits = entry.getValue();
+                        
+                        select.setString(1, world);
+                        select.setInt(2, regionX);
+                        select.setInt(3, regionZ);
+                        try (ResultSet rs = select.executeQuery()) {
+                            if (rs.next()) {
+                                byte[] stored = rs.getBytes(1);
+                                for (int i = 0; stored != null && i < Math.min(stored.length, bits.length); i++) {
+                                    bits[i] |= stored[i];
+                                }
+                            }
+                        }
+                        
+                        upsert.setString(1, world);
+                        upsert.setInt(2, regionX);
+                        upsert.setInt(3, regionZ);
+                        upsert.setBytes(4, bits);
+                        upsert.addBatch();
                     }
                     
-                    stmt.executeBatch();
+                    upsert.executeBatch();
                     connection.commit();
                 } finally {
                     // Restore auto-commit state
@@ -226,6 +441,7 @@ public class StructureDatabase {
                         connection.setAutoCommit(true);
                     }
                 }
+                return true;
                 
             } catch (SQLException e) {
                 plugin.getConfigManager().debug("Failed to mark chunks scanned: " + e.getMessage());
@@ -237,23 +453,28 @@ public class StructureDatabase {
                 } catch (SQLException e2) {
                     // Ignore rollback errors
                 }
+                return false;
             }
         }
     }
     
     /**
      * Clear all scanned chunk records for a world (for rescan).
+     * @return the number of chunks that were marked scanned
      */
     public int clearScannedChunks(String world) {
-        try {
-            PreparedStatement stmt = connection.prepareStatement(
-                "DELETE FROM scanned_chunks WHERE world = ?"
-            );
-            stmt.setString(1, world);
-            return stmt.executeUpdate();
-        } catch (SQLException e) {
-            plugin.getLogger().warning("Failed to clear scanned chunks: " + e.getMessage());
-            return 0;
+        synchronized (dbLock) {
+            int cleared = getScannedChunkCount(world);
+            try (PreparedStatement stmt = connection.prepareStatement(
+                "DELETE FROM scanned_regions WHERE world = ?"
+            )) {
+                stmt.setString(1, world);
+                stmt.executeUpdate();
+                return cleared;
+            } catch (SQLException e) {
+                plugin.getLogger().warning("Failed to clear scanned chunks: " + e.getMessage());
+                return 0;
+            }
         }
     }
     
@@ -277,17 +498,366 @@ public class StructureDatabase {
      * Get count of scanned chunks for a world.
      */
     public int getScannedChunkCount(String world) {
-        try {
-            PreparedStatement stmt = connection.prepareStatement(
-                "SELECT COUNT(*) FROM scanned_chunks WHERE world = ?"
-            );
-            stmt.setString(1, world);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                return rs.getInt(1);
+        synchronized (dbLock) {
+            try (PreparedStatement stmt = connection.prepareStatement(
+                "SELECT bits FROM scanned_regions WHERE world = ?"
+            )) {
+                stmt.setString(1, world);
+                int count = 0;
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        byte[] bits = rs.getBytes(1);
+                        for (int i = 0; bits != null && i < bits.length; i++) {
+                            count += Integer.bitCount(bits[i] & 0xFF);
+                        }
+                    }
+                }
+                return count;
+            } catch (SQLException e) {
+                // Ignore
+            }
+        }
+        return 0;
+    }
+    
+    // ==================== PENDING DETECTION QUEUE ====================
+    
+    /**
+     * Save chunks that were still waiting for detection, in queue order.
+     * Each entry is {chunkX, chunkZ, newChunk (1/0)}.
+     * Thread-safe.
+     */
+    public void savePendingChunks(String world, List<int[]> chunks) {
+        if (chunks == null || chunks.isEmpty()) return;
+        
+        synchronized (dbLock) {
+            try {
+                boolean wasAutoCommit = connection.getAutoCommit();
+                if (wasAutoCommit) {
+                    connection.setAutoCommit(false);
+                }
+                
+                try (PreparedStatement stmt = connection.prepareStatement(
+                    "INSERT OR IGNORE INTO pending_chunks (world, chunk_x, chunk_z, new_chunk) VALUES (?, ?, ?, ?)"
+                )) {
+                    for (int[] chunk : chunks) {
+                        stmt.setString(1, world);
+                        stmt.setInt(2, chunk[0]);
+                        stmt.setInt(3, chunk[1]);
+                        stmt.setInt(4, chunk[2]);
+                        stmt.addBatch();
+                    }
+                    
+                    stmt.executeBatch();
+                    connection.commit();
+                } finally {
+                    if (wasAutoCommit) {
+                        connection.setAutoCommit(true);
+                    }
+                }
+                
+            } catch (SQLException e) {
+                plugin.getLogger().warning("Failed to save pending chunks: " + e.getMessage());
+                try {
+                    if (!connection.getAutoCommit()) {
+                        connection.rollback();
+                        connection.setAutoCommit(true);
+                    }
+                } catch (SQLException e2) {
+                    // Ignore rollback errors
+                }
+            }
+        }
+    }
+    
+    /**
+     * Load the saved pending chunks for a world, in the order they were saved.
+     * Rows stay until removePendingChunks, so a crash before they are handled keeps them.
+     * Each entry is {chunkX, chunkZ, newChunk (1/0)}.
+     * Thread-safe.
+     */
+    public List<int[]> getPendingChunks(String world) {
+        List<int[]> chunks = new ArrayList<>();
+        synchronized (dbLock) {
+            try (PreparedStatement select = connection.prepareStatement(
+                     "SELECT chunk_x, chunk_z, new_chunk FROM pending_chunks WHERE world = ? ORDER BY rowid")) {
+                select.setString(1, world);
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        chunks.add(new int[]{rs.getInt("chunk_x"), rs.getInt("chunk_z"), rs.getInt("new_chunk")});
+                    }
+                }
+            } catch (SQLException e) {
+                plugin.getLogger().warning("Failed to load pending chunks: " + e.getMessage());
+            }
+        }
+        return chunks;
+    }
+    
+    /**
+     * Remove saved pending chunks that have been handled, given packed chunk keys
+     * (chunkX | (chunkZ << 32)).
+     * Thread-safe.
+     */
+    public void removePendingChunks(String world, long[] chunks) {
+        if (chunks == null || chunks.length == 0) return;
+        
+        synchronized (dbLock) {
+            try {
+                boolean wasAutoCommit = connection.getAutoCommit();
+                if (wasAutoCommit) {
+                    connection.setAutoCommit(false);
+                }
+                
+                try (PreparedStatement stmt = connection.prepareStatement(
+                    "DELETE FROM pending_chunks WHERE world = ? AND chunk_x = ? AND chunk_z = ?"
+                )) {
+                    for (long key : chunks) {
+                        stmt.setString(1, world);
+                        stmt.setInt(2, (int) key);
+                        stmt.setInt(3, (int) (key >>> 32));
+                        stmt.addBatch();
+                    }
+                    
+                    stmt.executeBatch();
+                    connection.commit();
+                } finally {
+                    if (wasAutoCommit) {
+                        connection.setAutoCommit(true);
+                    }
+                }
+                
+            } catch (SQLException e) {
+                plugin.getLogger().warning("Failed to remove pending chunks: " + e.getMessage());
+                try {
+                    if (!connection.getAutoCommit()) {
+                        connection.rollback();
+                        connection.setAutoCommit(true);
+                    }
+                } catch (SQLException e2) {
+                    // Ignore rollback errors
+                }
+            }
+        }
+    }
+    
+    /**
+     * Save generated structures that were not recorded yet.
+     * Each entry is {structureType, originChunkX, originChunkZ}.
+     * Thread-safe.
+     */
+    public void savePendingStructures(String world, List<Object[]> structures) {
+        if (structures == null || structures.isEmpty()) return;
+        
+        synchronized (dbLock) {
+            try {
+                boolean wasAutoCommit = connection.getAutoCommit();
+                if (wasAutoCommit) {
+                    connection.setAutoCommit(false);
+                }
+                
+                try (PreparedStatement stmt = connection.prepareStatement(
+                    "INSERT OR IGNORE INTO pending_structures (world, structure_type, chunk_x, chunk_z) VALUES (?, ?, ?, ?)"
+                )) {
+                    for (Object[] structure : structures) {
+                        stmt.setString(1, world);
+                        stmt.setString(2, (String) structure[0]);
+                        stmt.setInt(3, (Integer) structure[1]);
+                        stmt.setInt(4, (Integer) structure[2]);
+                        stmt.addBatch();
+                    }
+                    
+                    stmt.executeBatch();
+                    connection.commit();
+                } finally {
+                    if (wasAutoCommit) {
+                        connection.setAutoCommit(true);
+                    }
+                }
+                
+            } catch (SQLException e) {
+                plugin.getLogger().warning("Failed to save pending structures: " + e.getMessage());
+                try {
+                    if (!connection.getAutoCommit()) {
+                        connection.rollback();
+                        connection.setAutoCommit(true);
+                    }
+                } catch (SQLException e2) {
+                    // Ignore rollback errors
+                }
+            }
+        }
+    }
+    
+    /**
+     * Load the saved pending structures for a world.
+     * Rows stay until removePendingStructures, so a crash before they are recorded keeps them.
+     * Each entry is {structureType, originChunkX, originChunkZ}.
+     * Thread-safe.
+     */
+    public List<Object[]> getPendingStructures(String world) {
+        List<Object[]> structures = new ArrayList<>();
+        synchronized (dbLock) {
+            try (PreparedStatement select = connection.prepareStatement(
+                     "SELECT structure_type, chunk_x, chunk_z FROM pending_structures WHERE world = ?")) {
+                select.setString(1, world);
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        structures.add(new Object[]{rs.getString("structure_type"), rs.getInt("chunk_x"), 
+                            rs.getInt("chunk_z")});
+                    }
+                }
+            } catch (SQLException e) {
+                plugin.getLogger().warning("Failed to load pending structures: " + e.getMessage());
+            }
+        }
+        return structures;
+    }
+    
+    /**
+     * Remove saved pending structures that have been recorded.
+     * Each entry is {structureType, originChunkX, originChunkZ}.
+     * Thread-safe.
+     */
+    public void removePendingStructures(String world, List<Object[]> structures) {
+        if (structures == null || structures.isEmpty()) return;
+        
+        synchronized (dbLock) {
+            try {
+                boolean wasAutoCommit = connection.getAutoCommit();
+                if (wasAutoCommit) {
+                    connection.setAutoCommit(false);
+                }
+                
+                try (PreparedStatement stmt = connection.prepareStatement(
+                    "DELETE FROM pending_structures WHERE world = ? AND structure_type = ? AND chunk_x = ? AND chunk_z = ?"
+                )) {
+                    for (Object[] structure : structures) {
+                        stmt.setString(1, world);
+                        stmt.setString(2, (String) structure[0]);
+                        stmt.setInt(3, (Integer) structure[1]);
+                        stmt.setInt(4, (Integer) structure[2]);
+                        stmt.addBatch();
+                    }
+                    
+                    stmt.executeBatch();
+                    connection.commit();
+                } finally {
+                    if (wasAutoCommit) {
+                        connection.setAutoCommit(true);
+                    }
+                }
+                
+            } catch (SQLException e) {
+                plugin.getLogger().warning("Failed to remove pending structures: " + e.getMessage());
+                try {
+                    if (!connection.getAutoCommit()) {
+                        connection.rollback();
+                        connection.setAutoCommit(true);
+                    }
+                } catch (SQLException e2) {
+                    // Ignore rollback errors
+                }
+            }
+        }
+    }
+    
+    // ==================== OFF-PEAK BACKLOG ====================
+    
+    /**
+     * Add existing chunks to the off-peak backlog, given packed chunk keys
+     * (chunkX | (chunkZ << 32)). Chunks already in the backlog are ignored.
+     * Thread-safe.
+     */
+    public void deferChunks(String world, long[] chunks) {
+        if (chunks == null || chunks.length == 0) return;
+        
+        synchronized (dbLock) {
+            try {
+                boolean wasAutoCommit = connection.getAutoCommit();
+                if (wasAutoCommit) {
+                    connection.setAutoCommit(false);
+                }
+                
+                try (PreparedStatement stmt = connection.prepareStatement(
+                    "INSERT OR IGNORE INTO deferred_chunks (world, chunk_x, chunk_z) VALUES (?, ?, ?)"
+                )) {
+                    for (long key : chunks) {
+                        stmt.setString(1, world);
+                        stmt.setInt(2, (int) key);
+                        stmt.setInt(3, (int) (key >>> 32));
+                        stmt.addBatch();
+                    }
+                    
+                    stmt.executeBatch();
+                    connection.commit();
+                } finally {
+                    if (wasAutoCommit) {
+                        connection.setAutoCommit(true);
+                    }
+                }
+                
+            } catch (SQLException e) {
+                plugin.getConfigManager().debug("Failed to defer chunks: " + e.getMessage());
+                try {
+                    if (!connection.getAutoCommit()) {
+                        connection.rollback();
+                        connection.setAutoCommit(true);
+                    }
+                } catch (SQLException e2) {
+                    // Ignore rollback errors
+                }
+            }
+        }
+    }
+    
+    /**
+     * Load and remove up to limit of the oldest backlog chunks for a world.
+     * Each entry is {chunkX, chunkZ}.
+     * Thread-safe.
+     */
+    public List<int[]> takeDeferredChunks(String world, int limit) {
+        List<int[]> chunks = new ArrayList<>();
+        synchronized (dbLock) {
+            try (PreparedStatement select = connection.prepareStatement(
+                     "SELECT rowid, chunk_x, chunk_z FROM deferred_chunks WHERE world = ? ORDER BY rowid LIMIT ?");
+                 PreparedStatement delete = connection.prepareStatement(
+                     "DELETE FROM deferred_chunks WHERE world = ? AND rowid <= ?")) {
+                select.setString(1, world);
+                select.setInt(2, limit);
+                long lastRowId = -1;
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        lastRowId = rs.getLong(1);
+                        chunks.add(new int[]{rs.getInt("chunk_x"), rs.getInt("chunk_z")});
+                    }
+                }
+                if (lastRowId >= 0) {
+                    // Rows come out in rowid order, so this removes exactly the ones returned
+                    delete.setString(1, world);
+                    delete.setLong(2, lastRowId);
+                    delete.executeUpdate();
+                }
+            } catch (SQLException e) {
+                plugin.getLogger().warning("Failed to load deferred chunks: " + e.getMessage());
+            }
+        }
+        return chunks;
+    }
+    
+    /**
+     * Get the number of chunks waiting in the off-peak backlog, across all worlds.
+     */
+    public int getDeferredChunkCount() {
+        synchronized (dbLock) {
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM deferred_chunks")) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            } catch (SQLException e) {
+                // Ignore
             }
-        } catch (SQLException e) {
-            // Ignore
         }
         return 0;
     }
@@ -298,19 +868,24 @@ public class StructureDatabase {
      * Mark a structure as having a WorldGuard region.
      */
     public void setRegionId(String world, String structureType, int x, int z, String regionId) {
-        try {
-            PreparedStatement stmt = connection.prepareStatement(
-                "UPDATE structures SET has_region = 1, region_id = ? " +
-                "WHERE world = ? AND structure_type = ? AND x = ? AND z = ?"
-            );
-            stmt.setString(1, regionId);
-            stmt.setString(2, world);
-            stmt.setString(3, structureType);
-            stmt.setInt(4, x);
-            stmt.setInt(5, z);
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-            plugin.getLogger().warning("Failed to update region: " + e.getMessage());
+        // Locked so a filter rebuild can't miss a structure protected while it runs
+        synchronized (dbLock) {
+            try {
+                PreparedStatement stmt = connection.prepareStatement(
+                    "UPDATE structures SET has_region = 1, region_id = ? " +
+                    "WHERE world = ? AND structure_type = ? AND x = ? AND z = ?"
+                );
+                stmt.setString(1, regionId);
+                stmt.setString(2, world);
+                stmt.setString(3, structureType);
+                stmt.setInt(4, x);
+                stmt.setInt(5, z);
+                if (stmt.executeUpdate() > 0) {
+                    protectedFilter.add(world, structureType, x, z);
+                }
+            } catch (SQLException e) {
+                plugin.getLogger().warning("Failed to update region: " + e.getMessage());
+            }
         }
     }
     
@@ -571,10 +1146,65 @@ public class StructureDatabase {
         }
     }
     
+    /**
+     * Get the origin convention stored for a world by setWorldOrigins.
+     * @return null if none was stored yet
+     */
+    public String getWorldOrigins(String world) {
+        synchronized (dbLock) {
+            try (PreparedStatement stmt = connection.prepareStatement(
+                     "SELECT origins FROM world_origins WHERE world = ?")) {
+                stmt.setString(1, world);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next() ? rs.getString(1) : null;
+                }
+            } catch (SQLException e) {
+                plugin.getLogger().warning("Failed to read origins for " + world + ": " + e.getMessage());
+                return null;
+            }
+        }
+    }
+    
+    /**
+     * Remember which origin convention a world's structures are recorded with.
+     */
+    public void setWorldOrigins(String world, String origins) {
+        synchronized (dbLock) {
+            try (PreparedStatement stmt = connection.prepareStatement(
+                     "INSERT OR REPLACE INTO world_origins (world, origins) VALUES (?, ?)")) {
+                stmt.setString(1, world);
+                stmt.setString(2, origins);
+                stmt.executeUpdate();
+            } catch (SQLException e) {
+                plugin.getLogger().warning("Failed to store origins for " + world + ": " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Check if any structure has been recorded in a world.
+     */
+    public boolean hasStructures(String world) {
+        try {
+            PreparedStatement stmt = connection.prepareStatement(
+                "SELECT 1 FROM structures WHERE world = ? LIMIT 1"
+            );
+            stmt.setString(1, world);
+            ResultSet rs = stmt.executeQuery();
+            return rs.next();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+    
     /**
      * Check if a structure at specific coordinates is protected.
      */
     public boolean isStructureProtected(String world, String structureType, int x, int z) {
+        // Definitely not protected - no query needed
+        if (!protectedFilter.mightContain(world, structureType, x, z)) {
+            return false;
+        }
         try {
             PreparedStatement stmt = connection.prepareStatement(
                 "SELECT has_region FROM structures WHERE world = ? AND structure_type = ? AND x = ? AND z = ?"
@@ -593,6 +1223,60 @@ public class StructureDatabase {
         return false;
     }
     
+    /**
+     * Check protection status for many structures at once.
+     * Only structures the protected filter can't rule out are looked up, reusing one
+     * prepared statement under a single lock acquisition.
+     * Thread-safe.
+     * @param structures list of [structureType, x, z]
+     * @return protected flag for each entry, in the same order
+     */
+    public boolean[] areStructuresProtected(String world, List<Object[]> structures) {
+        boolean[] result = new boolean[structures.size()];
+        if (structures.isEmpty()) return result;
+        
+        if (protectedFilter.isOverfull(world)) {
+            rebuildProtectedFilter(world);
+        }
+        
+        // Most detected structures are new - the filter answers those without the database
+        boolean[] maybe = new boolean[structures.size()];
+        int lookups = 0;
+        for (int i = 0; i < structures.size(); i++) {
+            Object[] s = structures.get(i);
+            maybe[i] = protectedFilter.mightContain(world, (String) s[0], (Integer) s[1], (Integer) s[2]);
+            if (maybe[i]) {
+                lookups++;
+            }
+        }
+        if (lookups == 0) {
+            return result;
+        }
+        
+        synchronized (dbLock) {
+            try (PreparedStatement stmt = connection.prepareStatement(
+                "SELECT has_region FROM structures WHERE world = ? AND structure_type = ? AND x = ? AND z = ?"
+            )) {
+                stmt.setString(1, world);
+                for (int i = 0; i < structures.size(); i++) {
+                    if (!maybe[i]) {
+                        continue;
+                    }
+                    Object[] s = structures.get(i);
+                    stmt.setString(2, (String) s[0]); // structureType
+                    stmt.setInt(3, (Integer) s[1]);   // x
+                    stmt.setInt(4, (Integer) s[2]);   // z
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        result[i] = rs.next() && rs.getInt("has_region") == 1;
+                    }
+                }
+            } catch (SQLException e) {
+                plugin.getLogger().warning("Failed batch protection check: " + e.getMessage());
+            }
+        }
+        return result;
+    }
+    
     /**
      * Clear all structures from database.
      */
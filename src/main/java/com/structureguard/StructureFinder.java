@@ -1,14 +1,21 @@
 package com.structureguard;
 
+import org.bukkit.Chunk;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.Bukkit;
 import org.bukkit.command.CommandSender;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -30,7 +37,6 @@ public class StructureFinder {
     private Class<?> cachedLongIteratorClass;
     
     // Cached reflection objects for performance - initialized once, reused for all chunks
-    private boolean reflectionCacheInitialized = false;
     private Method getHandleMethod;
     private Method structureManagerMethod;
     private Method getAllStructuresAtMethod;
@@ -40,6 +46,8 @@ public class StructureFinder {
     private Constructor<?> blockPosConstructor;
     private Class<?> blockPosClass;
     private Object structureRegistryKey;
+    private java.lang.reflect.Field structureRegistryKeyField;  // Static field holding structureRegistryKey
+    private java.lang.reflect.Field structureRegistryField;     // Legacy: static field holding the registry itself
     
     // Fabric-specific: alternative path via StructureAccessor or Chunk
     private boolean useFabricPath = false;
@@ -51,12 +59,215 @@ public class StructureFinder {
     private Class<?> chunkPosClass;
     private Constructor<?> chunkPosConstructor;
     
-    // Per-world cache (serverLevel -> structureManager -> registry)
+    // Fallbacks for methods a handle can't be created for directly
+    private static final MethodHandle METHOD_INVOKE;
+    private static final MethodHandle CONSTRUCTOR_NEW_INSTANCE;
+    
+    static {
+        try {
+            // Method.invoke and Constructor.newInstance are caller-sensitive, which publicLookup() refuses
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            METHOD_INVOKE = lookup.findVirtual(Method.class, "invoke",
+                MethodType.methodType(Object.class, Object.class, Object[].class));
+            CONSTRUCTOR_NEW_INSTANCE = lookup.findVirtual(Constructor.class, "newInstance",
+                MethodType.methodType(Object.class, Object[].class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+    
+    // Discovery state for the world being initialized (serverLevel -> structureManager -> registry).
+    // Detection never reads these - it uses the world's DetectionContext
     private Object cachedServerLevel;
     private Object cachedStructureManager;
     private Object cachedStructureAccessor;   // Fabric path
     private Object cachedStructureRegistry;
-    private World cachedWorld;
+    
+    // One context per world, built the first time the world is used
+    private final Map<World, DetectionContext> contexts = new ConcurrentHashMap<>();
+    // Worlds already warned that their chunks' starts can't be read for detection
+    private final Set<World> noChunkPathWarned = ConcurrentHashMap.newKeySet();
+    
+    // Compiled adapters from the adapters/ modules, newest first: {oldest Minecraft version, class}.
+    // They are built against Paper's Mojang-mapped server, so Spigot stays on the reflective path.
+    // They ship as a jar inside the plugin jar, loaded by their own class loader: Paper never
+    // remaps it, while the plugin jar keeps Paper's remapping for the reflective lookups
+    private static final String NMS_ADAPTERS_JAR = "nms-adapters.jar";
+    private static final String[][] ADAPTERS = {
+        {"1.21.2", "com.structureguard.adapter.v1_21_R3.StructureAdapterImpl"},
+        {"1.20.5", "com.structureguard.adapter.v1_20_R4.StructureAdapterImpl"}
+    };
+    // Public Bukkit structure API (World#getStructures), built in the adapters/bukkit module
+    private static final String[] BUKKIT_API_ADAPTER = 
+        {"1.20.4", "com.structureguard.adapter.bukkit.BukkitStructureAdapter"};
+    private StructureAdapter compiledAdapter;
+    private StructureAdapter bukkitApiAdapter;
+    private boolean adaptersLoaded = false;
+    
+    // Worlds detected without reflection, and the adapter each one uses. Every other
+    // world (and any of these whose adapter fails) uses its DetectionContext
+    private final Map<World, StructureAdapter> providers = new ConcurrentHashMap<>();
+    
+    // Members found by the last full discovery, shared by later worlds and saved for the next start
+    private ReflectionProfile profile;
+    private boolean profileLoaded = false;
+    
+    // Structure object -> interned name. Structures are registry singletons, so identity is
+    // the right key. Copy-on-write: lookups are lock-free, and new entries are rare once warm
+    private volatile Map<Object, String> structureNames = new IdentityHashMap<>();
+    
+    // Structure object <-> small int id for start snapshots. Ids are assigned on the main
+    // thread at capture; workers read the copy-on-write array to turn them back into structures
+    private final Map<Object, Integer> structureIds = new IdentityHashMap<>();
+    private volatile Object[] structuresById = new Object[0];
+    private static final int[] NO_STARTS = new int[0];
+    
+    // Origin chunk accessors for the chunk-based path, looked up once per concrete class:
+    // StructureStart class -> {getChunkPos}, ChunkPos class -> {x, z}. Empty if not found
+    private static final MethodHandle[] NO_ACCESSORS = new MethodHandle[0];
+    private static final long NO_ORIGIN = Long.MIN_VALUE;
+    private final ClassValue<MethodHandle[]> structureStartAccessors = new ClassValue<MethodHandle[]>() {
+        @Override
+        protected MethodHandle[] computeValue(Class<?> type) {
+            MethodHandle chunkPos = toHandle(findMethodByNames(type, "getChunkPos", "method_14963", "getPos"),
+                MethodType.methodType(Object.class, Object.class));
+            return chunkPos != null ? new MethodHandle[]{chunkPos} : NO_ACCESSORS;
+        }
+    };
+    // Chunk class -> {getAllReferences}, for the emptiness check. Empty if not found
+    private final ClassValue<MethodHandle[]> chunkReferenceAccessors = new ClassValue<MethodHandle[]>() {
+        @Override
+        protected MethodHandle[] computeValue(Class<?> type) {
+            Method references = findMethodByNames(type, "getAllReferences", "getStructureReferences", "method_12179");
+            if (references == null || !Map.class.isAssignableFrom(references.getReturnType())) {
+                return NO_ACCESSORS;
+            }
+            MethodHandle handle = toHandle(references, MethodType.methodType(Object.class, Object.class));
+            return handle != null ? new MethodHandle[]{handle} : NO_ACCESSORS;
+        }
+    };
+    private final ClassValue<MethodHandle[]> chunkPosAccessors = new ClassValue<MethodHandle[]>() {
+        @Override
+        protected MethodHandle[] computeValue(Class<?> type) {
+            MethodType intGetter = MethodType.methodType(int.class, Object.class);
+            MethodHandle x = toHandle(findMethodByNames(type, "x", "method_8324", "getX"), intGetter);
+            MethodHandle z = toHandle(findMethodByNames(type, "z", "method_8326", "getZ"), intGetter);
+            if (x == null || z == null) {
+                // Older versions expose public x/z fields instead
+                try {
+                    x = MethodHandles.lookup().unreflectGetter(type.getField("x")).asType(intGetter);
+                    z = MethodHandles.lookup().unreflectGetter(type.getField("z")).asType(intGetter);
+                } catch (ReflectiveOperationException | RuntimeException e) {
+                    return NO_ACCESSORS;
+                }
+            }
+            return new MethodHandle[]{x, z};
+        }
+    };
+    
+    // Resource location inside a structure's toString(), e.g. "minecraft:village_plains"
+    private static final java.util.regex.Pattern RESOURCE_LOCATION_PATTERN = 
+        java.util.regex.Pattern.compile("([a-z0-9_.-]+:[a-z0-9_/.-]+)");
+    
+    /**
+     * Everything detection needs for one world, resolved once by initReflectionCache.
+     * Immutable, so detection workers in different worlds never see each other's state.
+     * The per-chunk methods are MethodHandles called with invokeExact - no argument
+     * arrays or boxing, and the JIT can inline them.
+     */
+    private static final class DetectionContext {
+        final DetectionPath path;
+        final Object serverLevel;
+        final Object structureManager;
+        final Object structureRegistry;
+        final boolean useFabricPath;
+        final MethodHandle blockPosFactory;           // (int, int, int) -> BlockPos
+        final MethodHandle getAllStructuresAt;        // (StructureManager, BlockPos) -> Map
+        final MethodHandle iterator;                  // (LongOpenHashSet) -> LongIterator
+        final MethodHandle hasNext;                   // (LongIterator) -> boolean
+        final MethodHandle nextLong;                  // (LongIterator) -> long
+        final MethodHandle getChunk;                  // (ServerLevel, int, int) -> Chunk
+        final MethodHandle structureStarts;           // (Chunk) -> Map
+        final MethodHandle getKey;                    // (Registry, Structure) -> ResourceLocation
+        
+        /**
+         * Snapshot what the finder just discovered.
+         */
+        DetectionContext(StructureFinder finder, DetectionPath path) {
+            this.path = path;
+            this.serverLevel = finder.cachedServerLevel;
+            this.structureManager = finder.cachedStructureManager;
+            this.structureRegistry = finder.cachedStructureRegistry;
+            this.useFabricPath = finder.useFabricPath;
+            this.blockPosFactory = finder.toHandle(finder.blockPosConstructor, 
+                MethodType.methodType(Object.class, int.class, int.class, int.class));
+            this.getAllStructuresAt = finder.toHandle(finder.getAllStructuresAtMethod, 
+                MethodType.methodType(Object.class, Object.class, Object.class));
+            this.iterator = finder.toHandle(finder.cachedIteratorMethod, 
+                MethodType.methodType(Object.class, Object.class));
+            this.hasNext = finder.toHandle(finder.cachedHasNextMethod, 
+                MethodType.methodType(boolean.class, Object.class));
+            this.nextLong = finder.toHandle(finder.cachedNextLongMethod, 
+                MethodType.methodType(long.class, Object.class));
+            this.getChunk = finder.toHandle(finder.getChunkMethod, 
+                MethodType.methodType(Object.class, Object.class, int.class, int.class));
+            this.structureStarts = finder.toHandle(finder.chunkGetStructureStartsMethod, 
+                MethodType.methodType(Object.class, Object.class));
+            this.getKey = finder.toHandle(finder.getKeyMethod, 
+                MethodType.methodType(Object.class, Object.class, Object.class));
+        }
+        
+        /**
+         * Same world and handles, another path.
+         */
+        DetectionContext(DetectionContext base, DetectionPath path) {
+            this.path = path;
+            this.serverLevel = base.serverLevel;
+            this.structureManager = base.structureManager;
+            this.structureRegistry = base.structureRegistry;
+            this.useFabricPath = base.useFabricPath;
+            this.blockPosFactory = base.blockPosFactory;
+            this.getAllStructuresAt = base.getAllStructuresAt;
+            this.iterator = base.iterator;
+            this.hasNext = base.hasNext;
+            this.nextLong = base.nextLong;
+            this.getChunk = base.getChunk;
+            this.structureStarts = base.structureStarts;
+            this.getKey = base.getKey;
+        }
+        
+        boolean hasMojangPath() {
+            return getAllStructuresAt != null && structureManager != null;
+        }
+        
+        boolean hasChunkPath() {
+            return getChunk != null && structureStarts != null;
+        }
+    }
+    
+    /**
+     * Which query a world's detection uses, picked by calibrate().
+     * There is no StructureManager-only path: that query misses structures some mods
+     * only record as chunk starts, so it always keeps the chunk fallback.
+     */
+    private enum DetectionPath {
+        CHUNK,   // Chunk structure starts only
+        BOTH     // Primary path plus fallback - until calibration shows the chunk path is complete
+    }
+    
+    /**
+     * Chunks compared by calibrate(), sampled on the main thread while they are captured.
+     * Only touched under its own lock.
+     */
+    private static final class CalibrationSample {
+        final List<int[]> chunks = new ArrayList<>();
+        final List<int[]> snapshots = new ArrayList<>();
+        final List<List<StructureResult>> mojangResults = new ArrayList<>();
+        boolean done;
+    }
+    
+    private final Map<World, CalibrationSample> calibrations = new ConcurrentHashMap<>();
+    private static final int CALIBRATION_CHUNKS = 128;
     
     public StructureFinder(StructureGuardPlugin plugin) {
         this.plugin = plugin;
@@ -69,9 +280,11 @@ public class StructureFinder {
      * There are two paths:
      * 1. Mojang path: StructureManager.getAllStructuresAt(BlockPos)
      * 2. Fabric path: Chunk.getStructureStarts() via StructureAccessor
+     * 
+     * On success the world gets its DetectionContext; each world is only initialized once.
      */
-    private boolean initReflectionCache(World world) {
-        if (reflectionCacheInitialized && cachedWorld == world) {
+    private synchronized boolean initReflectionCache(World world) {
+        if (contexts.containsKey(world)) {
             return true;
         }
         
@@ -85,808 +298,1296 @@ public class StructureFinder {
             String serverClassName = cachedServerLevel.getClass().getName();
             plugin.getConfigManager().debug("ServerLevel class: " + serverClassName);
             
-            // Cache BlockPos class and constructor - try multiple class names
-            // Paper uses Mojang mappings: BlockPos
-            // Spigot uses Spigot mappings: BlockPosition
-            // Fabric uses intermediary: class_2338
-            blockPosClass = findClass(
-                "net.minecraft.core.BlockPos",           // Paper/Mojang
-                "net.minecraft.core.BlockPosition",      // Spigot
-                "net.minecraft.class_2338",              // Fabric intermediary
-                "net.minecraft.util.math.BlockPos"       // Yarn
-            );
-            if (blockPosClass == null) {
-                throw new ClassNotFoundException("Could not find BlockPos class");
+            if (!applyProfile(world)) {
+                runFullDiscovery();
+                saveProfile(world);
             }
-            plugin.getConfigManager().debug("Found BlockPos class: " + blockPosClass.getName());
-            blockPosConstructor = blockPosClass.getConstructor(int.class, int.class, int.class);
-            
-            // Try Mojang path FIRST (Paper/NeoForge/Spigot - the original working path)
-            boolean mojangPathWorks = false;
-            plugin.getConfigManager().debug("Trying Mojang path first (Paper/NeoForge/Spigot)...");
             
+            // Pre-cache iterator methods for LongOpenHashSet
             try {
-                // Spigot uses different method names than Paper - try both
-                structureManagerMethod = findMethodByNames(cachedServerLevel.getClass(), 
-                    "structureManager",      // Paper (Mojang mapped)
-                    "getStructureManager",   // Alternative
-                    "method_14178",          // Fabric intermediary
-                    "m_7004_",               // Forge SRG
-                    "K", "L", "M", "N",      // Common Spigot obfuscated names
-                    "a", "b", "c", "d");     // More Spigot names
+                Class<?> longOpenHashSetClass = Class.forName("it.unimi.dsi.fastutil.longs.LongOpenHashSet");
+                cachedIteratorMethod = longOpenHashSetClass.getMethod("iterator");
+                cachedLongIteratorClass = Class.forName("it.unimi.dsi.fastutil.longs.LongIterator");
+                cachedHasNextMethod = cachedLongIteratorClass.getMethod("hasNext");
+                cachedNextLongMethod = cachedLongIteratorClass.getMethod("nextLong");
+                plugin.getConfigManager().debug("Iterator methods cached successfully");
+            } catch (Exception e) {
+                plugin.getConfigManager().debug("Could not cache iterator methods: " + e.getMessage());
+            }
+            
+            // Starts on both paths; calibrate() may drop the StructureManager query later
+            DetectionContext context = new DetectionContext(this, DetectionPath.BOTH);
+            prewarmStructureNames(context);
+            contexts.put(world, context);
+            
+            plugin.getConfigManager().debug("Reflection cache initialized successfully for " + world.getName());
+            return true;
+            
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to initialize reflection cache: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Search the server classes for everything detection needs, trying every known
+     * mapping (Mojang, Spigot, Fabric intermediary, Forge SRG) and falling back to
+     * signature scans. Slow on servers with large class surfaces - see applyProfile.
+     */
+    private void runFullDiscovery() throws Exception {
+        // Cache BlockPos class and constructor - try multiple class names
+        // Paper uses Mojang mappings: BlockPos
+        // Spigot uses Spigot mappings: BlockPosition
+        // Fabric uses intermediary: class_2338
+        blockPosClass = findClass(
+            "net.minecraft.core.BlockPos",           // Paper/Mojang
+            "net.minecraft.core.BlockPosition",      // Spigot
+            "net.minecraft.class_2338",              // Fabric intermediary
+            "net.minecraft.util.math.BlockPos"       // Yarn
+        );
+        if (blockPosClass == null) {
+            throw new ClassNotFoundException("Could not find BlockPos class");
+        }
+        plugin.getConfigManager().debug("Found BlockPos class: " + blockPosClass.getName());
+        blockPosConstructor = blockPosClass.getConstructor(int.class, int.class, int.class);
+        
+        // Try Mojang path FIRST (Paper/NeoForge/Spigot - the original working path)
+        boolean mojangPathWorks = false;
+        plugin.getConfigManager().debug("Trying Mojang path first (Paper/NeoForge/Spigot)...");
+        
+        try {
+            // Spigot uses different method names than Paper - try both
+            structureManagerMethod = findMethodByNames(cachedServerLevel.getClass(), 
+                "structureManager",      // Paper (Mojang mapped)
+                "getStructureManager",   // Alternative
+                "method_14178",          // Fabric intermediary
+                "m_7004_",               // Forge SRG
+                "K", "L", "M", "N",      // Common Spigot obfuscated names
+                "a", "b", "c", "d");     // More Spigot names
+            
+            // If not found by name, search by return type
+            if (structureManagerMethod == null) {
+                structureManagerMethod = findMethodByReturnType(cachedServerLevel.getClass(), 
+                    "StructureManager", "class_5962", "StructureTemplateManager");
+            }
+            
+            // Last resort: find any no-arg method returning something structure-related
+            if (structureManagerMethod == null) {
+                for (Method m : cachedServerLevel.getClass().getMethods()) {
+                    if (m.getParameterCount() == 0) {
+                        String retName = m.getReturnType().getSimpleName();
+                        if (retName.contains("Structure") && retName.contains("Manager")) {
+                            structureManagerMethod = m;
+                            plugin.getConfigManager().debug("Found structureManager via signature search: " + m.getName());
+                            break;
+                        }
+                    }
+                }
+            }
+            
+            if (structureManagerMethod != null) {
+                cachedStructureManager = structureManagerMethod.invoke(cachedServerLevel);
+                plugin.getConfigManager().debug("Got StructureManager: " + cachedStructureManager.getClass().getName());
                 
-                // If not found by name, search by return type
-                if (structureManagerMethod == null) {
-                    structureManagerMethod = findMethodByReturnType(cachedServerLevel.getClass(), 
-                        "StructureManager", "class_5962", "StructureTemplateManager");
+                // Try to find getAllStructuresAt - check multiple name variants
+                getAllStructuresAtMethod = findMethod(cachedStructureManager.getClass(),
+                    new String[]{"getAllStructuresAt", "method_38853", "m_220437_", 
+                                 "a", "b", "c", "d", "e", "f", "g"},  // Spigot obfuscated names
+                    blockPosClass);
+                
+                // If not found, search by signature: takes BlockPos, returns Map
+                if (getAllStructuresAtMethod == null) {
+                    getAllStructuresAtMethod = findMethodByReturnTypeAndParam(cachedStructureManager.getClass(), 
+                        "Map", blockPosClass);
                 }
                 
-                // Last resort: find any no-arg method returning something structure-related
-                if (structureManagerMethod == null) {
-                    for (Method m : cachedServerLevel.getClass().getMethods()) {
-                        if (m.getParameterCount() == 0) {
-                            String retName = m.getReturnType().getSimpleName();
-                            if (retName.contains("Structure") && retName.contains("Manager")) {
-                                structureManagerMethod = m;
-                                plugin.getConfigManager().debug("Found structureManager via signature search: " + m.getName());
+                // Last resort: find any method taking our blockPosClass and returning a Map
+                if (getAllStructuresAtMethod == null) {
+                    for (Method m : cachedStructureManager.getClass().getMethods()) {
+                        if (m.getParameterCount() == 1 && 
+                            Map.class.isAssignableFrom(m.getReturnType())) {
+                            Class<?> paramType = m.getParameterTypes()[0];
+                            // Check if param is BlockPos-like (has int coords)
+                            if (paramType.equals(blockPosClass) || 
+                                paramType.getSimpleName().contains("BlockPos") ||
+                                paramType.getSimpleName().contains("BlockPosition")) {
+                                getAllStructuresAtMethod = m;
+                                plugin.getConfigManager().debug("Found getAllStructuresAt via signature: " + m.getName());
                                 break;
                             }
                         }
                     }
                 }
                 
-                if (structureManagerMethod != null) {
-                    cachedStructureManager = structureManagerMethod.invoke(cachedServerLevel);
-                    plugin.getConfigManager().debug("Got StructureManager: " + cachedStructureManager.getClass().getName());
-                    
-                    // Try to find getAllStructuresAt - check multiple name variants
-                    getAllStructuresAtMethod = findMethod(cachedStructureManager.getClass(),
-                        new String[]{"getAllStructuresAt", "method_38853", "m_220437_", 
-                                     "a", "b", "c", "d", "e", "f", "g"},  // Spigot obfuscated names
-                        blockPosClass);
-                    
-                    // If not found, search by signature: takes BlockPos, returns Map
-                    if (getAllStructuresAtMethod == null) {
-                        getAllStructuresAtMethod = findMethodByReturnTypeAndParam(cachedStructureManager.getClass(), 
-                            "Map", blockPosClass);
-                    }
-                    
-                    // Last resort: find any method taking our blockPosClass and returning a Map
-                    if (getAllStructuresAtMethod == null) {
-                        for (Method m : cachedStructureManager.getClass().getMethods()) {
-                            if (m.getParameterCount() == 1 && 
-                                Map.class.isAssignableFrom(m.getReturnType())) {
-                                Class<?> paramType = m.getParameterTypes()[0];
-                                // Check if param is BlockPos-like (has int coords)
-                                if (paramType.equals(blockPosClass) || 
-                                    paramType.getSimpleName().contains("BlockPos") ||
-                                    paramType.getSimpleName().contains("BlockPosition")) {
-                                    getAllStructuresAtMethod = m;
-                                    plugin.getConfigManager().debug("Found getAllStructuresAt via signature: " + m.getName());
-                                    break;
-                                }
-                            }
-                        }
-                    }
-                    
-                    if (getAllStructuresAtMethod != null) {
-                        // Test that it actually works by calling it
-                        try {
-                            Object testPos = blockPosConstructor.newInstance(0, 64, 0);
-                            Object testResult = getAllStructuresAtMethod.invoke(cachedStructureManager, testPos);
-                            if (testResult != null && testResult instanceof Map) {
-                                mojangPathWorks = true;
-                                useFabricPath = false;
-                                plugin.getConfigManager().debug("Using Mojang path: StructureManager.getAllStructuresAt() - verified working");
-                            } else {
-                                plugin.getConfigManager().debug("Mojang path: getAllStructuresAt returned null or non-Map");
-                            }
-                        } catch (Exception e) {
-                            plugin.getConfigManager().debug("Mojang path test invocation failed: " + e.getMessage());
+                if (getAllStructuresAtMethod != null) {
+                    // Test that it actually works by calling it
+                    try {
+                        Object testPos = blockPosConstructor.newInstance(0, 64, 0);
+                        Object testResult = getAllStructuresAtMethod.invoke(cachedStructureManager, testPos);
+                        if (testResult != null && testResult instanceof Map) {
+                            mojangPathWorks = true;
+                            useFabricPath = false;
+                            plugin.getConfigManager().debug("Using Mojang path: StructureManager.getAllStructuresAt() - verified working");
+                        } else {
+                            plugin.getConfigManager().debug("Mojang path: getAllStructuresAt returned null or non-Map");
                         }
-                    } else {
-                        plugin.getConfigManager().debug("Could not find getAllStructuresAt method on StructureManager");
+                    } catch (Exception e) {
+                        plugin.getConfigManager().debug("Mojang path test invocation failed: " + e.getMessage());
                     }
+                } else {
+                    plugin.getConfigManager().debug("Could not find getAllStructuresAt method on StructureManager");
                 }
-            } catch (Exception e) {
-                plugin.getConfigManager().debug("Mojang path failed: " + e.getMessage());
             }
-            
-            // If Mojang path didn't work, try Spigot's StructureFeatureManager path
-            if (!mojangPathWorks) {
-                plugin.getConfigManager().debug("Trying Spigot StructureFeatureManager path...");
-                try {
-                    // On Spigot, look for methods that return something with "Structure" in the name
-                    for (Method m : cachedServerLevel.getClass().getMethods()) {
-                        if (m.getParameterCount() == 0) {
-                            String retName = m.getReturnType().getName();
-                            // Check for any structure-related manager
-                            if ((retName.contains("Structure") || retName.contains("structure")) &&
-                                !retName.contains("Template")) {  // Skip StructureTemplateManager
-                                try {
-                                    Object potentialManager = m.invoke(cachedServerLevel);
-                                    if (potentialManager != null) {
-                                        // Look for a method that takes BlockPos and returns Map
-                                        for (Method sm : potentialManager.getClass().getMethods()) {
-                                            if (sm.getParameterCount() == 1 && 
-                                                Map.class.isAssignableFrom(sm.getReturnType())) {
-                                                Class<?> paramType = sm.getParameterTypes()[0];
-                                                if (paramType.equals(blockPosClass) ||
-                                                    paramType.getSimpleName().contains("Pos")) {
-                                                    // Test it
-                                                    Object testPos = blockPosConstructor.newInstance(0, 64, 0);
-                                                    Object testResult = sm.invoke(potentialManager, testPos);
-                                                    if (testResult instanceof Map) {
-                                                        structureManagerMethod = m;
-                                                        cachedStructureManager = potentialManager;
-                                                        getAllStructuresAtMethod = sm;
-                                                        mojangPathWorks = true;
-                                                        useFabricPath = false;
-                                                        plugin.getConfigManager().debug("Found Spigot path: " + 
-                                                            m.getName() + "() -> " + sm.getName() + "()");
-                                                        break;
-                                                    }
+        } catch (Exception e) {
+            plugin.getConfigManager().debug("Mojang path failed: " + e.getMessage());
+        }
+        
+        // If Mojang path didn't work, try Spigot's StructureFeatureManager path
+        if (!mojangPathWorks) {
+            plugin.getConfigManager().debug("Trying Spigot StructureFeatureManager path...");
+            try {
+                // On Spigot, look for methods that return something with "Structure" in the name
+                for (Method m : cachedServerLevel.getClass().getMethods()) {
+                    if (m.getParameterCount() == 0) {
+                        String retName = m.getReturnType().getName();
+                        // Check for any structure-related manager
+                        if ((retName.contains("Structure") || retName.contains("structure")) &&
+                            !retName.contains("Template")) {  // Skip StructureTemplateManager
+                            try {
+                                Object potentialManager = m.invoke(cachedServerLevel);
+                                if (potentialManager != null) {
+                                    // Look for a method that takes BlockPos and returns Map
+                                    for (Method sm : potentialManager.getClass().getMethods()) {
+                                        if (sm.getParameterCount() == 1 && 
+                                            Map.class.isAssignableFrom(sm.getReturnType())) {
+                                            Class<?> paramType = sm.getParameterTypes()[0];
+                                            if (paramType.equals(blockPosClass) ||
+                                                paramType.getSimpleName().contains("Pos")) {
+                                                // Test it
+                                                Object testPos = blockPosConstructor.newInstance(0, 64, 0);
+                                                Object testResult = sm.invoke(potentialManager, testPos);
+                                                if (testResult instanceof Map) {
+                                                    structureManagerMethod = m;
+                                                    cachedStructureManager = potentialManager;
+                                                    getAllStructuresAtMethod = sm;
+                                                    mojangPathWorks = true;
+                                                    useFabricPath = false;
+                                                    plugin.getConfigManager().debug("Found Spigot path: " + 
+                                                        m.getName() + "() -> " + sm.getName() + "()");
+                                                    break;
                                                 }
                                             }
                                         }
-                                        if (mojangPathWorks) break;
                                     }
-                                } catch (Exception e2) {
-                                    // Continue searching
+                                    if (mojangPathWorks) break;
                                 }
+                            } catch (Exception e2) {
+                                // Continue searching
                             }
                         }
                     }
-                } catch (Exception e) {
-                    plugin.getConfigManager().debug("Spigot StructureFeatureManager path failed: " + e.getMessage());
                 }
+            } catch (Exception e) {
+                plugin.getConfigManager().debug("Spigot StructureFeatureManager path failed: " + e.getMessage());
             }
-            
-            // Try Chunk-based path as well (for fallback when Mojang returns nothing)
-            // This is critical because some mods store structures only via StructureStart in chunks
-            boolean chunkPathWorks = false;
-            plugin.getConfigManager().debug("Trying Chunk-based path (for fallback)...");
-            
-            // Get method to retrieve chunks - try multiple variants
-            getChunkMethod = null;
-            String[] chunkMethodNames = {"getChunk", "getChunkAt", "method_8497", "a"};
-            for (String methodName : chunkMethodNames) {
-                try {
-                    // Try getChunk(int, int) first
-                    Method m = cachedServerLevel.getClass().getMethod(methodName, int.class, int.class);
-                    // Verify it returns a Chunk-like object
-                    String retName = m.getReturnType().getName();
-                    if (retName.contains("Chunk") || retName.contains("class_2791") || 
-                        retName.contains("LevelChunk") || retName.contains("IChunkAccess")) {
-                        getChunkMethod = m;
-                        plugin.getConfigManager().debug("Found getChunk via exact match: " + methodName);
-                        break;
-                    }
-                } catch (NoSuchMethodException e) {
-                    // Try next
+        }
+        
+        // Try Chunk-based path as well (for fallback when Mojang returns nothing)
+        // This is critical because some mods store structures only via StructureStart in chunks
+        boolean chunkPathWorks = false;
+        plugin.getConfigManager().debug("Trying Chunk-based path (for fallback)...");
+        
+        // Get method to retrieve chunks - try multiple variants
+        getChunkMethod = null;
+        String[] chunkMethodNames = {"getChunk", "getChunkAt", "method_8497", "a"};
+        for (String methodName : chunkMethodNames) {
+            try {
+                // Try getChunk(int, int) first
+                Method m = cachedServerLevel.getClass().getMethod(methodName, int.class, int.class);
+                // Verify it returns a Chunk-like object
+                String retName = m.getReturnType().getName();
+                if (retName.contains("Chunk") || retName.contains("class_2791") || 
+                    retName.contains("LevelChunk") || retName.contains("IChunkAccess")) {
+                    getChunkMethod = m;
+                    plugin.getConfigManager().debug("Found getChunk via exact match: " + methodName);
+                    break;
                 }
+            } catch (NoSuchMethodException e) {
+                // Try next
             }
-            
-            // If still not found, search all methods
-            if (getChunkMethod == null) {
-                for (Method m : cachedServerLevel.getClass().getMethods()) {
-                    if (m.getParameterCount() == 2) {
-                        Class<?>[] params = m.getParameterTypes();
-                        if (params[0] == int.class && params[1] == int.class) {
-                            String retName = m.getReturnType().getName();
-                            if (retName.contains("Chunk") || retName.contains("class_2791") ||
-                                retName.contains("LevelChunk")) {
-                                getChunkMethod = m;
-                                plugin.getConfigManager().debug("Found getChunk via search: " + m.getName() + 
-                                    " -> " + retName);
-                                break;
-                            }
+        }
+        
+        // If still not found, search all methods
+        if (getChunkMethod == null) {
+            for (Method m : cachedServerLevel.getClass().getMethods()) {
+                if (m.getParameterCount() == 2) {
+                    Class<?>[] params = m.getParameterTypes();
+                    if (params[0] == int.class && params[1] == int.class) {
+                        String retName = m.getReturnType().getName();
+                        if (retName.contains("Chunk") || retName.contains("class_2791") ||
+                            retName.contains("LevelChunk")) {
+                            getChunkMethod = m;
+                            plugin.getConfigManager().debug("Found getChunk via search: " + m.getName() + 
+                                " -> " + retName);
+                            break;
                         }
                     }
                 }
             }
-            
-            if (getChunkMethod != null) {
-                // Get a test chunk to find structure methods
-                try {
-                    Object testChunk = getChunkMethod.invoke(cachedServerLevel, 0, 0);
-                    if (testChunk != null) {
-                        plugin.getConfigManager().debug("Got test chunk: " + testChunk.getClass().getName());
-                        
-                        // Find getAllStarts or getStructureStarts
-                        chunkGetStructureStartsMethod = findMethodByNames(testChunk.getClass(),
-                            "getAllStarts", "getStructureStarts", "method_12016", "getAllReferences", 
-                            "h", "g", "f", "e", "d", "c", "b", "a");  // Try obfuscated names
-                        
-                        if (chunkGetStructureStartsMethod == null) {
-                            // Search for any 0-param method returning a Map
-                            for (Method m : testChunk.getClass().getMethods()) {
-                                if (m.getParameterCount() == 0 && 
-                                    Map.class.isAssignableFrom(m.getReturnType())) {
-                                    chunkGetStructureStartsMethod = m;
-                                    plugin.getConfigManager().debug("Found potential structure method: " + 
-                                        m.getName() + " -> " + m.getReturnType().getSimpleName());
-                                    break;
-                                }
+        }
+        
+        if (getChunkMethod != null) {
+            // Get a test chunk to find structure methods
+            try {
+                Object testChunk = getChunkMethod.invoke(cachedServerLevel, 0, 0);
+                if (testChunk != null) {
+                    plugin.getConfigManager().debug("Got test chunk: " + testChunk.getClass().getName());
+                    
+                    // Find getAllStarts or getStructureStarts
+                    chunkGetStructureStartsMethod = findMethodByNames(testChunk.getClass(),
+                        "getAllStarts", "getStructureStarts", "method_12016", "getAllReferences", 
+                        "h", "g", "f", "e", "d", "c", "b", "a");  // Try obfuscated names
+                    
+                    if (chunkGetStructureStartsMethod == null) {
+                        // Search for any 0-param method returning a Map
+                        for (Method m : testChunk.getClass().getMethods()) {
+                            if (m.getParameterCount() == 0 && 
+                                Map.class.isAssignableFrom(m.getReturnType())) {
+                                chunkGetStructureStartsMethod = m;
+                                plugin.getConfigManager().debug("Found potential structure method: " + 
+                                    m.getName() + " -> " + m.getReturnType().getSimpleName());
+                                break;
                             }
                         }
-                        
-                        // If still not found, list all methods to diagnose
-                        if (chunkGetStructureStartsMethod == null) {
-                            plugin.getConfigManager().debug("Could not find structure starts method on Chunk. Available 0-param methods:");
-                            for (Method m : testChunk.getClass().getMethods()) {
-                                if (m.getParameterCount() == 0 && !m.getReturnType().equals(void.class)) {
-                                    String retName = m.getReturnType().getSimpleName();
-                                    if (retName.contains("Map") || retName.contains("Structure") || 
-                                        retName.contains("Start") || m.getName().length() <= 2) {
-                                        plugin.getConfigManager().debug("  " + m.getName() + "() -> " + retName);
-                                    }
+                    }
+                    
+                    // If still not found, list all methods to diagnose
+                    if (chunkGetStructureStartsMethod == null) {
+                        plugin.getConfigManager().debug("Could not find structure starts method on Chunk. Available 0-param methods:");
+                        for (Method m : testChunk.getClass().getMethods()) {
+                            if (m.getParameterCount() == 0 && !m.getReturnType().equals(void.class)) {
+                                String retName = m.getReturnType().getSimpleName();
+                                if (retName.contains("Map") || retName.contains("Structure") || 
+                                    retName.contains("Start") || m.getName().length() <= 2) {
+                                    plugin.getConfigManager().debug("  " + m.getName() + "() -> " + retName);
                                 }
                             }
                         }
+                    }
+                    
+                    if (chunkGetStructureStartsMethod != null) {
+                        plugin.getConfigManager().debug("Found Chunk structure method: " + 
+                            chunkGetStructureStartsMethod.getName());
                         
-                        if (chunkGetStructureStartsMethod != null) {
-                            plugin.getConfigManager().debug("Found Chunk structure method: " + 
-                                chunkGetStructureStartsMethod.getName());
+                        // Test it
+                        Object structureStarts = chunkGetStructureStartsMethod.invoke(testChunk);
+                        if (structureStarts instanceof Map) {
+                            Map<?, ?> startsMap = (Map<?, ?>) structureStarts;
+                            plugin.getConfigManager().debug("Structure starts map has " + startsMap.size() + " entries");
                             
-                            // Test it
-                            Object structureStarts = chunkGetStructureStartsMethod.invoke(testChunk);
-                            if (structureStarts instanceof Map) {
-                                Map<?, ?> startsMap = (Map<?, ?>) structureStarts;
-                                plugin.getConfigManager().debug("Structure starts map has " + startsMap.size() + " entries");
-                                
-                                // Mark chunk path as available for fallback use
-                                chunkPathWorks = true;
-                                
-                                // Only set useFabricPath if Mojang path didn't work
-                                if (!mojangPathWorks) {
-                                    useFabricPath = true;
-                                }
-                                
-                                if (!startsMap.isEmpty()) {
-                                    Object sampleStart = startsMap.values().iterator().next();
-                                    if (sampleStart != null) {
-                                        structureStartGetStructureMethod = findMethodByNames(sampleStart.getClass(),
-                                            "getStructure", "method_16656", "getFeature", "e", "f", "g");
-                                        structureStartGetBoundingBoxMethod = findMethodByNames(sampleStart.getClass(),
-                                            "getBoundingBox", "method_14969", "f", "g", "h");
-                                        plugin.getConfigManager().debug("Found StructureStart methods");
-                                    }
+                            // Mark chunk path as available for fallback use
+                            chunkPathWorks = true;
+                            
+                            // Only set useFabricPath if Mojang path didn't work
+                            if (!mojangPathWorks) {
+                                useFabricPath = true;
+                            }
+                            
+                            if (!startsMap.isEmpty()) {
+                                Object sampleStart = startsMap.values().iterator().next();
+                                if (sampleStart != null) {
+                                    structureStartGetStructureMethod = findMethodByNames(sampleStart.getClass(),
+                                        "getStructure", "method_16656", "getFeature", "e", "f", "g");
+                                    structureStartGetBoundingBoxMethod = findMethodByNames(sampleStart.getClass(),
+                                        "getBoundingBox", "method_14969", "f", "g", "h");
+                                    plugin.getConfigManager().debug("Found StructureStart methods");
                                 }
-                                
-                                plugin.getConfigManager().debug("Chunk-based path available: Chunk." + 
-                                    chunkGetStructureStartsMethod.getName() + "()");
-                            } else {
-                                plugin.getConfigManager().debug("Chunk structure method returned: " + 
-                                    (structureStarts == null ? "null" : structureStarts.getClass().getName()));
                             }
+                            
+                            plugin.getConfigManager().debug("Chunk-based path available: Chunk." + 
+                                chunkGetStructureStartsMethod.getName() + "()");
+                        } else {
+                            plugin.getConfigManager().debug("Chunk structure method returned: " + 
+                                (structureStarts == null ? "null" : structureStarts.getClass().getName()));
                         }
                     }
-                } catch (Exception e) {
-                    plugin.getConfigManager().debug("Chunk-based path test failed: " + e.getMessage());
                 }
-            } else {
-                plugin.getConfigManager().debug("Could not find getChunk method - chunk fallback not available");
-            }
-            
-            // Make sure at least one path works
-            if (!mojangPathWorks && !chunkPathWorks) {
-                plugin.getLogger().warning("Neither Mojang nor Chunk-based path could be initialized.");
-                plugin.getLogger().warning("This server version may not be supported. Enable debug mode for details.");
-                throw new NoSuchMethodException("Neither Mojang nor Chunk-based path could be initialized");
+            } catch (Exception e) {
+                plugin.getConfigManager().debug("Chunk-based path test failed: " + e.getMessage());
             }
-            
-            // Now set up registry access for structure name lookups
-            // This is needed for both paths
-            // Fabric: DynamicRegistryManager -> class_5455
-            // Mojang: RegistryAccess
-            // Spigot mappings: IRegistryCustom
-            
-            // First, let's find the correct registryAccess method more carefully
-            registryAccessMethod = null;
-            Object registryAccess = null;
-            
-            // Try exact method names first - including Fabric API and Spigot-mapped names
-            String[] registryMethodNames = {
-                "registryAccess",                    // Mojang
-                "getRegistryManager",                // Yarn
-                "fabric_getDynamicRegistryManager",  // Fabric API hook
-                "H_",                                // Spigot obfuscated (from dump)
-                "method_46437",                      // Intermediary
-                "method_8433"                        // Intermediary
-            };
-            
-            for (String methodName : registryMethodNames) {
-                try {
-                    Method m = cachedServerLevel.getClass().getMethod(methodName);
-                    Object result = m.invoke(cachedServerLevel);
-                    if (result != null) {
-                        // Verify this is actually a registry manager
-                        String resultClassName = result.getClass().getName();
-                        if (resultClassName.contains("Registry") || resultClassName.contains("class_5455") ||
-                            resultClassName.contains("DynamicRegistry") || resultClassName.contains("IRegistryCustom")) {
-                            registryAccessMethod = m;
-                            registryAccess = result;
-                            plugin.getConfigManager().debug("Found registryAccess via method: " + methodName + 
-                                " -> " + resultClassName);
-                            break;
-                        }
+        } else {
+            plugin.getConfigManager().debug("Could not find getChunk method - chunk fallback not available");
+        }
+        
+        // Make sure at least one path works
+        if (!mojangPathWorks && !chunkPathWorks) {
+            plugin.getLogger().warning("Neither Mojang nor Chunk-based path could be initialized.");
+            plugin.getLogger().warning("This server version may not be supported. Enable debug mode for details.");
+            throw new NoSuchMethodException("Neither Mojang nor Chunk-based path could be initialized");
+        }
+        
+        // Now set up registry access for structure name lookups
+        // This is needed for both paths
+        // Fabric: DynamicRegistryManager -> class_5455
+        // Mojang: RegistryAccess
+        // Spigot mappings: IRegistryCustom
+        
+        // First, let's find the correct registryAccess method more carefully
+        registryAccessMethod = null;
+        Object registryAccess = null;
+        
+        // Try exact method names first - including Fabric API and Spigot-mapped names
+        String[] registryMethodNames = {
+            "registryAccess",                    // Mojang
+            "getRegistryManager",                // Yarn
+            "fabric_getDynamicRegistryManager",  // Fabric API hook
+            "H_",                                // Spigot obfuscated (from dump)
+            "method_46437",                      // Intermediary
+            "method_8433"                        // Intermediary
+        };
+        
+        for (String methodName : registryMethodNames) {
+            try {
+                Method m = cachedServerLevel.getClass().getMethod(methodName);
+                Object result = m.invoke(cachedServerLevel);
+                if (result != null) {
+                    // Verify this is actually a registry manager
+                    String resultClassName = result.getClass().getName();
+                    if (resultClassName.contains("Registry") || resultClassName.contains("class_5455") ||
+                        resultClassName.contains("DynamicRegistry") || resultClassName.contains("IRegistryCustom")) {
+                        registryAccessMethod = m;
+                        registryAccess = result;
+                        plugin.getConfigManager().debug("Found registryAccess via method: " + methodName + 
+                            " -> " + resultClassName);
+                        break;
                     }
-                } catch (NoSuchMethodException e) {
-                    // Try next
-                } catch (Exception e) {
-                    plugin.getConfigManager().debug("Error invoking " + methodName + ": " + e.getMessage());
                 }
+            } catch (NoSuchMethodException e) {
+                // Try next
+            } catch (Exception e) {
+                plugin.getConfigManager().debug("Error invoking " + methodName + ": " + e.getMessage());
             }
-            
-            // If not found, search all methods by return type more carefully
-            if (registryAccess == null) {
-                for (Method m : cachedServerLevel.getClass().getMethods()) {
-                    if (m.getParameterCount() == 0) {
-                        String returnTypeName = m.getReturnType().getName();
-                        // Must be specifically DynamicRegistryManager, RegistryAccess, or IRegistryCustom
-                        if (returnTypeName.contains("DynamicRegistryManager") || 
-                            returnTypeName.contains("class_5455") ||
-                            returnTypeName.contains("RegistryAccess") ||
-                            returnTypeName.contains("IRegistryCustom") ||
-                            returnTypeName.contains("class_7225")) {
-                            try {
-                                Object result = m.invoke(cachedServerLevel);
-                                if (result != null) {
-                                    registryAccessMethod = m;
-                                    registryAccess = result;
-                                    plugin.getConfigManager().debug("Found registryAccess via return type scan: " + 
-                                        m.getName() + " -> " + returnTypeName);
-                                    break;
-                                }
-                            } catch (Exception e) {
-                                // Skip
+        }
+        
+        // If not found, search all methods by return type more carefully
+        if (registryAccess == null) {
+            for (Method m : cachedServerLevel.getClass().getMethods()) {
+                if (m.getParameterCount() == 0) {
+                    String returnTypeName = m.getReturnType().getName();
+                    // Must be specifically DynamicRegistryManager, RegistryAccess, or IRegistryCustom
+                    if (returnTypeName.contains("DynamicRegistryManager") || 
+                        returnTypeName.contains("class_5455") ||
+                        returnTypeName.contains("RegistryAccess") ||
+                        returnTypeName.contains("IRegistryCustom") ||
+                        returnTypeName.contains("class_7225")) {
+                        try {
+                            Object result = m.invoke(cachedServerLevel);
+                            if (result != null) {
+                                registryAccessMethod = m;
+                                registryAccess = result;
+                                plugin.getConfigManager().debug("Found registryAccess via return type scan: " + 
+                                    m.getName() + " -> " + returnTypeName);
+                                break;
                             }
+                        } catch (Exception e) {
+                            // Skip
                         }
                     }
                 }
             }
-            
-            if (registryAccess == null) {
-                plugin.getLogger().warning("Could not find registryAccess method on this server version.");
-                throw new NoSuchMethodException("Could not find registryAccess method");
-            }
-            
-            plugin.getConfigManager().debug("RegistryAccess class: " + registryAccess.getClass().getName());
-            
-            // For 1.17-1.19.2 LEGACY path: Get structure registry directly from RegistryAccess
-            // In these versions, we can iterate registries to find the structure one
-            boolean triedLegacyRegistryAccess = false;
-            
-            // RegistryAccess methods logged only if needed for debugging
-            
-            // Try ALL 0-param methods that return something iterable or registry-related
-            for (Method m : registryAccess.getClass().getMethods()) {
-                if (m.getParameterCount() == 0 && cachedStructureRegistry == null) {
-                    String returnTypeName = m.getReturnType().getName();
-                    
-                    // Skip obvious non-registry methods
-                    if (m.getReturnType().equals(void.class) || 
-                        m.getReturnType().equals(String.class) ||
-                        m.getReturnType().equals(int.class) ||
-                        m.getReturnType().equals(boolean.class)) continue;
-                    
-                    try {
-                        Object result = m.invoke(registryAccess);
-                        if (result != null) {
-                            // Check if it's directly a registry containing structures
-                            String resultStr = result.toString().toLowerCase();
-                            if (resultStr.contains("structure") && 
-                                result.getClass().getName().contains("Registry") &&
-                                !resultStr.contains("structure_piece") &&
-                                !resultStr.contains("structure_set")) {
-                                cachedStructureRegistry = result;
-                                plugin.getConfigManager().debug("Found structure registry directly via: " + m.getName());
-                                break;
-                            }
-                            
-                            // Try to iterate if it's a collection
-                            Iterable<?> registries = null;
-                            if (result instanceof Iterable) {
-                                registries = (Iterable<?>) result;
-                            } else if (result.getClass().getName().contains("Stream")) {
-                                try {
-                                    Method toListMethod = result.getClass().getMethod("toList");
-                                    registries = (Iterable<?>) toListMethod.invoke(result);
-                                } catch (Exception e) {
-                                    // Not a stream with toList
-                                }
+        }
+        
+        if (registryAccess == null) {
+            plugin.getLogger().warning("Could not find registryAccess method on this server version.");
+            throw new NoSuchMethodException("Could not find registryAccess method");
+        }
+        
+        plugin.getConfigManager().debug("RegistryAccess class: " + registryAccess.getClass().getName());
+        
+        // For 1.17-1.19.2 LEGACY path: Get structure registry directly from RegistryAccess
+        // In these versions, we can iterate registries to find the structure one
+        boolean triedLegacyRegistryAccess = false;
+        
+        // RegistryAccess methods logged only if needed for debugging
+        
+        // Try ALL 0-param methods that return something iterable or registry-related
+        for (Method m : registryAccess.getClass().getMethods()) {
+            if (m.getParameterCount() == 0 && cachedStructureRegistry == null) {
+                String returnTypeName = m.getReturnType().getName();
+                
+                // Skip obvious non-registry methods
+                if (m.getReturnType().equals(void.class) || 
+                    m.getReturnType().equals(String.class) ||
+                    m.getReturnType().equals(int.class) ||
+                    m.getReturnType().equals(boolean.class)) continue;
+                
+                try {
+                    Object result = m.invoke(registryAccess);
+                    if (result != null) {
+                        // Check if it's directly a registry containing structures
+                        String resultStr = result.toString().toLowerCase();
+                        if (resultStr.contains("structure") && 
+                            result.getClass().getName().contains("Registry") &&
+                            !resultStr.contains("structure_piece") &&
+                            !resultStr.contains("structure_set")) {
+                            cachedStructureRegistry = result;
+                            plugin.getConfigManager().debug("Found structure registry directly via: " + m.getName());
+                            break;
+                        }
+                        
+                        // Try to iterate if it's a collection
+                        Iterable<?> registries = null;
+                        if (result instanceof Iterable) {
+                            registries = (Iterable<?>) result;
+                        } else if (result.getClass().getName().contains("Stream")) {
+                            try {
+                                Method toListMethod = result.getClass().getMethod("toList");
+                                registries = (Iterable<?>) toListMethod.invoke(result);
+                            } catch (Exception e) {
+                                // Not a stream with toList
                             }
-                            
-                            if (registries != null) {
-                                for (Object entry : registries) {
-                                    String entryStr = entry.toString().toLowerCase();
-                                    if (entryStr.contains("structure_feature") || 
-                                        (entryStr.contains("structure") && 
-                                         !entryStr.contains("structure_piece") &&
-                                         !entryStr.contains("structure_set") && 
-                                         !entryStr.contains("structure_processor"))) {
-                                        
-                                        // Extract registry from entry
-                                        if (entry.getClass().getName().contains("Registry")) {
-                                            cachedStructureRegistry = entry;
-                                        } else {
-                                            // Try methods that return Registry
+                        }
+                        
+                        if (registries != null) {
+                            for (Object entry : registries) {
+                                String entryStr = entry.toString().toLowerCase();
+                                if (entryStr.contains("structure_feature") || 
+                                    (entryStr.contains("structure") && 
+                                     !entryStr.contains("structure_piece") &&
+                                     !entryStr.contains("structure_set") && 
+                                     !entryStr.contains("structure_processor"))) {
+                                    
+                                    // Extract registry from entry
+                                    if (entry.getClass().getName().contains("Registry")) {
+                                        cachedStructureRegistry = entry;
+                                    } else {
+                                        // Try methods that return Registry
+                                        for (Method em : entry.getClass().getMethods()) {
+                                            if (em.getParameterCount() == 0 && 
+                                                em.getReturnType().getName().contains("Registry")) {
+                                                try {
+                                                    cachedStructureRegistry = em.invoke(entry);
+                                                    break;
+                                                } catch (Exception e2) {}
+                                            }
+                                        }
+                                        // Try second() for Pair types
+                                        if (cachedStructureRegistry == null) {
                                             for (Method em : entry.getClass().getMethods()) {
-                                                if (em.getParameterCount() == 0 && 
-                                                    em.getReturnType().getName().contains("Registry")) {
+                                                if (em.getName().equals("getSecond") || em.getName().equals("second") ||
+                                                    em.getName().equals("getValue") || em.getName().equals("b")) {
                                                     try {
-                                                        cachedStructureRegistry = em.invoke(entry);
-                                                        break;
+                                                        Object val = em.invoke(entry);
+                                                        if (val != null && val.getClass().getName().contains("Registry")) {
+                                                            cachedStructureRegistry = val;
+                                                            break;
+                                                        }
                                                     } catch (Exception e2) {}
                                                 }
                                             }
-                                            // Try second() for Pair types
-                                            if (cachedStructureRegistry == null) {
-                                                for (Method em : entry.getClass().getMethods()) {
-                                                    if (em.getName().equals("getSecond") || em.getName().equals("second") ||
-                                                        em.getName().equals("getValue") || em.getName().equals("b")) {
-                                                        try {
-                                                            Object val = em.invoke(entry);
-                                                            if (val != null && val.getClass().getName().contains("Registry")) {
-                                                                cachedStructureRegistry = val;
-                                                                break;
-                                                            }
-                                                        } catch (Exception e2) {}
-                                                    }
-                                                }
-                                            }
-                                        }
-                                        if (cachedStructureRegistry != null) {
-                                            plugin.getConfigManager().debug("Found structure registry via iteration: " + 
-                                                m.getName() + " -> " + entryStr.substring(0, Math.min(60, entryStr.length())));
-                                            triedLegacyRegistryAccess = true;
-                                            break;
                                         }
                                     }
+                                    if (cachedStructureRegistry != null) {
+                                        plugin.getConfigManager().debug("Found structure registry via iteration: " + 
+                                            m.getName() + " -> " + entryStr.substring(0, Math.min(60, entryStr.length())));
+                                        triedLegacyRegistryAccess = true;
+                                        break;
+                                    }
                                 }
                             }
                         }
-                    } catch (Exception e) {
-                        // Skip methods that throw
                     }
+                } catch (Exception e) {
+                    // Skip methods that throw
                 }
             }
+        }
+        
+        // Get Registries class and STRUCTURE field (for 1.19.3+)
+        // Skip if we already found the registry via legacy RegistryAccess iteration
+        if (cachedStructureRegistry == null) {
+            // 1.19.3+: net.minecraft.core.registries.Registries
+            // 1.17-1.19.2: net.minecraft.core.Registry (static fields)
+            // Fabric: RegistryKeys -> class_7923, field_41236
+            Class<?> registriesClass = findClass(
+                "net.minecraft.core.registries.Registries",  // 1.19.3+
+                "net.minecraft.registry.RegistryKeys",       // Fabric 1.19.3+
+                "net.minecraft.class_7923",                  // Fabric intermediary
+                "net.minecraft.class_7157"                   // Older Fabric
+            );
             
-            // Get Registries class and STRUCTURE field (for 1.19.3+)
-            // Skip if we already found the registry via legacy RegistryAccess iteration
-            if (cachedStructureRegistry == null) {
-                // 1.19.3+: net.minecraft.core.registries.Registries
-                // 1.17-1.19.2: net.minecraft.core.Registry (static fields)
-                // Fabric: RegistryKeys -> class_7923, field_41236
-                Class<?> registriesClass = findClass(
-                    "net.minecraft.core.registries.Registries",  // 1.19.3+
-                    "net.minecraft.registry.RegistryKeys",       // Fabric 1.19.3+
-                    "net.minecraft.class_7923",                  // Fabric intermediary
-                    "net.minecraft.class_7157"                   // Older Fabric
+            // Fallback for 1.17-1.19.2: use Registry class directly
+            boolean usingLegacyRegistry = false;
+            if (registriesClass == null) {
+                registriesClass = findClass(
+                    "net.minecraft.core.Registry",           // 1.17-1.19.2 Spigot/Paper
+                    "net.minecraft.core.IRegistry",          // Spigot obfuscated
+                    "net.minecraft.class_2378"               // Fabric intermediary
                 );
-                
-                // Fallback for 1.17-1.19.2: use Registry class directly
-                boolean usingLegacyRegistry = false;
-                if (registriesClass == null) {
-                    registriesClass = findClass(
-                        "net.minecraft.core.Registry",           // 1.17-1.19.2 Spigot/Paper
-                        "net.minecraft.core.IRegistry",          // Spigot obfuscated
-                        "net.minecraft.class_2378"               // Fabric intermediary
-                    );
-                    if (registriesClass != null) {
-                        usingLegacyRegistry = true;
-                        plugin.getConfigManager().debug("Using legacy Registry class (1.17-1.19.2): " + registriesClass.getName());
-                    }
+                if (registriesClass != null) {
+                    usingLegacyRegistry = true;
+                    plugin.getConfigManager().debug("Using legacy Registry class (1.17-1.19.2): " + registriesClass.getName());
                 }
-                
-                if (registriesClass == null) {
-                    throw new ClassNotFoundException("Could not find Registries class");
             }
-            plugin.getConfigManager().debug("Registries class: " + registriesClass.getName());
             
-            // Find STRUCTURE field specifically - need to be careful not to get BIOME or other registries
-            structureRegistryKey = null;
+            if (registriesClass == null) {
+                throw new ClassNotFoundException("Could not find Registries class");
+        }
+        plugin.getConfigManager().debug("Registries class: " + registriesClass.getName());
+        
+        // Find STRUCTURE field specifically - need to be careful not to get BIOME or other registries
+        structureRegistryKey = null;
+        structureRegistryKeyField = null;
+        
+        // Try known field names first - include more Fabric intermediary names
+        // 1.19.3+: STRUCTURE
+        // 1.18.2-1.19.2: CONFIGURED_STRUCTURE_FEATURE
+        // 1.17-1.18.1: STRUCTURE_FEATURE (ResourceKey) or the registry directly
+        String[] structureFieldNames = {
+            "STRUCTURE",                    // 1.19.3+ Mojang/Paper
+            "CONFIGURED_STRUCTURE_FEATURE", // 1.18.2-1.19.2
+            "STRUCTURE_FEATURE",            // 1.17-1.18.1 (ResourceKey)
+            "ae", "af", "ag", "ah",         // Spigot obfuscated (varies by version)
+            "field_41236",                  // Fabric intermediary
+            "field_40229",                  // Older Fabric
+            "f_256952_",                    // Forge SRG
+            "WORLDGEN_STRUCTURE",           // Alternative name
+            "k", "l", "m", "n"              // More obfuscated
+        };
+        for (String fieldName : structureFieldNames) {
+            try {
+                java.lang.reflect.Field f = registriesClass.getField(fieldName);
+                Object value = f.get(null);
+                // Verify this is actually the STRUCTURE registry by checking its string representation
+                String valueStr = value.toString().toLowerCase();
+                // Also try to get the registry path via method
+                String registryPath = getRegistryKeyPath(value);
+                if (registryPath != null) {
+                    registryPath = registryPath.toLowerCase();
+                }
+                
+                if (valueStr.contains("structure") || valueStr.contains("worldgen/structure") ||
+                    (registryPath != null && registryPath.contains("structure"))) {
+                    structureRegistryKey = value;
+                    structureRegistryKeyField = f;
+                    plugin.getConfigManager().debug("Found STRUCTURE field via name: " + fieldName + " = " + value);
+                    break;
+                }
+            } catch (Exception e) {
+                // Try next
+            }
+        }
+        
+        // If not found, search all fields for one that represents structures
+        if (structureRegistryKey == null) {
+            plugin.getLogger().warning("Could not find STRUCTURE field by name. Searching all fields...");
+            
+            // First, dump a sample of fields to understand the format
+            int count = 0;
+            for (java.lang.reflect.Field f : registriesClass.getFields()) {
+                if (count < 5) {
+                    try {
+                        Object value = f.get(null);
+                        String path = getRegistryKeyPath(value);
+                        plugin.getConfigManager().debug("Sample field: " + f.getName() + " = " + value + 
+                            " (path: " + path + ")");
+                        count++;
+                    } catch (Exception e) {}
+                }
+            }
             
-            // Try known field names first - include more Fabric intermediary names
-            // 1.19.3+: STRUCTURE
-            // 1.18.2-1.19.2: CONFIGURED_STRUCTURE_FEATURE
-            // 1.17-1.18.1: STRUCTURE_FEATURE (ResourceKey) or the registry directly
-            String[] structureFieldNames = {
-                "STRUCTURE",                    // 1.19.3+ Mojang/Paper
-                "CONFIGURED_STRUCTURE_FEATURE", // 1.18.2-1.19.2
-                "STRUCTURE_FEATURE",            // 1.17-1.18.1 (ResourceKey)
-                "ae", "af", "ag", "ah",         // Spigot obfuscated (varies by version)
-                "field_41236",                  // Fabric intermediary
-                "field_40229",                  // Older Fabric
-                "f_256952_",                    // Forge SRG
-                "WORLDGEN_STRUCTURE",           // Alternative name
-                "k", "l", "m", "n"              // More obfuscated
-            };
-            for (String fieldName : structureFieldNames) {
+            for (java.lang.reflect.Field f : registriesClass.getFields()) {
                 try {
-                    java.lang.reflect.Field f = registriesClass.getField(fieldName);
                     Object value = f.get(null);
-                    // Verify this is actually the STRUCTURE registry by checking its string representation
-                    String valueStr = value.toString().toLowerCase();
-                    // Also try to get the registry path via method
-                    String registryPath = getRegistryKeyPath(value);
-                    if (registryPath != null) {
-                        registryPath = registryPath.toLowerCase();
-                    }
-                    
-                    if (valueStr.contains("structure") || valueStr.contains("worldgen/structure") ||
-                        (registryPath != null && registryPath.contains("structure"))) {
-                        structureRegistryKey = value;
-                        plugin.getConfigManager().debug("Found STRUCTURE field via name: " + fieldName + " = " + value);
-                        break;
+                    if (value != null) {
+                        String valueStr = value.toString().toLowerCase();
+                        String registryPath = getRegistryKeyPath(value);
+                        if (registryPath != null) {
+                            registryPath = registryPath.toLowerCase();
+                        }
+                        
+                        // Look for EXACTLY "worldgen/structure" - NOT structure_piece, structure_set, etc.
+                        // The path should end with "/structure" or "worldgen/structure"
+                        boolean isStructure = false;
+                        
+                        if (registryPath != null) {
+                            // Exact match: ends with "worldgen/structure" and nothing after
+                            isStructure = registryPath.endsWith("worldgen/structure") ||
+                                          registryPath.equals("minecraft:worldgen/structure");
+                        }
+                        
+                        if (!isStructure) {
+                            // Check toString - look for "/ minecraft:worldgen/structure]" pattern
+                            isStructure = valueStr.contains("/ minecraft:worldgen/structure]") ||
+                                          valueStr.endsWith("worldgen/structure]");
+                        }
+                        
+                        if (isStructure) {
+                            structureRegistryKey = value;
+                            structureRegistryKeyField = f;
+                            plugin.getConfigManager().debug("Found STRUCTURE field via search: " + f.getName() + " = " + value);
+                            break;
+                        }
                     }
                 } catch (Exception e) {
-                    // Try next
+                    // Skip
                 }
             }
-            
-            // If not found, search all fields for one that represents structures
-            if (structureRegistryKey == null) {
-                plugin.getLogger().warning("Could not find STRUCTURE field by name. Searching all fields...");
+        }
+        
+        if (structureRegistryKey == null) {
+            // For legacy versions (1.17-1.19.2), try to get the registry directly from Registry class
+            if (usingLegacyRegistry) {
+                plugin.getConfigManager().debug("Trying to get structure registry directly from Registry class...");
                 
-                // First, dump a sample of fields to understand the format
-                int count = 0;
-                for (java.lang.reflect.Field f : registriesClass.getFields()) {
-                    if (count < 5) {
-                        try {
-                            Object value = f.get(null);
-                            String path = getRegistryKeyPath(value);
-                            plugin.getConfigManager().debug("Sample field: " + f.getName() + " = " + value + 
-                                " (path: " + path + ")");
-                            count++;
-                        } catch (Exception e) {}
-                    }
-                }
+                // In 1.17, the registry fields are named like "e", "f", etc. (obfuscated)
+                // We need to find one that contains structure-related data
+                // Look for ANY field that IS a registry and might contain structures
                 
+                // First, list all registry-type fields to understand the format
+                List<String> registryFields = new ArrayList<>();
                 for (java.lang.reflect.Field f : registriesClass.getFields()) {
                     try {
                         Object value = f.get(null);
                         if (value != null) {
-                            String valueStr = value.toString().toLowerCase();
-                            String registryPath = getRegistryKeyPath(value);
-                            if (registryPath != null) {
-                                registryPath = registryPath.toLowerCase();
-                            }
-                            
-                            // Look for EXACTLY "worldgen/structure" - NOT structure_piece, structure_set, etc.
-                            // The path should end with "/structure" or "worldgen/structure"
-                            boolean isStructure = false;
-                            
-                            if (registryPath != null) {
-                                // Exact match: ends with "worldgen/structure" and nothing after
-                                isStructure = registryPath.endsWith("worldgen/structure") ||
-                                              registryPath.equals("minecraft:worldgen/structure");
-                            }
-                            
-                            if (!isStructure) {
-                                // Check toString - look for "/ minecraft:worldgen/structure]" pattern
-                                isStructure = valueStr.contains("/ minecraft:worldgen/structure]") ||
-                                              valueStr.endsWith("worldgen/structure]");
-                            }
-                            
-                            if (isStructure) {
-                                structureRegistryKey = value;
-                                plugin.getConfigManager().debug("Found STRUCTURE field via search: " + f.getName() + " = " + value);
-                                break;
+                            String typeName = value.getClass().getName();
+                            if (typeName.contains("Registry") || typeName.contains("IRegistry")) {
+                                String valueStr = value.toString();
+                                registryFields.add(f.getName() + " -> " + valueStr);
+                                
+                                // Check if this registry is for structures
+                                if (valueStr.toLowerCase().contains("structure")) {
+                                    cachedStructureRegistry = value;
+                                    structureRegistryField = f;
+                                    plugin.getConfigManager().debug("Found legacy structure registry: " + 
+                                        f.getName() + " = " + valueStr);
+                                    break;
+                                }
                             }
                         }
                     } catch (Exception e) {
                         // Skip
                     }
                 }
+                
+                if (cachedStructureRegistry == null && !registryFields.isEmpty()) {
+                    plugin.getConfigManager().debug("Registry fields found but none matched 'structure':");
+                    for (String rf : registryFields) {
+                        plugin.getConfigManager().debug("  " + rf);
+                    }
+                }
             }
             
-            if (structureRegistryKey == null) {
-                // For legacy versions (1.17-1.19.2), try to get the registry directly from Registry class
-                if (usingLegacyRegistry) {
-                    plugin.getConfigManager().debug("Trying to get structure registry directly from Registry class...");
-                    
-                    // In 1.17, the registry fields are named like "e", "f", etc. (obfuscated)
-                    // We need to find one that contains structure-related data
-                    // Look for ANY field that IS a registry and might contain structures
-                    
-                    // First, list all registry-type fields to understand the format
-                    List<String> registryFields = new ArrayList<>();
-                    for (java.lang.reflect.Field f : registriesClass.getFields()) {
+            if (structureRegistryKey == null && cachedStructureRegistry == null) {
+                // For chunk-based path (1.17-1.18), we can work without the registry
+                // We just won't be able to list ALL structure types, only detected ones
+                if (useFabricPath) {
+                    plugin.getLogger().warning("Could not find structure registry. /sg listall may be limited on this version.");
+                    plugin.getLogger().info("Structure detection will still work via chunk-based path.");
+                    // Don't throw - continue without registry
+                } else {
+                    plugin.getLogger().warning("Could not find STRUCTURE registry key on this server version.");
+                    plugin.getLogger().warning("Enable debug mode for detailed diagnostics.");
+                    throw new NoSuchFieldException("Could not find STRUCTURE field");
+                }
+            }
+        }
+        } // End of outer: if (cachedStructureRegistry == null) - Registries class lookup
+        
+        // Skip all registry-related setup if we're using chunk-based fallback without registry
+        if (cachedStructureRegistry == null && useFabricPath) {
+            plugin.getConfigManager().debug("Skipping registry setup - using chunk-based detection only");
+            // Continue to finalize initialization without registry
+        } else if (cachedStructureRegistry == null) {
+            // Get ResourceKey class (needed for modern registry access)
+            Class<?> resourceKeyClass = findClass(
+                "net.minecraft.resources.ResourceKey",
+                "net.minecraft.class_5321"
+            );
+            if (resourceKeyClass == null) {
+                throw new ClassNotFoundException("Could not find ResourceKey class");
+            }
+        
+            // Get registry from registryAccess
+            // Mojang 1.20-: registryOrThrow(ResourceKey) -> Registry
+            // Mojang 1.21+: lookupOrThrow(ResourceKey) -> Registry
+            // Fabric: getOptional(RegistryKey) -> Optional<Registry> (method_33310)
+            // Spigot: f(ResourceKey) -> IRegistry (obfuscated)
+            registryOrThrowMethod = findMethod(registryAccess.getClass(),
+                new String[]{"registryOrThrow", "lookupOrThrow", "method_30530", "m_175515_",
+                             "f", "e", "d", "c", "b", "a", "g", "h"},  // Spigot obfuscated names
+                resourceKeyClass);
+        
+        // If not found by name, search by signature: takes ResourceKey, returns Registry-like
+        if (registryOrThrowMethod == null) {
+            for (Method m : registryAccess.getClass().getMethods()) {
+                if (m.getParameterCount() == 1) {
+                    Class<?> paramType = m.getParameterTypes()[0];
+                    String returnTypeName = m.getReturnType().getSimpleName();
+                    // Check if param is ResourceKey-like and return is Registry-like
+                    if ((paramType.equals(resourceKeyClass) || 
+                         paramType.getSimpleName().contains("ResourceKey") ||
+                         paramType.getSimpleName().contains("RegistryKey")) &&
+                        (returnTypeName.contains("Registry") || 
+                         returnTypeName.equals("IRegistry") ||
+                         returnTypeName.contains("class_"))) {
+                        // Test it with our structure registry key
                         try {
-                            Object value = f.get(null);
-                            if (value != null) {
-                                String typeName = value.getClass().getName();
-                                if (typeName.contains("Registry") || typeName.contains("IRegistry")) {
-                                    String valueStr = value.toString();
-                                    registryFields.add(f.getName() + " -> " + valueStr);
-                                    
-                                    // Check if this registry is for structures
-                                    if (valueStr.toLowerCase().contains("structure")) {
-                                        cachedStructureRegistry = value;
-                                        plugin.getConfigManager().debug("Found legacy structure registry: " + 
-                                            f.getName() + " = " + valueStr);
-                                        break;
-                                    }
-                                }
+                            Object testResult = m.invoke(registryAccess, structureRegistryKey);
+                            if (testResult != null) {
+                                registryOrThrowMethod = m;
+                                plugin.getConfigManager().debug("Found registry method via signature: " + 
+                                    m.getName() + " -> " + returnTypeName);
+                                break;
                             }
                         } catch (Exception e) {
-                            // Skip
+                            // This method throws, continue searching
                         }
                     }
-                    
-                    if (cachedStructureRegistry == null && !registryFields.isEmpty()) {
-                        plugin.getConfigManager().debug("Registry fields found but none matched 'structure':");
-                        for (String rf : registryFields) {
-                            plugin.getConfigManager().debug("  " + rf);
-                        }
+                }
+            }
+        }
+        
+        if (registryOrThrowMethod != null) {
+            cachedStructureRegistry = registryOrThrowMethod.invoke(registryAccess, structureRegistryKey);
+            plugin.getConfigManager().debug("Got registry via: " + registryOrThrowMethod.getName());
+        } else {
+            // Try Fabric's getOptional method
+            Method getOptionalMethod = findMethod(registryAccess.getClass(),
+                new String[]{"getOptional", "method_33310", "get"},
+                resourceKeyClass);
+            
+            if (getOptionalMethod != null) {
+                Object optionalRegistry = getOptionalMethod.invoke(registryAccess, structureRegistryKey);
+                // Unwrap Optional
+                if (optionalRegistry != null) {
+                    Method isPresentMethod = optionalRegistry.getClass().getMethod("isPresent");
+                    Method getMethod = optionalRegistry.getClass().getMethod("get");
+                    if ((boolean) isPresentMethod.invoke(optionalRegistry)) {
+                        cachedStructureRegistry = getMethod.invoke(optionalRegistry);
+                        plugin.getConfigManager().debug("Got structure registry via getOptional");
                     }
                 }
-                
-                if (structureRegistryKey == null && cachedStructureRegistry == null) {
-                    // For chunk-based path (1.17-1.18), we can work without the registry
-                    // We just won't be able to list ALL structure types, only detected ones
-                    if (useFabricPath) {
-                        plugin.getLogger().warning("Could not find structure registry. /sg listall may be limited on this version.");
-                        plugin.getLogger().info("Structure detection will still work via chunk-based path.");
-                        // Don't throw - continue without registry
-                    } else {
-                        plugin.getLogger().warning("Could not find STRUCTURE registry key on this server version.");
-                        plugin.getLogger().warning("Enable debug mode for detailed diagnostics.");
-                        throw new NoSuchFieldException("Could not find STRUCTURE field");
+            }
+            
+            if (cachedStructureRegistry == null) {
+                // For chunk-based path (1.17-1.18), we can work without the registry
+                // We just won't be able to list ALL structure types, only detected ones
+                if (useFabricPath) {
+                    plugin.getLogger().warning("Could not find structure registry. /sg listall may not work on this version.");
+                    plugin.getLogger().info("Structure detection will still work - structures will be named from chunk data.");
+                } else {
+                    plugin.getLogger().warning("Could not find registry access method on this server version.");
+                    throw new NoSuchMethodException("Could not find registry access method");
+                }
+            }
+        }
+        } // End of: else if (cachedStructureRegistry == null) - registry lookup block
+        
+        // Get getKey method from registry (only if we have a registry)
+        if (cachedStructureRegistry != null) {
+            // Mojang: getKey(Object) -> ResourceLocation
+            // Spigot: usually obfuscated single letters
+            getKeyMethod = findMethod(cachedStructureRegistry.getClass(),
+                new String[]{"getKey", "method_10221", "m_7981_", 
+                             "b", "c", "d", "e", "f", "g", "a"},  // Spigot obfuscated
+                Object.class);
+        
+            // If not found, search by signature: takes Object, returns ResourceLocation-like
+            if (getKeyMethod == null) {
+                for (Method m : cachedStructureRegistry.getClass().getMethods()) {
+                    if (m.getParameterCount() == 1 && m.getParameterTypes()[0] == Object.class) {
+                        String returnTypeName = m.getReturnType().getSimpleName();
+                        // ResourceLocation on Spigot is MinecraftKey
+                        if (returnTypeName.contains("ResourceLocation") || 
+                            returnTypeName.contains("MinecraftKey") ||
+                            returnTypeName.contains("Identifier") ||
+                            returnTypeName.contains("class_")) {
+                            getKeyMethod = m;
+                            plugin.getConfigManager().debug("Found getKey via signature: " + m.getName() + 
+                                " -> " + returnTypeName);
+                            break;
+                        }
                     }
                 }
             }
-            } // End of outer: if (cachedStructureRegistry == null) - Registries class lookup
+        
+            if (getKeyMethod == null) {
+                plugin.getLogger().warning("Could not find getKey method on structure registry.");
+                throw new NoSuchMethodException("Could not find getKey method");
+            }
+            plugin.getConfigManager().debug("Found getKey method: " + getKeyMethod.getName());
+        } // End of: if (cachedStructureRegistry != null) - getKey setup
+    }
+    
+    /**
+     * Resolve everything from the saved reflection profile instead of searching for it.
+     * Runs the same test calls as full discovery, so a profile that no longer fits the
+     * server is rejected rather than trusted.
+     * @return false if there is no matching profile or it failed validation
+     */
+    private boolean applyProfile(World world) {
+        if (!profileLoaded) {
+            profileLoaded = true;
+            profile = ReflectionProfile.load(profileFile());
+        }
+        if (profile == null || !profile.matches(world.getClass(), cachedServerLevel.getClass())) {
+            return false;
+        }
+        
+        try {
+            ClassLoader loader = cachedServerLevel.getClass().getClassLoader();
+            blockPosClass = profile.type("block-pos", loader);
+            blockPosConstructor = blockPosClass.getConstructor(int.class, int.class, int.class);
             
-            // Skip all registry-related setup if we're using chunk-based fallback without registry
-            if (cachedStructureRegistry == null && useFabricPath) {
-                plugin.getConfigManager().debug("Skipping registry setup - using chunk-based detection only");
-                // Continue to finalize initialization without registry
-            } else if (cachedStructureRegistry == null) {
-                // Get ResourceKey class (needed for modern registry access)
-                Class<?> resourceKeyClass = findClass(
-                    "net.minecraft.resources.ResourceKey",
-                    "net.minecraft.class_5321"
-                );
-                if (resourceKeyClass == null) {
-                    throw new ClassNotFoundException("Could not find ResourceKey class");
+            boolean mojangPathWorks = false;
+            if (profile.has("structure-manager")) {
+                structureManagerMethod = profile.method("structure-manager", cachedServerLevel);
+                cachedStructureManager = structureManagerMethod.invoke(cachedServerLevel);
+                getAllStructuresAtMethod = profile.method("get-all-structures-at", cachedStructureManager);
+                Object testPos = blockPosConstructor.newInstance(0, 64, 0);
+                mojangPathWorks = getAllStructuresAtMethod.invoke(cachedStructureManager, testPos) instanceof Map;
+            }
+            
+            boolean chunkPathWorks = false;
+            getChunkMethod = null;
+            chunkGetStructureStartsMethod = null;
+            if (profile.has("get-chunk")) {
+                Method chunkMethod = profile.method("get-chunk", cachedServerLevel);
+                Object testChunk = chunkMethod.invoke(cachedServerLevel, 0, 0);
+                Method startsMethod = profile.method("structure-starts", testChunk);
+                if (startsMethod.invoke(testChunk) instanceof Map) {
+                    getChunkMethod = chunkMethod;
+                    chunkGetStructureStartsMethod = startsMethod;
+                    chunkPathWorks = true;
                 }
+            }
             
-                // Get registry from registryAccess
-                // Mojang 1.20-: registryOrThrow(ResourceKey) -> Registry
-                // Mojang 1.21+: lookupOrThrow(ResourceKey) -> Registry
-                // Fabric: getOptional(RegistryKey) -> Optional<Registry> (method_33310)
-                // Spigot: f(ResourceKey) -> IRegistry (obfuscated)
-                registryOrThrowMethod = findMethod(registryAccess.getClass(),
-                    new String[]{"registryOrThrow", "lookupOrThrow", "method_30530", "m_175515_",
-                                 "f", "e", "d", "c", "b", "a", "g", "h"},  // Spigot obfuscated names
-                    resourceKeyClass);
+            // Must land on the same path discovery chose
+            if (!mojangPathWorks && !chunkPathWorks) {
+                throw new NoSuchMethodException("neither detection path works");
+            }
+            useFabricPath = !mojangPathWorks;
+            if (useFabricPath != profile.isFabricPath()) {
+                throw new NoSuchMethodException("detection path changed");
+            }
             
-            // If not found by name, search by signature: takes ResourceKey, returns Registry-like
-            if (registryOrThrowMethod == null) {
-                for (Method m : registryAccess.getClass().getMethods()) {
-                    if (m.getParameterCount() == 1) {
-                        Class<?> paramType = m.getParameterTypes()[0];
-                        String returnTypeName = m.getReturnType().getSimpleName();
-                        // Check if param is ResourceKey-like and return is Registry-like
-                        if ((paramType.equals(resourceKeyClass) || 
-                             paramType.getSimpleName().contains("ResourceKey") ||
-                             paramType.getSimpleName().contains("RegistryKey")) &&
-                            (returnTypeName.contains("Registry") || 
-                             returnTypeName.equals("IRegistry") ||
-                             returnTypeName.contains("class_"))) {
-                            // Test it with our structure registry key
-                            try {
-                                Object testResult = m.invoke(registryAccess, structureRegistryKey);
-                                if (testResult != null) {
-                                    registryOrThrowMethod = m;
-                                    plugin.getConfigManager().debug("Found registry method via signature: " + 
-                                        m.getName() + " -> " + returnTypeName);
-                                    break;
-                                }
-                            } catch (Exception e) {
-                                // This method throws, continue searching
-                            }
+            registryAccessMethod = profile.method("registry-access", cachedServerLevel);
+            Object registryAccess = registryAccessMethod.invoke(cachedServerLevel);
+            Object registry = null;
+            if (profile.has("registry-key")) {
+                structureRegistryKeyField = profile.field("registry-key", loader);
+                structureRegistryKey = structureRegistryKeyField.get(null);
+                registryOrThrowMethod = profile.method("registry-lookup", registryAccess);
+                registry = registryOrThrowMethod.invoke(registryAccess, structureRegistryKey);
+            } else if (profile.has("registry-field")) {
+                structureRegistryField = profile.field("registry-field", loader);
+                registry = structureRegistryField.get(null);
+            }
+            if (registry == null && !useFabricPath) {
+                throw new NoSuchFieldException("structure registry not found");
+            }
+            getKeyMethod = registry != null ? profile.method("get-key", registry) : null;
+            cachedStructureRegistry = registry;
+            
+            plugin.getConfigManager().debug("Using saved reflection profile for " + world.getName() + 
+                (useFabricPath ? " (chunk-based path)" : " (Mojang path)"));
+            return true;
+        } catch (Exception e) {
+            plugin.getConfigManager().debug("Reflection profile rejected, running full discovery: " + e.getMessage());
+            clearProfileFields();
+            return false;
+        }
+    }
+    
+    /**
+     * Forget whatever a rejected profile got as far as assigning. Discovery doesn't reset
+     * every field it may skip, so a leftover would otherwise be used and saved again.
+     */
+    private void clearProfileFields() {
+        blockPosClass = null;
+        blockPosConstructor = null;
+        structureManagerMethod = null;
+        cachedStructureManager = null;
+        getAllStructuresAtMethod = null;
+        getChunkMethod = null;
+        chunkGetStructureStartsMethod = null;
+        useFabricPath = false;
+        registryAccessMethod = null;
+        structureRegistryKeyField = null;
+        structureRegistryKey = null;
+        registryOrThrowMethod = null;
+        structureRegistryField = null;
+        getKeyMethod = null;
+        cachedStructureRegistry = null;
+    }
+    
+    /**
+     * Record what full discovery found, for later worlds and the next start.
+     * A structure registry found by iterating RegistryAccess or through getOptional
+     * can't be replayed, so on those servers no profile is kept.
+     */
+    private void saveProfile(World world) {
+        ReflectionProfile recorded = ReflectionProfile.create(world.getClass(), cachedServerLevel.getClass());
+        try {
+            recorded.recordType("block-pos", blockPosClass);
+            recorded.setFabricPath(useFabricPath);
+            if (!useFabricPath) {
+                recorded.recordMethod("structure-manager", cachedServerLevel, structureManagerMethod);
+                recorded.recordMethod("get-all-structures-at", cachedStructureManager, getAllStructuresAtMethod);
+            }
+            if (getChunkMethod != null && chunkGetStructureStartsMethod != null) {
+                recorded.recordMethod("get-chunk", cachedServerLevel, getChunkMethod);
+                recorded.recordMethod("structure-starts", getChunkMethod.invoke(cachedServerLevel, 0, 0), 
+                    chunkGetStructureStartsMethod);
+            }
+            
+            recorded.recordMethod("registry-access", cachedServerLevel, registryAccessMethod);
+            if (cachedStructureRegistry != null) {
+                if (structureRegistryKeyField != null && registryOrThrowMethod != null) {
+                    recorded.recordField("registry-key", structureRegistryKeyField);
+                    recorded.recordMethod("registry-lookup", registryAccessMethod.invoke(cachedServerLevel), 
+                        registryOrThrowMethod);
+                } else if (structureRegistryField != null) {
+                    recorded.recordField("registry-field", structureRegistryField);
+                } else {
+                    plugin.getConfigManager().debug("Structure registry lookup can't be replayed - not saving a reflection profile");
+                    profile = null;
+                    profileFile().delete();
+                    return;
+                }
+                recorded.recordMethod("get-key", cachedStructureRegistry, getKeyMethod);
+            }
+        } catch (Exception e) {
+            plugin.getConfigManager().debug("Could not record reflection profile: " + e.getMessage());
+            return;
+        }
+        
+        profile = recorded;
+        try {
+            recorded.save(profileFile());
+            plugin.getConfigManager().debug("Saved reflection profile to " + ReflectionProfile.FILE_NAME);
+        } catch (java.io.IOException e) {
+            plugin.getLogger().warning("Could not save reflection profile: " + e.getMessage());
+        }
+    }
+    
+    private java.io.File profileFile() {
+        return new java.io.File(plugin.getDataFolder(), ReflectionProfile.FILE_NAME);
+    }
+    
+    // Origin conventions stored per world by selectProvider
+    private static final String ORIGINS_START = "start-chunk";
+    private static final String ORIGINS_CENTRE = "bukkit-api";
+    
+    /**
+     * Pick an adapter that lets the world skip reflective discovery: the compiled adapter
+     * for this Minecraft version, else the public Bukkit structure API. Each is tried on
+     * the world before it is used. Main thread only.
+     * @return false if the world needs the reflective path
+     */
+    private synchronized boolean selectProvider(World world) {
+        if (providers.containsKey(world)) {
+            return true;
+        }
+        if (!adaptersLoaded) {
+            adaptersLoaded = true;
+            String version = Bukkit.getBukkitVersion().split("-")[0];
+            if (plugin.getConfigManager().isNmsAdapterEnabled()) {
+                for (String[] entry : ADAPTERS) {
+                    if (compareVersions(version, entry[0]) >= 0) {
+                        ClassLoader loader = nmsAdapterLoader();
+                        if (loader != null) {
+                            compiledAdapter = loadAdapter(entry[1], loader);
                         }
+                        break;
                     }
                 }
             }
-            
-            if (registryOrThrowMethod != null) {
-                cachedStructureRegistry = registryOrThrowMethod.invoke(registryAccess, structureRegistryKey);
-                plugin.getConfigManager().debug("Got registry via: " + registryOrThrowMethod.getName());
-            } else {
-                // Try Fabric's getOptional method
-                Method getOptionalMethod = findMethod(registryAccess.getClass(),
-                    new String[]{"getOptional", "method_33310", "get"},
-                    resourceKeyClass);
-                
-                if (getOptionalMethod != null) {
-                    Object optionalRegistry = getOptionalMethod.invoke(registryAccess, structureRegistryKey);
-                    // Unwrap Optional
-                    if (optionalRegistry != null) {
-                        Method isPresentMethod = optionalRegistry.getClass().getMethod("isPresent");
-                        Method getMethod = optionalRegistry.getClass().getMethod("get");
-                        if ((boolean) isPresentMethod.invoke(optionalRegistry)) {
-                            cachedStructureRegistry = getMethod.invoke(optionalRegistry);
-                            plugin.getConfigManager().debug("Got structure registry via getOptional");
-                        }
-                    }
-                }
-                
-                if (cachedStructureRegistry == null) {
-                    // For chunk-based path (1.17-1.18), we can work without the registry
-                    // We just won't be able to list ALL structure types, only detected ones
-                    if (useFabricPath) {
-                        plugin.getLogger().warning("Could not find structure registry. /sg listall may not work on this version.");
-                        plugin.getLogger().info("Structure detection will still work - structures will be named from chunk data.");
-                    } else {
-                        plugin.getLogger().warning("Could not find registry access method on this server version.");
-                        throw new NoSuchMethodException("Could not find registry access method");
-                    }
-                }
+            if (!plugin.getConfigManager().getBukkitStructureApi().equals("never") && 
+                compareVersions(version, BUKKIT_API_ADAPTER[0]) >= 0) {
+                bukkitApiAdapter = loadAdapter(BUKKIT_API_ADAPTER[1], getClass().getClassLoader());
+            }
+        }
+        
+        // The Bukkit API reports a different origin chunk than the other paths (it has no
+        // start chunk), so by default it only takes worlds with no structures recorded yet.
+        // That choice is stored, so the world keeps it after its first structures are recorded
+        String mode = plugin.getConfigManager().getBukkitStructureApi();
+        String stored = mode.equals("auto") ? plugin.getDatabase().getWorldOrigins(world.getName()) : null;
+        boolean centreOrigins = ORIGINS_CENTRE.equals(stored);
+        
+        if (!centreOrigins && tryProvider(world, compiledAdapter)) {
+            storeOrigins(world, mode, stored, ORIGINS_START);
+            return true;
+        }
+        boolean useBukkitApi = stored != null ? centreOrigins 
+            : mode.equals("always") || (mode.equals("auto") && !plugin.getDatabase().hasStructures(world.getName()));
+        if (useBukkitApi && tryProvider(world, bukkitApiAdapter)) {
+            storeOrigins(world, mode, stored, ORIGINS_CENTRE);
+            return true;
+        }
+        
+        if (centreOrigins) {
+            plugin.getLogger().warning(world.getName() + " was recorded through the Bukkit structure API, " + 
+                "which is not available now - structures found from here on are recorded by start chunk");
+        }
+        // Unless the compiled adapter loads next time, reflection will take the world
+        storeOrigins(world, mode, stored, ORIGINS_START);
+        return false;
+    }
+    
+    /**
+     * Store the world's origin convention the first time "auto" picks one.
+     */
+    private void storeOrigins(World world, String mode, String stored, String origins) {
+        if (stored == null && mode.equals("auto")) {
+            plugin.getDatabase().setWorldOrigins(world.getName(), origins);
+        }
+    }
+    
+    /**
+     * Whether the world's structures are recorded with the bounding box centre as origin
+     * (the Bukkit structure API) rather than the start chunk.
+     */
+    public boolean reportsCentreOrigins(World world) {
+        StructureAdapter provider = providers.get(world);
+        return provider != null && provider == bukkitApiAdapter;
+    }
+    
+    /**
+     * @return the adapter, or null if it isn't bundled or doesn't link against this server
+     */
+    private StructureAdapter loadAdapter(String className, ClassLoader loader) {
+        try {
+            return (StructureAdapter) Class.forName(className, true, loader).getDeclaredConstructor().newInstance();
+        } catch (Throwable e) {
+            plugin.getConfigManager().debug("Structure adapter " + className + " unavailable: " + e);
+            return null;
+        }
+    }
+    
+    /**
+     * Copy the nested NMS adapter jar to the data folder and open a class loader on it,
+     * with the plugin's class loader as parent (for StructureAdapter and the server classes).
+     * @return null if this build has no NMS adapters (built without -PnmsAdapters)
+     */
+    private ClassLoader nmsAdapterLoader() {
+        try (java.io.InputStream in = plugin.getResource(NMS_ADAPTERS_JAR)) {
+            if (in == null) {
+                plugin.getConfigManager().debug("No NMS adapters in this build");
+                return null;
+            }
+            java.io.File file = new java.io.File(plugin.getDataFolder(), NMS_ADAPTERS_JAR);
+            java.nio.file.Files.copy(in, file.toPath(), java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+            return new java.net.URLClassLoader(new java.net.URL[]{file.toURI().toURL()}, getClass().getClassLoader());
+        } catch (java.io.IOException e) {
+            plugin.getLogger().warning("Could not unpack the NMS adapters: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Probe the adapter and make it the world's provider if that works. A query only runs on
+     * a chunk that is already loaded - querying any other would load (or generate) it here.
+     * A LinkageError here (e.g. Spigot's obfuscated names) just leaves the world on reflection.
+     */
+    private boolean tryProvider(World world, StructureAdapter adapter) {
+        if (adapter == null) {
+            return false;
+        }
+        try {
+            adapter.probe(world);
+            Chunk[] loaded = world.getLoadedChunks();
+            if (loaded.length > 0) {
+                adapter.forEachStructureAt(world, loaded[0].getX(), loaded[0].getZ(), 
+                    (type, originChunkX, originChunkZ) -> {});
+            }
+        } catch (Throwable e) {
+            plugin.getConfigManager().debug(adapter.getName() + " failed in " + world.getName() + ": " + e);
+            return false;
+        }
+        providers.put(world, adapter);
+        plugin.getLogger().info("Structure detection in " + world.getName() + ": " + adapter.getName());
+        return true;
+    }
+    
+    /**
+     * Compare dotted version numbers, e.g. "1.21.4" > "1.21".
+     */
+    private static int compareVersions(String a, String b) {
+        String[] partsA = a.split("\\.");
+        String[] partsB = b.split("\\.");
+        for (int i = 0; i < Math.max(partsA.length, partsB.length); i++) {
+            int partA = i < partsA.length ? parseVersionPart(partsA[i]) : 0;
+            int partB = i < partsB.length ? parseVersionPart(partsB[i]) : 0;
+            if (partA != partB) {
+                return Integer.compare(partA, partB);
+            }
+        }
+        return 0;
+    }
+    
+    private static int parseVersionPart(String part) {
+        try {
+            return Integer.parseInt(part);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+    
+    /**
+     * Resolve the name of every structure in the registry up front, so detection
+     * only ever hits the name cache.
+     */
+    private void prewarmStructureNames(DetectionContext context) {
+        if (context.structureRegistry == null || !(context.structureRegistry instanceof Iterable)) {
+            return;
+        }
+        try {
+            int before = structureNames.size();
+            for (Object structure : (Iterable<?>) context.structureRegistry) {
+                if (structure != null) {
+                    getStructureNameCached(context, structure);
+                }
+            }
+            plugin.getConfigManager().debug("Structure name cache: " + structureNames.size() + " entries (" + 
+                (structureNames.size() - before) + " new)");
+        } catch (Exception e) {
+            plugin.getConfigManager().debug("Could not pre-warm structure names: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Add a captured chunk to the world's calibration sample, along with what the StructureManager
+     * query finds there. Main thread only - the chunk is loaded. Chunks that neither start nor
+     * reference a structure say nothing about either path and are left out.
+     */
+    private void sampleForCalibration(World world, DetectionContext context, int chunkX, int chunkZ, int[] snapshot) {
+        if (context.path != DetectionPath.BOTH || !context.hasMojangPath()) {
+            return;
+        }
+        CalibrationSample sample = calibrations.computeIfAbsent(world, w -> new CalibrationSample());
+        synchronized (sample) {
+            if (sample.done || (snapshot.length == 0 && !referencesAnyStructure(context, chunkX, chunkZ))) {
+                return;
+            }
+            sample.chunks.add(new int[]{chunkX, chunkZ});
+            sample.snapshots.add(snapshot);
+            sample.mojangResults.add(getStructuresViaMojang(context, chunkX, chunkZ));
+            if (sample.chunks.size() < CALIBRATION_CHUNKS) {
+                return;
+            }
+            sample.done = true;
+        }
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> calibrate(world, context, sample));
+    }
+    
+    /**
+     * Compare the sampled chunk snapshots with the StructureManager results, off the main thread.
+     * If the chunk path found everything the StructureManager did, the world drops that query.
+     * Otherwise - or if the sample held no structures at all - both paths stay on. The choice
+     * is never stored, so every startup samples again.
+     */
+    private void calibrate(World world, DetectionContext context, CalibrationSample sample) {
+        Set<String> mojangFound = new HashSet<>();
+        Set<String> chunkFound = new HashSet<>();
+        for (int i = 0; i < sample.chunks.size(); i++) {
+            int[] chunk = sample.chunks.get(i);
+            for (StructureResult result : getStructuresFromSnapshot(world, chunk[0], chunk[1], sample.snapshots.get(i))) {
+                chunkFound.add(result.structureType + "@" + result.chunkX + "," + result.chunkZ);
+            }
+            for (StructureResult result : sample.mojangResults.get(i)) {
+                mojangFound.add(result.structureType + "@" + result.chunkX + "," + result.chunkZ);
             }
-            } // End of: else if (cachedStructureRegistry == null) - registry lookup block
-            
-            // Get getKey method from registry (only if we have a registry)
-            if (cachedStructureRegistry != null) {
-                // Mojang: getKey(Object) -> ResourceLocation
-                // Spigot: usually obfuscated single letters
-                getKeyMethod = findMethod(cachedStructureRegistry.getClass(),
-                    new String[]{"getKey", "method_10221", "m_7981_", 
-                                 "b", "c", "d", "e", "f", "g", "a"},  // Spigot obfuscated
-                    Object.class);
-            
-                // If not found, search by signature: takes Object, returns ResourceLocation-like
-                if (getKeyMethod == null) {
-                    for (Method m : cachedStructureRegistry.getClass().getMethods()) {
-                        if (m.getParameterCount() == 1 && m.getParameterTypes()[0] == Object.class) {
-                            String returnTypeName = m.getReturnType().getSimpleName();
-                            // ResourceLocation on Spigot is MinecraftKey
-                            if (returnTypeName.contains("ResourceLocation") || 
-                                returnTypeName.contains("MinecraftKey") ||
-                                returnTypeName.contains("Identifier") ||
-                                returnTypeName.contains("class_")) {
-                                getKeyMethod = m;
-                                plugin.getConfigManager().debug("Found getKey via signature: " + m.getName() + 
-                                    " -> " + returnTypeName);
-                                break;
-                            }
-                        }
-                    }
-                }
-            
-                if (getKeyMethod == null) {
-                    plugin.getLogger().warning("Could not find getKey method on structure registry.");
-                    throw new NoSuchMethodException("Could not find getKey method");
-                }
-                plugin.getConfigManager().debug("Found getKey method: " + getKeyMethod.getName());
-            } // End of: if (cachedStructureRegistry != null) - getKey setup
-            
-            // Pre-cache iterator methods for LongOpenHashSet
+        }
+        
+        boolean conclusive = !mojangFound.isEmpty() || !chunkFound.isEmpty();
+        DetectionPath path = conclusive && chunkFound.containsAll(mojangFound) ? DetectionPath.CHUNK : DetectionPath.BOTH;
+        if (path != context.path) {
+            contexts.replace(world, context, new DetectionContext(context, path));
+        }
+        plugin.getConfigManager().debug("Detection path for " + world.getName() + ": " + path + " (" + 
+            mojangFound.size() + "/" + chunkFound.size() + " structures in " + sample.chunks.size() + " chunks" + 
+            (conclusive ? ")" : ", inconclusive)"));
+    }
+    
+    /**
+     * Get a world's detection context, initializing the world (on the main thread) if needed.
+     * @return null if the world could not be initialized
+     */
+    private DetectionContext context(World world) {
+        DetectionContext context = contexts.get(world);
+        if (context == null && onMainThread(() -> initReflectionCache(world))) {
+            context = contexts.get(world);
+        }
+        return context;
+    }
+    
+    /**
+     * Get a world's adapter, initializing the world if it hasn't been yet.
+     * @return null if the world uses the reflective path
+     */
+    private StructureAdapter provider(World world) {
+        StructureAdapter provider = providers.get(world);
+        if (provider == null && !contexts.containsKey(world) && initForChunkListener(world)) {
+            provider = providers.get(world);
+        }
+        return provider;
+    }
+    
+    /**
+     * Drop a world's detection context (when the world unloads).
+     */
+    public void forgetWorld(World world) {
+        contexts.remove(world);
+        providers.remove(world);
+        calibrations.remove(world);
+        noChunkPathWarned.remove(world);
+    }
+    
+    /**
+     * Direct handle for an instance method, adapted to the given type (receiver first).
+     * If the method can't be unreflected (e.g. a public method on a hidden class),
+     * the handle wraps Method.invoke instead, which is no slower than before.
+     * @return null if the method is null or doesn't fit the type
+     */
+    private MethodHandle toHandle(Method method, MethodType type) {
+        if (method == null) {
+            return null;
+        }
+        try {
+            return MethodHandles.lookup().unreflect(method).asType(type);
+        } catch (IllegalAccessException | RuntimeException e) {
             try {
-                Class<?> longOpenHashSetClass = Class.forName("it.unimi.dsi.fastutil.longs.LongOpenHashSet");
-                cachedIteratorMethod = longOpenHashSetClass.getMethod("iterator");
-                cachedLongIteratorClass = Class.forName("it.unimi.dsi.fastutil.longs.LongIterator");
-                cachedHasNextMethod = cachedLongIteratorClass.getMethod("hasNext");
-                cachedNextLongMethod = cachedLongIteratorClass.getMethod("nextLong");
-                plugin.getConfigManager().debug("Iterator methods cached successfully");
-            } catch (Exception e) {
-                plugin.getConfigManager().debug("Could not cache iterator methods: " + e.getMessage());
+                return METHOD_INVOKE.bindTo(method)
+                    .asCollector(Object[].class, method.getParameterCount())
+                    .asType(type);
+            } catch (RuntimeException e2) {
+                plugin.getConfigManager().debug("No handle for " + method.getName() + ": " + e2.getMessage());
+                return null;
+            }
+        }
+    }
+    
+    /**
+     * Direct handle for a constructor, adapted to the given type; falls back to Constructor.newInstance.
+     */
+    private MethodHandle toHandle(Constructor<?> constructor, MethodType type) {
+        if (constructor == null) {
+            return null;
+        }
+        try {
+            return MethodHandles.lookup().unreflectConstructor(constructor).asType(type);
+        } catch (IllegalAccessException | RuntimeException e) {
+            try {
+                return CONSTRUCTOR_NEW_INSTANCE.bindTo(constructor)
+                    .asCollector(Object[].class, constructor.getParameterCount())
+                    .asType(type);
+            } catch (RuntimeException e2) {
+                plugin.getConfigManager().debug("No handle for BlockPos constructor: " + e2.getMessage());
+                return null;
             }
-            
-            cachedWorld = world;
-            reflectionCacheInitialized = true;
-            
-            plugin.getConfigManager().debug("Reflection cache initialized successfully");
-            return true;
-            
-        } catch (Exception e) {
-            plugin.getLogger().warning("Failed to initialize reflection cache: " + e.getMessage());
-            reflectionCacheInitialized = false;
-            return false;
         }
     }
     
@@ -1151,11 +1852,233 @@ public class StructureFinder {
         return useFabricPath && cachedStructureRegistry == null;
     }
     
+    /**
+     * Read the world's structure sets (1.19.3+, ChunkGeneratorStructureState) and build
+     * a placement predictor for the sets that can start a structure of interest.
+     * Classes are found by simple name and members by type, so this works with Mojang
+     * and Spigot names alike. Safe to call off the main thread - it only reads
+     * placement data that is fixed once the world has loaded.
+     *
+     * @return the predictor, ALL_CHUNKS if a set of interest can't be predicted
+     *         (concentric rings, modded placements), or null if the sets can't be read
+     */
+    StructurePlacementPredictor createPlacementPredictor(World world, java.util.function.Predicate<String> ofInterest) {
+        try {
+            Object level = world.getClass().getMethod("getHandle").invoke(world);
+            Object chunkSource = fieldOfType(level, "ServerChunkCache", "ChunkProviderServer");
+            Object chunkMap = fieldOfType(chunkSource, "ChunkMap", "PlayerChunkMap");
+            Object state = fieldOfType(chunkMap, "ChunkGeneratorStructureState");
+            List<?> structureSets = (List<?>) fieldOfType(state, "List");
+            if (structureSets == null) {
+                return null;
+            }
+            
+            List<int[]> placements = new ArrayList<>();
+            Set<String> types = new HashSet<>();
+            for (Object setHolder : structureSets) {
+                Object structureSet = holderValue(setHolder);
+                List<?> entries = (List<?>) fieldOfType(structureSet, "List");
+                Object placement = fieldOfType(structureSet, "StructurePlacement", 
+                    "RandomSpreadStructurePlacement", "ConcentricRingsStructurePlacement");
+                if (entries == null || placement == null) {
+                    return null;
+                }
+                
+                boolean relevant = false;
+                for (Object entry : entries) {
+                    String name = holderName(fieldOfType(entry, "Holder", "Reference", "Direct"));
+                    if (name == null || ofInterest.test(name)) {
+                        // Unnamed structures count too - they might be anything
+                        relevant = true;
+                        if (name != null) {
+                            types.add(name);
+                        }
+                    }
+                }
+                if (!relevant) {
+                    continue;
+                }
+                
+                int[] spread = randomSpread(placement);
+                if (spread == null) {
+                    plugin.getConfigManager().debug("Placement prediction off in " + world.getName() + 
+                        ": unpredictable " + placement.getClass().getSimpleName());
+                    return StructurePlacementPredictor.ALL_CHUNKS;
+                }
+                placements.add(spread);
+            }
+            
+            int count = placements.size();
+            int[] spacing = new int[count];
+            int[] separation = new int[count];
+            int[] salt = new int[count];
+            boolean[] triangular = new boolean[count];
+            for (int i = 0; i < count; i++) {
+                int[] spread = placements.get(i);
+                spacing[i] = spread[0];
+                separation[i] = spread[1];
+                salt[i] = spread[2];
+                triangular[i] = spread[3] != 0;
+            }
+            return new StructurePlacementPredictor(world.getSeed(), spacing, separation, salt, triangular, types);
+        } catch (Exception e) {
+            plugin.getConfigManager().debug("Could not read structure sets for " + world.getName() + ": " + e);
+            return null;
+        }
+    }
+    
+    /**
+     * {spacing, separation, salt, triangular ? 1 : 0} of a RandomSpreadStructurePlacement,
+     * or null for any other placement, or if a value can't be found by name. Values are never
+     * matched by position - getDeclaredFields() has no guaranteed order, and a swapped value
+     * would rule out chunks that do hold structures. Package-private for tests.
+     */
+    static int[] randomSpread(Object placement) throws ReflectiveOperationException {
+        if (!placement.getClass().getSimpleName().equals("RandomSpreadStructurePlacement")) {
+            return null;
+        }
+        
+        // salt is declared by the StructurePlacement superclass since 1.19
+        Object spacing = namedValue(placement, "spacing");
+        Object separation = namedValue(placement, "separation");
+        Object salt = namedValue(placement, "salt");
+        Object spreadType = namedValue(placement, "spreadType");
+        if (!(spacing instanceof Integer) || !(separation instanceof Integer) || !(salt instanceof Integer) || 
+                !(spreadType instanceof Enum)) {
+            return null;
+        }
+        
+        int spacingChunks = (Integer) spacing;
+        int separationChunks = (Integer) separation;
+        if (spacingChunks <= 0 || separationChunks < 0 || separationChunks >= spacingChunks) {
+            return null;
+        }
+        // RandomSpreadType: LINEAR, TRIANGULAR
+        boolean triangular = ((Enum<?>) spreadType).name().equals("TRIANGULAR");
+        return new int[]{spacingChunks, separationChunks, (Integer) salt, triangular ? 1 : 0};
+    }
+    
+    /**
+     * Value of a record component: its accessor, else the field of that name, looked up the
+     * class hierarchy.
+     * @return null if neither exists
+     */
+    private static Object namedValue(Object owner, String name) throws ReflectiveOperationException {
+        for (Class<?> type = owner.getClass(); type != null && type != Object.class; type = type.getSuperclass()) {
+            try {
+                Method accessor = type.getDeclaredMethod(name);
+                if (!Modifier.isStatic(accessor.getModifiers())) {
+                    accessor.setAccessible(true);
+                    return accessor.invoke(owner);
+                }
+            } catch (NoSuchMethodException e) {
+                // Try the field
+            }
+            try {
+                Field field = type.getDeclaredField(name);
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    field.setAccessible(true);
+                    return field.get(owner);
+                }
+            } catch (NoSuchFieldException e) {
+                // Try the superclass
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * First non-static field (up the class hierarchy) whose type has one of the simple names.
+     */
+    private static Object fieldOfType(Object owner, String... typeNames) throws IllegalAccessException {
+        if (owner == null) {
+            return null;
+        }
+        for (Class<?> type = owner.getClass(); type != null && type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                String typeName = field.getType().getSimpleName();
+                for (String name : typeNames) {
+                    if (typeName.equals(name)) {
+                        field.setAccessible(true);
+                        return field.get(owner);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Holder.value() - the only no-argument method on Holder returning its type parameter.
+     */
+    private static Object holderValue(Object holder) throws ReflectiveOperationException {
+        Method value = holderMethod(holder, Object.class);
+        if (value == null) {
+            throw new NoSuchMethodException("Holder value in " + holder.getClass().getName());
+        }
+        return value.invoke(holder);
+    }
+    
+    /**
+     * Structure name from Holder.unwrapKey(): ResourceKey prints as
+     * "ResourceKey[minecraft:worldgen/structure / minecraft:mansion]" on every version.
+     */
+    private static String holderName(Object holder) throws ReflectiveOperationException {
+        if (holder == null) {
+            return null;
+        }
+        Method unwrapKey = holderMethod(holder, Optional.class);
+        if (unwrapKey == null) {
+            return null;
+        }
+        Optional<?> key = (Optional<?>) unwrapKey.invoke(holder);
+        if (!key.isPresent()) {
+            return null;
+        }
+        String text = key.get().toString();
+        int start = text.lastIndexOf(" / ");
+        int end = text.lastIndexOf(']');
+        return start >= 0 && end > start ? text.substring(start + 3, end).intern() : null;
+    }
+    
+    /**
+     * No-argument method with the given return type on the Holder interface.
+     */
+    private static Method holderMethod(Object holder, Class<?> returnType) {
+        for (Class<?> type = holder.getClass(); type != null; type = type.getSuperclass()) {
+            for (Class<?> iface : type.getInterfaces()) {
+                if (!iface.getSimpleName().equals("Holder")) {
+                    continue;
+                }
+                for (Method method : iface.getMethods()) {
+                    if (method.getParameterCount() == 0 && method.getReturnType() == returnType && 
+                        !Modifier.isStatic(method.getModifiers())) {
+                        return method;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+    
     /**
      * Get detection path info for diagnostics.
      */
     public String getDetectionPathInfo() {
         StringBuilder sb = new StringBuilder();
+        Set<String> providerNames = new TreeSet<>();
+        for (StructureAdapter provider : providers.values()) {
+            providerNames.add(provider.getName());
+        }
+        if (!providerNames.isEmpty()) {
+            sb.append("Adapter: ").append(String.join(", ", providerNames)).append(" | Fallback: ");
+            if (contexts.isEmpty()) {
+                return sb.append("reflection (not initialized)").toString();
+            }
+        }
         sb.append(useFabricPath ? "Chunk-based (Fabric)" : "Mojang (StructureManager)");
         if (getAllStructuresAtMethod != null) {
             sb.append(" | getAllStructuresAt: ").append(getAllStructuresAtMethod.getName());
@@ -1179,17 +2102,14 @@ public class StructureFinder {
         List<String> output = new ArrayList<>();
         
         try {
-            if (!reflectionCacheInitialized) {
-                initReflectionCache(world);
-            }
-            
-            if (getChunkMethod == null || cachedServerLevel == null) {
+            DetectionContext context = context(world);
+            if (getChunkMethod == null || context == null) {
                 output.add("§cCannot get chunk - not initialized");
                 return output;
             }
             
             // Get a chunk that likely has structures (spawn area)
-            Object chunk = getChunkMethod.invoke(cachedServerLevel, 0, 0);
+            Object chunk = getChunkMethod.invoke(context.serverLevel, 0, 0);
             if (chunk == null) {
                 output.add("§cChunk is null");
                 return output;
@@ -1232,21 +2152,25 @@ public class StructureFinder {
         output.add("§7Detection path: " + getDetectionPathInfo());
         
         try {
-            // Initialize if needed (or reinitialize for different world)
-            if (!reflectionCacheInitialized || cachedWorld != world) {
+            // Initialize if needed
+            if (!contexts.containsKey(world)) {
                 output.add("§eInitializing reflection cache for " + world.getName() + "...");
-                initReflectionCache(world);
+            }
+            DetectionContext context = context(world);
+            if (context == null) {
+                output.add("§cCould not initialize detection for " + world.getName());
+                return output;
             }
             
             // Try Mojang path
-            if (getAllStructuresAtMethod != null && cachedStructureManager != null) {
+            if (getAllStructuresAtMethod != null && context.structureManager != null) {
                 output.add("§7Trying Mojang path...");
                 try {
                     int blockX = chunkX * 16 + 8;
                     int blockZ = chunkZ * 16 + 8;
                     Object blockPos = blockPosConstructor.newInstance(blockX, 64, blockZ);
                     
-                    Object structureMapObj = getAllStructuresAtMethod.invoke(cachedStructureManager, blockPos);
+                    Object structureMapObj = getAllStructuresAtMethod.invoke(context.structureManager, blockPos);
                     
                     if (structureMapObj == null) {
                         output.add("§c  getAllStructuresAt returned null");
@@ -1257,7 +2181,7 @@ public class StructureFinder {
                         for (Map.Entry<?, ?> entry : structureMap.entrySet()) {
                             Object structure = entry.getKey();
                             Object chunkRefs = entry.getValue();
-                            String name = getStructureNameCached(structure);
+                            String name = getStructureNameCached(context, structure);
                             String refsInfo = chunkRefs != null ? chunkRefs.getClass().getSimpleName() : "null";
                             output.add("§7    " + name + " §8(" + refsInfo + ")");
                         }
@@ -1269,14 +2193,14 @@ public class StructureFinder {
                 }
             } else {
                 output.add("§7Mojang path not available (getAllStructuresAt=" + 
-                    (getAllStructuresAtMethod != null) + ", structureManager=" + (cachedStructureManager != null) + ")");
+                    (getAllStructuresAtMethod != null) + ", structureManager=" + (context.structureManager != null) + ")");
             }
             
             // Try Chunk path
             if (getChunkMethod != null && chunkGetStructureStartsMethod != null) {
                 output.add("§7Trying Chunk path...");
                 try {
-                    Object chunk = getChunkMethod.invoke(cachedServerLevel, chunkX, chunkZ);
+                    Object chunk = getChunkMethod.invoke(context.serverLevel, chunkX, chunkZ);
                     if (chunk == null) {
                         output.add("§c  getChunk returned null");
                     } else {
@@ -1290,7 +2214,7 @@ public class StructureFinder {
                             for (Map.Entry<?, ?> entry : startsMap.entrySet()) {
                                 Object structure = entry.getKey();
                                 Object start = entry.getValue();
-                                String name = getStructureNameCached(structure);
+                                String name = getStructureNameCached(context, structure);
                                 String startInfo = start != null ? start.getClass().getSimpleName() : "null";
                                 output.add("§7    " + name + " §8(" + startInfo + ")");
                             }
@@ -1339,14 +2263,10 @@ public class StructureFinder {
         try {
             World world = Bukkit.getWorlds().get(0);
             
-            // Use cached registry if available
-            if (reflectionCacheInitialized && cachedStructureRegistry != null) {
-                structures = extractStructureNamesFromRegistry(cachedStructureRegistry);
-            } else {
-                // Initialize cache or use fresh reflection
-                if (initReflectionCache(world) && cachedStructureRegistry != null) {
-                    structures = extractStructureNamesFromRegistry(cachedStructureRegistry);
-                }
+            // The registry is the same for every world - use the first world's context
+            DetectionContext context = context(world);
+            if (context != null && context.structureRegistry != null) {
+                structures = extractStructureNamesFromRegistry(context.structureRegistry);
             }
             
             Collections.sort(structures);
@@ -1532,14 +2452,16 @@ public class StructureFinder {
         scanInProgress = true;
         
         // Build list of chunks to scan, filtering out already-scanned chunks
+        // Shared with on-demand detection - only read from the database the first time
         List<int[]> allChunks = buildChunkList(radiusBlocks);
-        Set<Long> alreadyScanned = plugin.getDatabase().getScannedChunks(world.getName());
+        ScannedChunkIndex scannedIndex = plugin.getScannedChunkIndex();
+        int radiusChunks = (radiusBlocks / 16) + 1;
+        scannedIndex.loadRange(world.getName(), -radiusChunks, -radiusChunks, radiusChunks, radiusChunks);
         
         List<int[]> chunksToScan = new ArrayList<>();
         int skippedCount = 0;
         for (int[] chunk : allChunks) {
-            long packed = ((long) chunk[0] & 0xFFFFFFFFL) | (((long) chunk[1]) << 32);
-            if (!alreadyScanned.contains(packed)) {
+            if (!scannedIndex.isScanned(world.getName(), chunk[0], chunk[1])) {
                 chunksToScan.add(chunk);
             } else {
                 skippedCount++;
@@ -1660,7 +2582,8 @@ public class StructureFinder {
         final int chunksPerBatch = plugin.getConfigManager().getScanChunksPerTick();
         
         // Initialize reflection cache on main thread first
-        if (!initReflectionCache(state.world)) {
+        DetectionContext context = context(state.world);
+        if (context == null) {
             if (state.sender != null) {
                 state.sender.sendMessage("§cFailed to initialize structure scanner.");
             }
@@ -1676,7 +2599,7 @@ public class StructureFinder {
                 int totalStructuresFound = 0;
                 
                 // Log which path we're using at the start
-                plugin.getConfigManager().debug("Starting async scan using " + (useFabricPath ? "Chunk-based" : "Mojang") + " path");
+                plugin.getConfigManager().debug("Starting async scan using " + (context.useFabricPath ? "Chunk-based" : "Mojang") + " path");
                 plugin.getConfigManager().debug("Total chunks to scan: " + state.chunks.size());
                 
                 while (state.currentIndex < state.chunks.size() && scanInProgress) {
@@ -1690,7 +2613,7 @@ public class StructureFinder {
                         
                         // Get structures in this chunk (uses cached reflection)
                         // Returns structures at their ORIGIN position for proper deduplication
-                        List<StructureResult> chunkStructures = getStructuresInChunkAsync(chunkX, chunkZ);
+                        List<StructureResult> chunkStructures = getStructuresInChunkAsync(context, chunkX, chunkZ, false);
                         
                         // Debug first few chunks to verify scanning works
                         if (i < 5 || chunkStructures.size() > 0) {
@@ -1762,6 +2685,9 @@ public class StructureFinder {
                     
                     // Mark all chunks as scanned so they're skipped next time
                     plugin.getDatabase().markChunksScanned(state.world.getName(), state.chunks);
+                    for (int[] chunk : state.chunks) {
+                        plugin.getScannedChunkIndex().markScanned(state.world.getName(), chunk[0], chunk[1]);
+                    }
                     plugin.getLogger().info("Marked " + state.chunks.size() + " chunks as scanned");
                     
                     // Finish on main thread (just the message/cleanup)
@@ -1795,32 +2721,42 @@ public class StructureFinder {
      * Only returns structures where this chunk IS the origin chunk (for proper 1:1 mapping)
      * Supports both Mojang (StructureManager) and Fabric (Chunk.getStructureStarts) paths
      */
-    private List<StructureResult> getStructuresInChunkAsync(int chunkX, int chunkZ) {
+    private List<StructureResult> getStructuresInChunkAsync(DetectionContext context, int chunkX, int chunkZ, 
+                                                            boolean chunkLoaded) {
         List<StructureResult> results = new ArrayList<>();
         
         // Debug logging removed to prevent lag - use /sg debug for one-time diagnostics
         
+        // Most chunks have no structures at all - answer those without a detection query.
+        // Pointless on the chunk path, which reads the same starts map anyway. Only done for
+        // chunks known to be loaded: fetching the chunk otherwise could load it
+        if (chunkLoaded && context.path != DetectionPath.CHUNK && !referencesAnyStructure(context, chunkX, chunkZ)) {
+            return results;
+        }
+        
         try {
-            if (useFabricPath) {
+            if (context.path == DetectionPath.CHUNK) {
+                results = getStructuresViaChunkFabric(context, chunkX, chunkZ);
+            } else if (context.useFabricPath) {
                 // Chunk-based path: use Chunk.getStructureStarts/getAllStarts()
-                results = getStructuresViaChunkFabric(chunkX, chunkZ);
+                results = getStructuresViaChunkFabric(context, chunkX, chunkZ);
             } else {
                 // Mojang path: use StructureManager.getAllStructuresAt()
-                results = getStructuresViaMojang(chunkX, chunkZ);
+                results = getStructuresViaMojang(context, chunkX, chunkZ);
                 
                 // If Mojang path returns nothing but we have the chunk method, try chunk path as fallback
-                if (results.isEmpty() && getChunkMethod != null && chunkGetStructureStartsMethod != null) {
-                    results = getStructuresViaChunkFabric(chunkX, chunkZ);
+                if (results.isEmpty() && context.hasChunkPath()) {
+                    results = getStructuresViaChunkFabric(context, chunkX, chunkZ);
                 }
             }
         } catch (Exception e) {
             // If one path fails, try the other
             plugin.getConfigManager().debug("Primary path failed for chunk " + chunkX + "," + chunkZ + ": " + e.getMessage());
             try {
-                if (useFabricPath && getAllStructuresAtMethod != null) {
-                    results = getStructuresViaMojang(chunkX, chunkZ);
-                } else if (!useFabricPath && chunkGetStructureStartsMethod != null) {
-                    results = getStructuresViaChunkFabric(chunkX, chunkZ);
+                if (context.useFabricPath && context.hasMojangPath()) {
+                    results = getStructuresViaMojang(context, chunkX, chunkZ);
+                } else if (!context.useFabricPath && context.hasChunkPath()) {
+                    results = getStructuresViaChunkFabric(context, chunkX, chunkZ);
                 }
             } catch (Exception e2) {
                 plugin.getConfigManager().debug("Fallback path also failed: " + e2.getMessage());
@@ -1830,18 +2766,47 @@ public class StructureFinder {
         return results;
     }
     
+    /**
+     * Cheap emptiness check on the chunk's own maps - no structure lookups, nothing copied.
+     * @return false only if the chunk neither references nor starts any structure; true when unsure
+     */
+    private boolean referencesAnyStructure(DetectionContext context, int chunkX, int chunkZ) {
+        if (!context.hasChunkPath()) {
+            return true;
+        }
+        try {
+            Object chunk = (Object) context.getChunk.invokeExact(context.serverLevel, chunkX, chunkZ);
+            if (chunk == null) {
+                return true;
+            }
+            MethodHandle[] accessors = chunkReferenceAccessors.get(chunk.getClass());
+            if (accessors.length == 0) {
+                return true;
+            }
+            Object references = (Object) accessors[0].invokeExact(chunk);
+            if (!(references instanceof Map) || !((Map<?, ?>) references).isEmpty()) {
+                return true;
+            }
+            // Some mods only record starts, without references
+            Object starts = (Object) context.structureStarts.invokeExact(chunk);
+            return !(starts instanceof Map) || !((Map<?, ?>) starts).isEmpty();
+        } catch (Throwable e) {
+            return true;
+        }
+    }
+    
     /**
      * Mojang path: Get structures via StructureManager.getAllStructuresAt()
      */
-    private List<StructureResult> getStructuresViaMojang(int chunkX, int chunkZ) {
+    private List<StructureResult> getStructuresViaMojang(DetectionContext context, int chunkX, int chunkZ) {
         List<StructureResult> results = new ArrayList<>();
         
         try {
             int blockX = chunkX * 16 + 8;
             int blockZ = chunkZ * 16 + 8;
-            Object blockPos = blockPosConstructor.newInstance(blockX, 64, blockZ);
+            Object blockPos = (Object) context.blockPosFactory.invokeExact(blockX, 64, blockZ);
             
-            Object structureMapObj = getAllStructuresAtMethod.invoke(cachedStructureManager, blockPos);
+            Object structureMapObj = (Object) context.getAllStructuresAt.invokeExact(context.structureManager, blockPos);
             
             if (structureMapObj != null && structureMapObj instanceof Map) {
                 Map<?, ?> structureMap = (Map<?, ?>) structureMapObj;
@@ -1850,7 +2815,7 @@ public class StructureFinder {
                     Object structure = entry.getKey();
                     Object chunkReferences = entry.getValue(); // LongOpenHashSet containing origin chunk
                     
-                    String structureName = getStructureNameCached(structure);
+                    String structureName = getStructureNameCached(context, structure);
                     
                     // Skip ignored structures
                     if (structureName == null || plugin.getConfigManager().isStructureIgnored(structureName)) {
@@ -1862,18 +2827,18 @@ public class StructureFinder {
                     int originChunkZ = chunkZ;
                     
                     try {
-                        if (chunkReferences != null && cachedIteratorMethod != null) {
-                            Object iterator = cachedIteratorMethod.invoke(chunkReferences);
+                        if (chunkReferences != null && context.iterator != null) {
+                            Object iterator = (Object) context.iterator.invokeExact(chunkReferences);
                             
-                            if ((boolean) cachedHasNextMethod.invoke(iterator)) {
-                                long packedPos = (long) cachedNextLongMethod.invoke(iterator);
+                            if ((boolean) context.hasNext.invokeExact(iterator)) {
+                                long packedPos = (long) context.nextLong.invokeExact(iterator);
                                 
                                 // Decode packed ChunkPos (x in lower 32 bits, z in upper 32 bits)
                                 originChunkX = (int) packedPos;
                                 originChunkZ = (int) (packedPos >> 32);
                             }
                         }
-                    } catch (Exception e) {
+                    } catch (Throwable e) {
                         // Keep using query chunk as fallback
                     }
                     
@@ -1885,7 +2850,7 @@ public class StructureFinder {
                     }
                 }
             }
-        } catch (Exception e) {
+        } catch (Throwable e) {
             // Silent fail
         }
         
@@ -1896,19 +2861,19 @@ public class StructureFinder {
      * Fabric path: Get structures via Chunk.getStructureStarts()
      * Returns Map<Structure, StructureStart>
      */
-    private List<StructureResult> getStructuresViaChunkFabric(int chunkX, int chunkZ) {
+    private List<StructureResult> getStructuresViaChunkFabric(DetectionContext context, int chunkX, int chunkZ) {
         List<StructureResult> results = new ArrayList<>();
         
         try {
             // Get chunk from ServerWorld
-            Object chunk = getChunkMethod.invoke(cachedServerLevel, chunkX, chunkZ);
+            Object chunk = (Object) context.getChunk.invokeExact(context.serverLevel, chunkX, chunkZ);
             if (chunk == null) {
                 plugin.getConfigManager().debug("getStructuresViaChunkFabric: chunk is null for " + chunkX + "," + chunkZ);
                 return results;
             }
             
             // Get structure starts map
-            Object structureStartsObj = chunkGetStructureStartsMethod.invoke(chunk);
+            Object structureStartsObj = (Object) context.structureStarts.invokeExact(chunk);
             if (structureStartsObj == null) {
                 plugin.getConfigManager().debug("getStructuresViaChunkFabric: structureStarts is null");
                 return results;
@@ -1932,7 +2897,7 @@ public class StructureFinder {
                 
                 if (structureStart == null) continue;
                 
-                String structureName = getStructureNameCached(structure);
+                String structureName = getStructureNameCached(context, structure);
                 plugin.getConfigManager().debug("  Structure name: " + structureName);
                 
                 // Skip ignored structures
@@ -1946,32 +2911,13 @@ public class StructureFinder {
                 int originChunkZ = chunkZ;
                 
                 try {
-                    // Try to get ChunkPos from StructureStart
-                    Method getChunkPosMethod = findMethodByNames(structureStart.getClass(),
-                        "getChunkPos", "method_14963", "getPos");
-                    if (getChunkPosMethod != null) {
-                        Object chunkPos = getChunkPosMethod.invoke(structureStart);
-                        if (chunkPos != null) {
-                            Method getXMethod = findMethodByNames(chunkPos.getClass(), "x", "method_8324", "getX");
-                            Method getZMethod = findMethodByNames(chunkPos.getClass(), "z", "method_8326", "getZ");
-                            
-                            if (getXMethod != null && getZMethod != null) {
-                                originChunkX = (int) getXMethod.invoke(chunkPos);
-                                originChunkZ = (int) getZMethod.invoke(chunkPos);
-                            } else {
-                                // Try fields
-                                try {
-                                    java.lang.reflect.Field xField = chunkPos.getClass().getField("x");
-                                    java.lang.reflect.Field zField = chunkPos.getClass().getField("z");
-                                    originChunkX = xField.getInt(chunkPos);
-                                    originChunkZ = zField.getInt(chunkPos);
-                                } catch (Exception e2) {
-                                    // Use current chunk
-                                }
-                            }
-                        }
+                    // ChunkPos stored in the StructureStart, via accessors cached per class
+                    long origin = getOriginChunk(structureStart);
+                    if (origin != NO_ORIGIN) {
+                        originChunkX = (int) origin;
+                        originChunkZ = (int) (origin >> 32);
                     }
-                } catch (Exception e) {
+                } catch (Throwable e) {
                     // Keep using current chunk coords
                 }
                 
@@ -1986,7 +2932,7 @@ public class StructureFinder {
                         " != query chunk " + chunkX + "," + chunkZ);
                 }
             }
-        } catch (Exception e) {
+        } catch (Throwable e) {
             plugin.getConfigManager().debug("getStructuresViaChunkFabric error: " + e.getMessage());
             e.printStackTrace();
         }
@@ -1995,13 +2941,54 @@ public class StructureFinder {
     }
     
     /**
-     * Get structure name using cached registry (fast path)
+     * Origin chunk of a StructureStart, packed as x | (z << 32), or NO_ORIGIN if it can't be read.
+     */
+    private long getOriginChunk(Object structureStart) throws Throwable {
+        MethodHandle[] startAccessors = structureStartAccessors.get(structureStart.getClass());
+        if (startAccessors.length == 0) {
+            return NO_ORIGIN;
+        }
+        Object chunkPos = (Object) startAccessors[0].invokeExact(structureStart);
+        if (chunkPos == null) {
+            return NO_ORIGIN;
+        }
+        MethodHandle[] coords = chunkPosAccessors.get(chunkPos.getClass());
+        if (coords.length == 0) {
+            return NO_ORIGIN;
+        }
+        int x = (int) coords[0].invokeExact(chunkPos);
+        int z = (int) coords[1].invokeExact(chunkPos);
+        return ((long) x & 0xFFFFFFFFL) | ((long) z << 32);
+    }
+    
+    /**
+     * Get a structure's name - one identity lookup once the structure has been seen.
+     */
+    private String getStructureNameCached(DetectionContext context, Object structure) {
+        String name = structureNames.get(structure);
+        if (name == null) {
+            name = resolveStructureName(context, structure).intern();
+            cacheStructureName(structure, name);
+        }
+        return name;
+    }
+    
+    private synchronized void cacheStructureName(Object structure, String name) {
+        if (!structureNames.containsKey(structure)) {
+            Map<Object, String> updated = new IdentityHashMap<>(structureNames);
+            updated.put(structure, name);
+            structureNames = updated;
+        }
+    }
+    
+    /**
+     * Work out a structure's name: registry key, then type/Holder key, then toString, then class name.
      */
-    private String getStructureNameCached(Object structure) {
+    private String resolveStructureName(DetectionContext context, Object structure) {
         // Try registry lookup first (works on modern versions with full registry access)
-        if (getKeyMethod != null && cachedStructureRegistry != null) {
+        if (context.getKey != null && context.structureRegistry != null) {
             try {
-                Object resourceLocation = getKeyMethod.invoke(cachedStructureRegistry, structure);
+                Object resourceLocation = (Object) context.getKey.invokeExact(context.structureRegistry, structure);
                 if (resourceLocation != null) {
                     // Use proper extraction to handle both Mojang and Fabric ResourceLocations
                     String name = extractResourceLocationName(resourceLocation);
@@ -2009,7 +2996,7 @@ public class StructureFinder {
                         return name;
                     }
                 }
-            } catch (Exception e) {
+            } catch (Throwable e) {
                 // Try alternative approaches
             }
         }
@@ -2062,7 +3049,7 @@ public class StructureFinder {
                 Object innerStructure = valueMethod.invoke(structure);
                 if (innerStructure != null && innerStructure != structure) {
                     // Recursively try to get name from the inner structure
-                    String name = getStructureNameCached(innerStructure);
+                    String name = getStructureNameCached(context, innerStructure);
                     if (name != null && name.contains(":") && name.length() > 5) {
                         return name;
                     }
@@ -2078,8 +3065,7 @@ public class StructureFinder {
             // Look for patterns like "minecraft:village" or "namespace:structure_name"
             if (structStr.contains(":")) {
                 // Extract resource location pattern
-                java.util.regex.Matcher matcher = java.util.regex.Pattern.compile(
-                    "([a-z0-9_.-]+:[a-z0-9_/.-]+)").matcher(structStr);
+                java.util.regex.Matcher matcher = RESOURCE_LOCATION_PATTERN.matcher(structStr);
                 if (matcher.find()) {
                     String found = matcher.group(1);
                     // Prefer paths with worldgen/structure or just structure names
@@ -2176,20 +3162,27 @@ public class StructureFinder {
      * @return true if initialization succeeded
      */
     public boolean initForChunkListener(World world) {
-        if (reflectionCacheInitialized && cachedWorld == world) {
+        if (contexts.containsKey(world) || providers.containsKey(world)) {
             return true;
         }
-        
+        // An adapter spares the world reflective discovery; reflection is set up later only if it fails
+        return onMainThread(() -> selectProvider(world) || initReflectionCache(world));
+    }
+    
+    /**
+     * Run a world initialization step on the main thread, waiting for it if called from a worker.
+     */
+    private boolean onMainThread(java.util.concurrent.Callable<Boolean> init) {
         try {
             // Run initialization on the main thread if needed
             if (Bukkit.isPrimaryThread()) {
-                return initReflectionCache(world);
+                return init.call();
             } else {
                 // Schedule on main thread and wait
                 CompletableFuture<Boolean> future = new CompletableFuture<>();
                 Bukkit.getScheduler().runTask(plugin, () -> {
                     try {
-                        future.complete(initReflectionCache(world));
+                        future.complete(init.call());
                     } catch (Exception e) {
                         plugin.getLogger().warning("Failed to init reflection cache: " + e.getMessage());
                         future.complete(false);
@@ -2204,11 +3197,145 @@ public class StructureFinder {
     }
     
     /**
-     * Check if reflection cache is initialized and ready for chunk queries.
+     * Check if structure detection is initialized and ready for chunk queries.
      * @return true if ready to process chunks
      */
     public boolean isReady() {
-        return reflectionCacheInitialized;
+        return !contexts.isEmpty() || !providers.isEmpty();
+    }
+    
+    /**
+     * Copy the structure starts stored in a loaded chunk into a primitive snapshot, so
+     * detection can run off the main thread without touching the chunk or the level.
+     * Main thread only - the chunk must be loaded.
+     * 
+     * @return {structureId, originChunkX, originChunkZ} per start, or null if the chunk's starts
+     *         can't be read directly (a full reference query is too slow to run here)
+     */
+    public int[] captureStructureStarts(World world, int chunkX, int chunkZ) {
+        // Initializes the world the first time
+        StructureAdapter provider = provider(world);
+        if (provider != null) {
+            int[] snapshot = captureViaAdapter(provider, world, chunkX, chunkZ);
+            if (snapshot != null) {
+                return snapshot;
+            }
+        }
+        
+        // A failing adapter hands the world to reflection, as getStructuresInChunk does
+        DetectionContext context = provider != null ? context(world) : contexts.get(world);
+        if (context != null && context.hasChunkPath()) {
+            int[] snapshot = captureViaChunk(context, chunkX, chunkZ);
+            if (snapshot != null) {
+                sampleForCalibration(world, context, chunkX, chunkZ, snapshot);
+                return snapshot;
+            }
+        } else if (context != null && noChunkPathWarned.add(world)) {
+            plugin.getLogger().warning("Chunk structure starts can't be read in " + world.getName() + 
+                " - structures there are not detected on chunk load");
+        }
+        return null;
+    }
+    
+    /**
+     * Chunk path version of the capture - reads the chunk's own starts map.
+     * @return null if the chunk couldn't be read
+     */
+    private int[] captureViaChunk(DetectionContext context, int chunkX, int chunkZ) {
+        try {
+            Object chunk = (Object) context.getChunk.invokeExact(context.serverLevel, chunkX, chunkZ);
+            Object starts = chunk == null ? null : (Object) context.structureStarts.invokeExact(chunk);
+            if (!(starts instanceof Map)) {
+                return null;
+            }
+            
+            Map<?, ?> startMap = (Map<?, ?>) starts;
+            if (startMap.isEmpty()) {
+                return NO_STARTS;
+            }
+            int[] snapshot = new int[startMap.size() * 3];
+            int size = 0;
+            for (Map.Entry<?, ?> entry : startMap.entrySet()) {
+                if (entry.getKey() == null || entry.getValue() == null) continue;
+                long origin = getOriginChunk(entry.getValue());
+                snapshot[size++] = structureId(entry.getKey());
+                snapshot[size++] = origin != NO_ORIGIN ? (int) origin : chunkX;
+                snapshot[size++] = origin != NO_ORIGIN ? (int) (origin >> 32) : chunkZ;
+            }
+            return size == snapshot.length ? snapshot : Arrays.copyOf(snapshot, size);
+        } catch (Throwable e) {
+            plugin.getConfigManager().debug("Could not capture structure starts for chunk " + 
+                chunkX + "," + chunkZ + ": " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Adapter version of the capture - reads the chunk's own starts. Adapters report names
+     * rather than structure objects, so the names themselves get the ids.
+     */
+    private int[] captureViaAdapter(StructureAdapter provider, World world, int chunkX, int chunkZ) {
+        int[][] snapshot = {NO_STARTS};
+        try {
+            provider.forEachStartIn(world, chunkX, chunkZ, (type, originChunkX, originChunkZ) -> {
+                int size = snapshot[0].length;
+                int[] grown = Arrays.copyOf(snapshot[0], size + 3);
+                grown[size] = structureId(type.intern());
+                grown[size + 1] = originChunkX;
+                grown[size + 2] = originChunkZ;
+                snapshot[0] = grown;
+            });
+            return snapshot[0];
+        } catch (Throwable e) {
+            plugin.getConfigManager().debug("Could not capture structures for chunk " + 
+                chunkX + "," + chunkZ + ": " + e.getMessage());
+            return null;
+        }
+    }
+    
+    private synchronized int structureId(Object structure) {
+        Integer id = structureIds.get(structure);
+        if (id == null) {
+            Object[] byId = structuresById;
+            id = byId.length;
+            Object[] grown = Arrays.copyOf(byId, id + 1);
+            grown[id] = structure;
+            structuresById = grown;
+            structureIds.put(structure, id);
+        }
+        return id;
+    }
+    
+    /**
+     * Structure origins in a chunk, from a snapshot taken by captureStructureStarts.
+     * Same results as getStructuresInChunk, but only names and filters - no chunk access.
+     * Thread-safe.
+     */
+    public List<StructureResult> getStructuresFromSnapshot(World world, int chunkX, int chunkZ, int[] snapshot) {
+        if (snapshot.length == 0) {
+            return Collections.emptyList();
+        }
+        DetectionContext context = contexts.get(world);
+        
+        Object[] byId = structuresById;
+        List<StructureResult> results = new ArrayList<>(snapshot.length / 3);
+        for (int i = 0; i < snapshot.length; i += 3) {
+            int originChunkX = snapshot[i + 1];
+            int originChunkZ = snapshot[i + 2];
+            // Only the origin chunk records a structure - same rule as the live paths
+            if (originChunkX != chunkX || originChunkZ != chunkZ) continue;
+            
+            // Adapter snapshots hold names, reflective ones hold structure objects
+            Object structure = byId[snapshot[i]];
+            String structureName = structure instanceof String ? (String) structure 
+                : context != null ? getStructureNameCached(context, structure) : null;
+            if (structureName == null || plugin.getConfigManager().isStructureIgnored(structureName)) {
+                continue;
+            }
+            results.add(new StructureResult(structureName, originChunkX * 16 + 8, originChunkZ * 16 + 8, 
+                originChunkX, originChunkZ));
+        }
+        return results;
     }
     
     /**
@@ -2222,15 +3349,46 @@ public class StructureFinder {
      * @return List of structures that have their origin in this chunk
      */
     public List<StructureResult> getStructuresInChunk(World world, int chunkX, int chunkZ) {
-        if (!reflectionCacheInitialized || cachedWorld != world) {
-            // Try to initialize (or reinitialize for different world)
-            if (!initReflectionCache(world)) {
-                return Collections.emptyList();
+        // Each world is initialized once; after that these are map lookups
+        StructureAdapter provider = provider(world);
+        if (provider != null) {
+            List<StructureResult> results = getStructuresViaAdapter(provider, world, chunkX, chunkZ, true);
+            if (results != null) {
+                return results;
             }
         }
         
-        // Use the async-safe method
-        return getStructuresInChunkAsync(chunkX, chunkZ);
+        // Reflective path - also the fallback when an adapter fails
+        DetectionContext context = context(world);
+        if (context == null) {
+            return Collections.emptyList();
+        }
+        return getStructuresInChunkAsync(context, chunkX, chunkZ, 
+            Bukkit.isPrimaryThread() && world.isChunkLoaded(chunkX, chunkZ));
+    }
+    
+    /**
+     * Compiled adapter path.
+     * @param originsOnly only keep structures whose origin is this chunk, skipping ignored types
+     * @return null if the adapter failed and the reflective path should be used
+     */
+    private List<StructureResult> getStructuresViaAdapter(StructureAdapter direct, World world, 
+                                                          int chunkX, int chunkZ, boolean originsOnly) {
+        List<StructureResult> results = new ArrayList<>();
+        try {
+            direct.forEachStructureAt(world, chunkX, chunkZ, (type, originChunkX, originChunkZ) -> {
+                if (originsOnly && (originChunkX != chunkX || originChunkZ != chunkZ || 
+                                    plugin.getConfigManager().isStructureIgnored(type))) {
+                    return;
+                }
+                results.add(new StructureResult(type, originChunkX * 16 + 8, originChunkZ * 16 + 8, 
+                    originChunkX, originChunkZ));
+            });
+            return results;
+        } catch (Throwable e) {
+            plugin.getConfigManager().debug("Structure adapter failed for chunk " + chunkX + "," + chunkZ + ": " + e);
+            return null;
+        }
     }
     
     /**
@@ -2244,23 +3402,30 @@ public class StructureFinder {
      * @return List of structures present in this chunk (may not be origin)
      */
     public List<StructureResult> getStructuresSpanningChunk(World world, int chunkX, int chunkZ) {
-        if (!reflectionCacheInitialized || cachedWorld != world) {
-            if (!initReflectionCache(world)) {
-                return Collections.emptyList();
+        StructureAdapter provider = provider(world);
+        if (provider != null) {
+            List<StructureResult> adapterResults = getStructuresViaAdapter(provider, world, chunkX, chunkZ, false);
+            if (adapterResults != null) {
+                return adapterResults;
             }
         }
         
+        DetectionContext context = context(world);
+        if (context == null) {
+            return Collections.emptyList();
+        }
+        
         List<StructureResult> results = new ArrayList<>();
         
         try {
-            if (useFabricPath) {
-                results = getStructuresSpanningChunkFabric(chunkX, chunkZ);
+            if (context.useFabricPath) {
+                results = getStructuresSpanningChunkFabric(context, chunkX, chunkZ);
             } else {
-                results = getStructuresSpanningChunkMojang(chunkX, chunkZ);
+                results = getStructuresSpanningChunkMojang(context, chunkX, chunkZ);
                 
                 // Fallback to chunk path if Mojang returns nothing
-                if (results.isEmpty() && getChunkMethod != null && chunkGetStructureStartsMethod != null) {
-                    results = getStructuresSpanningChunkFabric(chunkX, chunkZ);
+                if (results.isEmpty() && context.hasChunkPath()) {
+                    results = getStructuresSpanningChunkFabric(context, chunkX, chunkZ);
                 }
             }
         } catch (Exception e) {
@@ -2273,15 +3438,15 @@ public class StructureFinder {
     /**
      * Mojang path: Get ALL structures at a position (not filtered by origin).
      */
-    private List<StructureResult> getStructuresSpanningChunkMojang(int chunkX, int chunkZ) {
+    private List<StructureResult> getStructuresSpanningChunkMojang(DetectionContext context, int chunkX, int chunkZ) {
         List<StructureResult> results = new ArrayList<>();
         
         try {
             int blockX = chunkX * 16 + 8;
             int blockZ = chunkZ * 16 + 8;
-            Object blockPos = blockPosConstructor.newInstance(blockX, 64, blockZ);
+            Object blockPos = (Object) context.blockPosFactory.invokeExact(blockX, 64, blockZ);
             
-            Object structureMapObj = getAllStructuresAtMethod.invoke(cachedStructureManager, blockPos);
+            Object structureMapObj = (Object) context.getAllStructuresAt.invokeExact(context.structureManager, blockPos);
             
             if (structureMapObj != null && structureMapObj instanceof Map) {
                 Map<?, ?> structureMap = (Map<?, ?>) structureMapObj;
@@ -2290,7 +3455,7 @@ public class StructureFinder {
                     Object structure = entry.getKey();
                     Object chunkReferences = entry.getValue();
                     
-                    String structureName = getStructureNameCached(structure);
+                    String structureName = getStructureNameCached(context, structure);
                     if (structureName == null) continue;
                     
                     // Get origin for display purposes, but don't filter
@@ -2298,15 +3463,15 @@ public class StructureFinder {
                     int originChunkZ = chunkZ;
                     
                     try {
-                        if (chunkReferences != null && cachedIteratorMethod != null) {
-                            Object iterator = cachedIteratorMethod.invoke(chunkReferences);
-                            if ((boolean) cachedHasNextMethod.invoke(iterator)) {
-                                long packedPos = (long) cachedNextLongMethod.invoke(iterator);
+                        if (chunkReferences != null && context.iterator != null) {
+                            Object iterator = (Object) context.iterator.invokeExact(chunkReferences);
+                            if ((boolean) context.hasNext.invokeExact(iterator)) {
+                                long packedPos = (long) context.nextLong.invokeExact(iterator);
                                 originChunkX = (int) packedPos;
                                 originChunkZ = (int) (packedPos >> 32);
                             }
                         }
-                    } catch (Exception e) {
+                    } catch (Throwable e) {
                         // Keep query chunk as fallback
                     }
                     
@@ -2316,7 +3481,7 @@ public class StructureFinder {
                     results.add(new StructureResult(structureName, originX, originZ, originChunkX, originChunkZ));
                 }
             }
-        } catch (Exception e) {
+        } catch (Throwable e) {
             plugin.getConfigManager().debug("getStructuresSpanningChunkMojang error: " + e.getMessage());
         }
         
@@ -2326,14 +3491,14 @@ public class StructureFinder {
     /**
      * Chunk/Fabric path: Get ALL structures in chunk (not filtered by origin).
      */
-    private List<StructureResult> getStructuresSpanningChunkFabric(int chunkX, int chunkZ) {
+    private List<StructureResult> getStructuresSpanningChunkFabric(DetectionContext context, int chunkX, int chunkZ) {
         List<StructureResult> results = new ArrayList<>();
         
         try {
-            Object chunk = getChunkMethod.invoke(cachedServerLevel, chunkX, chunkZ);
+            Object chunk = (Object) context.getChunk.invokeExact(context.serverLevel, chunkX, chunkZ);
             if (chunk == null) return results;
             
-            Object structureStartsObj = chunkGetStructureStartsMethod.invoke(chunk);
+            Object structureStartsObj = (Object) context.structureStarts.invokeExact(chunk);
             if (!(structureStartsObj instanceof Map)) return results;
             
             Map<?, ?> structureStarts = (Map<?, ?>) structureStartsObj;
@@ -2343,7 +3508,7 @@ public class StructureFinder {
                 Object structureStart = entry.getValue();
                 if (structureStart == null) continue;
                 
-                String structureName = getStructureNameCached(structure);
+                String structureName = getStructureNameCached(context, structure);
                 if (structureName == null) continue;
                 
                 // Get origin for display
@@ -2351,20 +3516,12 @@ public class StructureFinder {
                 int originChunkZ = chunkZ;
                 
                 try {
-                    Method getChunkPosMethod = findMethodByNames(structureStart.getClass(),
-                        "getChunkPos", "method_14963", "getPos");
-                    if (getChunkPosMethod != null) {
-                        Object chunkPos = getChunkPosMethod.invoke(structureStart);
-                        if (chunkPos != null) {
-                            Method getXMethod = findMethodByNames(chunkPos.getClass(), "x", "method_8324", "getX");
-                            Method getZMethod = findMethodByNames(chunkPos.getClass(), "z", "method_8326", "getZ");
-                            if (getXMethod != null && getZMethod != null) {
-                                originChunkX = (int) getXMethod.invoke(chunkPos);
-                                originChunkZ = (int) getZMethod.invoke(chunkPos);
-                            }
-                        }
+                    long origin = getOriginChunk(structureStart);
+                    if (origin != NO_ORIGIN) {
+                        originChunkX = (int) origin;
+                        originChunkZ = (int) (origin >> 32);
                     }
-                } catch (Exception e) {
+                } catch (Throwable e) {
                     // Keep query chunk
                 }
                 
@@ -2372,7 +3529,7 @@ public class StructureFinder {
                 int originZ = originChunkZ * 16 + 8;
                 results.add(new StructureResult(structureName, originX, originZ, originChunkX, originChunkZ));
             }
-        } catch (Exception e) {
+        } catch (Throwable e) {
             plugin.getConfigManager().debug("getStructuresSpanningChunkFabric error: " + e.getMessage());
         }
         
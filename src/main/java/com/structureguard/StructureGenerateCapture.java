@@ -0,0 +1,138 @@
+package com.structureguard;
+
+import org.bukkit.Keyed;
+import org.bukkit.World;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.WorldEvent;
+import org.bukkit.plugin.EventExecutor;
+import org.bukkit.util.BoundingBox;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Records structures as the server generates them, from AsyncStructureGenerateEvent
+ * (Bukkit API 1.19.4+). The plugin is built against the 1.17 API, so the event is
+ * registered by name and its getters are bound once as MethodHandles.
+ *
+ * Fires on world generation threads; everything it hands to ChunkLoadListener
+ * must be thread-safe.
+ */
+class StructureGenerateCapture implements Listener, EventExecutor {
+    
+    private static final String EVENT_CLASS = "org.bukkit.event.world.AsyncStructureGenerateEvent";
+    
+    private final StructureGuardPlugin plugin;
+    private final ChunkLoadListener listener;
+    private final Class<? extends Event> eventClass;
+    private final MethodHandle getChunkX;
+    private final MethodHandle getChunkZ;
+    private final MethodHandle getStructure;
+    private final MethodHandle getBoundingBox;
+    private final MethodHandle getCause;
+    private final Object worldGeneration;  // Cause.WORLD_GENERATION
+    
+    /**
+     * Bind the getters of the event class. Package-private so tests can pass a stand-in event.
+     */
+    StructureGenerateCapture(StructureGuardPlugin plugin, ChunkLoadListener listener, 
+                             Class<? extends Event> eventClass) throws ReflectiveOperationException {
+        this.plugin = plugin;
+        this.listener = listener;
+        this.eventClass = eventClass;
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        this.getChunkX = getter(lookup, "getChunkX", int.class);
+        this.getChunkZ = getter(lookup, "getChunkZ", int.class);
+        this.getStructure = getter(lookup, "getStructure", Object.class);
+        this.getBoundingBox = getter(lookup, "getBoundingBox", BoundingBox.class);
+        this.getCause = getter(lookup, "getCause", Object.class);
+        this.worldGeneration = enumConstant(eventClass.getMethod("getCause").getReturnType(), "WORLD_GENERATION");
+    }
+    
+    /**
+     * Start capturing, if this server has the event.
+     * @return the registered capture, or null if the event doesn't exist here
+     */
+    static StructureGenerateCapture register(StructureGuardPlugin plugin, ChunkLoadListener listener) {
+        Class<? extends Event> eventClass;
+        try {
+            eventClass = Class.forName(EVENT_CLASS).asSubclass(Event.class);
+        } catch (ClassNotFoundException e) {
+            plugin.getConfigManager().debug("AsyncStructureGenerateEvent not available - new chunks use detection");
+            return null;
+        }
+        
+        try {
+            StructureGenerateCapture capture = new StructureGenerateCapture(plugin, listener, eventClass);
+            plugin.getServer().getPluginManager().registerEvent(eventClass, capture, EventPriority.MONITOR, 
+                capture, plugin, true);
+            return capture;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            plugin.getLogger().warning("Could not listen for structure generation: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Getter on the event, typed (Event) -> returnType for invokeExact.
+     */
+    private MethodHandle getter(MethodHandles.Lookup lookup, String name, Class<?> returnType) 
+            throws ReflectiveOperationException {
+        return lookup.unreflect(eventClass.getMethod(name))
+            .asType(MethodType.methodType(returnType, Event.class));
+    }
+    
+    /**
+     * Look up an enum constant of a class only known at runtime.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object enumConstant(Class<?> type, String name) throws NoSuchFieldException {
+        if (!type.isEnum()) {
+            throw new NoSuchFieldException(type.getName() + " is not an enum");
+        }
+        try {
+            return Enum.valueOf((Class) type, name);
+        } catch (IllegalArgumentException e) {
+            throw new NoSuchFieldException(type.getName() + "." + name);
+        }
+    }
+    
+    @Override
+    public void execute(Listener owner, Event event) {
+        if (!eventClass.isInstance(event)) {
+            return;
+        }
+        
+        try {
+            World world = ((WorldEvent) event).getWorld();
+            int chunkX = (int) getChunkX.invokeExact(event);
+            int chunkZ = (int) getChunkZ.invokeExact(event);
+            Object structure = getStructure.invokeExact(event);
+            if (!(structure instanceof Keyed)) {
+                return;
+            }
+            String structureType = ((Keyed) structure).getKey().toString();
+            
+            // Structures placed by /place or plugins land in chunks that may already have been
+            // generated (and hold other structures), so only natural generation covers the chunk
+            Object cause = getCause.invokeExact(event);
+            boolean generated = cause == worldGeneration;
+            
+            // Worlds on the Bukkit structure API record the bounding box centre as the origin
+            int originChunkX = chunkX;
+            int originChunkZ = chunkZ;
+            if (plugin.getStructureFinder().reportsCentreOrigins(world)) {
+                BoundingBox box = (BoundingBox) getBoundingBox.invokeExact(event);
+                originChunkX = (int) Math.floor(box.getCenterX()) >> 4;
+                originChunkZ = (int) Math.floor(box.getCenterZ()) >> 4;
+            }
+            
+            listener.onStructureGenerated(world, structureType, chunkX, chunkZ, originChunkX, originChunkZ, generated);
+        } catch (Throwable e) {
+            plugin.getConfigManager().debug("Could not record generated structure: " + e);
+        }
+    }
+}
@@ -9,6 +9,7 @@ import org.bukkit.plugin.java.JavaPlugin;
 public class StructureGuardPlugin extends JavaPlugin {
     
     private StructureDatabase database;
+    private ScannedChunkIndex scannedChunkIndex;
     private StructureFinder structureFinder;
     private RegionManager regionManager;
     private ConfigManager configManager;
@@ -25,6 +26,7 @@ public class StructureGuardPlugin extends JavaPlugin {
         saveDefaultConfig();
         configManager = new ConfigManager(this);
         database = new StructureDatabase(this);
+        scannedChunkIndex = new ScannedChunkIndex(this);
         structureFinder = new StructureFinder(this);
         
         // Initialize RegionManager - may fail if WorldGuard is missing/broken
@@ -82,6 +84,10 @@ public class StructureGuardPlugin extends JavaPlugin {
         return database;
     }
     
+    public ScannedChunkIndex getScannedChunkIndex() {
+        return scannedChunkIndex;
+    }
+    
     public StructureFinder getStructureFinder() {
         return structureFinder;
     }
@@ -0,0 +1,85 @@
+package com.structureguard;
+
+import java.util.Collections;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Predicts which chunks a world's random-spread structure placements can start a
+ * structure in, from the world seed - the same calculation the server uses when it
+ * generates structure starts. A chunk that no placement can pick holds no start, so
+ * detection can skip it.
+ *
+ * Predictions are a superset: frequency reduction, biome checks and exclusion zones
+ * can still rule a candidate chunk out, but never add one.
+ */
+class StructurePlacementPredictor {
+    
+    /**
+     * Placeholder for worlds that can't be predicted (yet) - every chunk is a candidate.
+     */
+    static final StructurePlacementPredictor ALL_CHUNKS = 
+        new StructurePlacementPredictor(0, new int[0], new int[0], new int[0], new boolean[0], Collections.emptySet());
+    
+    private final long seed;
+    private final int[] spacing;
+    private final int[] separation;
+    private final int[] salt;
+    private final boolean[] triangular;
+    private final Set<String> structureTypes;
+    
+    // Stands in for the server's LegacyRandomSource, which has java.util.Random's sequence.
+    // Only used by one thread at a time: the builder, then the main thread once published
+    private final Random random = new Random();
+    
+    /**
+     * The arrays hold one entry per random-spread placement; structureTypes are the
+     * structures those placements can start.
+     */
+    StructurePlacementPredictor(long seed, int[] spacing, int[] separation, int[] salt, boolean[] triangular, 
+                                Set<String> structureTypes) {
+        this.seed = seed;
+        this.spacing = spacing;
+        this.separation = separation;
+        this.salt = salt;
+        this.triangular = triangular;
+        this.structureTypes = structureTypes;
+    }
+    
+    /**
+     * Whether any placement can start a structure in the chunk.
+     */
+    boolean mayStartStructure(int chunkX, int chunkZ) {
+        if (this == ALL_CHUNKS) {
+            return true;
+        }
+        for (int i = 0; i < spacing.length; i++) {
+            // RandomSpreadStructurePlacement.getPotentialStructureChunk
+            int cellX = Math.floorDiv(chunkX, spacing[i]);
+            int cellZ = Math.floorDiv(chunkZ, spacing[i]);
+            random.setSeed(cellX * 341873128712L + cellZ * 132897987541L + seed + salt[i]);
+            int range = spacing[i] - separation[i];
+            int offsetX = triangular[i] ? (random.nextInt(range) + random.nextInt(range)) / 2 : random.nextInt(range);
+            int offsetZ = triangular[i] ? (random.nextInt(range) + random.nextInt(range)) / 2 : random.nextInt(range);
+            if (cellX * spacing[i] + offsetX == chunkX && cellZ * spacing[i] + offsetZ == chunkZ) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Whether this predictor can rule chunks out at all.
+     */
+    boolean isPredicting() {
+        return this != ALL_CHUNKS;
+    }
+    
+    int getPlacementCount() {
+        return spacing.length;
+    }
+    
+    Set<String> getStructureTypes() {
+        return structureTypes;
+    }
+}
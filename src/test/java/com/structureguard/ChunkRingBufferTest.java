@@ -0,0 +1,116 @@
+package com.structureguard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkRingBufferTest {
+    
+    @Test
+    void capacityRoundsUpToPowerOfTwo() {
+        assertEquals(4, new ChunkRingBuffer(3).capacity());
+        assertEquals(8, new ChunkRingBuffer(5).capacity());
+        assertEquals(8, new ChunkRingBuffer(8).capacity());
+        assertEquals(16, new ChunkRingBuffer(9).capacity());
+    }
+    
+    @Test
+    void fullRingRejectsUntilDrained() {
+        ChunkRingBuffer ring = new ChunkRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(0, i, -i, 0));
+        }
+        assertFalse(ring.offer(0, 99, 99, 0));
+        assertEquals(4, ring.size());
+        
+        List<int[]> drained = new ArrayList<>();
+        assertEquals(1, ring.drain(collect(drained), 1));
+        assertArrayEquals(new int[] {0, 0, 0, 0}, drained.get(0));
+        
+        // The freed slot takes exactly one more chunk
+        assertTrue(ring.offer(0, 4, -4, 0));
+        assertFalse(ring.offer(0, 99, 99, 0));
+        
+        drained.clear();
+        assertEquals(4, ring.drain(collect(drained), Integer.MAX_VALUE));
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i + 1, drained.get(i)[1]);
+        }
+        assertTrue(ring.isEmpty());
+    }
+    
+    @Test
+    void slotsSurviveManyLapsInOrder() {
+        ChunkRingBuffer ring = new ChunkRingBuffer(4);
+        List<int[]> drained = new ArrayList<>();
+        int next = 0;
+        int expected = 0;
+        // Three in, two out: the tail runs ahead of the head and both wrap many times
+        for (int lap = 0; lap < 50; lap++) {
+            while (ring.offer(lap % 3, next, next * 7, next & 0xF)) {
+                next++;
+            }
+            drained.clear();
+            assertEquals(2, ring.drain(collect(drained), 2));
+            for (int[] slot : drained) {
+                assertEquals(expected, slot[1]);
+                assertEquals(expected * 7, slot[2]);
+                assertEquals(expected & 0xF, slot[3]);
+                expected++;
+            }
+        }
+        
+        drained.clear();
+        ring.drain(collect(drained), Integer.MAX_VALUE);
+        for (int[] slot : drained) {
+            assertEquals(expected++, slot[1]);
+        }
+        assertEquals(next, expected);
+        assertEquals(0, ring.drain(collect(drained), Integer.MAX_VALUE));
+    }
+    
+    @Test
+    void concurrentProducersLoseNothing() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 20_000;
+        ChunkRingBuffer ring = new ChunkRingBuffer(64);
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            int worldIndex = p;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!ring.offer(worldIndex, i, 0, 0)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            threads[p].start();
+        }
+        
+        // Each producer's chunks must come out once each, in the order it offered them
+        int[] nextPerProducer = new int[producers];
+        int[] total = {0};
+        ChunkRingBuffer.SlotConsumer check = (worldIndex, chunkX, chunkZ, flags) -> {
+            assertEquals(nextPerProducer[worldIndex]++, chunkX);
+            total[0]++;
+        };
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        while (total[0] < producers * perProducer) {
+            assertTrue(System.nanoTime() < deadline, "Timed out draining");
+            if (ring.drain(check, 256) == 0) {
+                Thread.yield();
+            }
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(ring.isEmpty());
+    }
+    
+    private static ChunkRingBuffer.SlotConsumer collect(List<int[]> into) {
+        return (worldIndex, chunkX, chunkZ, flags) -> into.add(new int[] {worldIndex, chunkX, chunkZ, flags});
+    }
+}
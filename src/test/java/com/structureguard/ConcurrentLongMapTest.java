@@ -0,0 +1,129 @@
+package com.structureguard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentLongMapTest {
+    
+    // Stripes start with 16 slots, so keys with equal low hash bits share a home slot
+    private static final int INITIAL_SLOTS = 16;
+    
+    @Test
+    void deleteKeepsRestOfCollisionChainReachable() {
+        long[] keys = collidingKeys(0, 3, 4);
+        ConcurrentLongMap<String> map = new ConcurrentLongMap<>();
+        for (long key : keys) {
+            assertNull(map.putIfAbsent(key, "v" + key));
+        }
+        
+        // Head of the chain, then the middle: later entries must be shifted back, not lost
+        assertTrue(map.remove(keys[0], map.get(keys[0])));
+        assertReachable(map, keys, 1, 2, 3);
+        assertTrue(map.removeIf(keys[2], value -> true));
+        assertReachable(map, keys, 1, 3);
+        assertNull(map.get(keys[0]));
+        assertNull(map.get(keys[2]));
+        assertEquals(2, map.size());
+        
+        // A removed key can come back
+        assertNull(map.putIfAbsent(keys[0], "again"));
+        assertEquals("again", map.get(keys[0]));
+        assertReachable(map, keys, 1, 3);
+    }
+    
+    @Test
+    void deleteShiftsChainAcrossTableEnd() {
+        // Three keys homed in the last slot wrap to slots 0 and 1; a key homed in slot 0
+        // is pushed to slot 2 behind them
+        long[] wrapping = collidingKeys(0, INITIAL_SLOTS - 1, 3);
+        long displaced = collidingKeys(0, 0, 1)[0];
+        ConcurrentLongMap<String> map = new ConcurrentLongMap<>();
+        for (long key : wrapping) {
+            map.putIfAbsent(key, "v" + key);
+        }
+        map.putIfAbsent(displaced, "displaced");
+        
+        assertTrue(map.removeIf(wrapping[0], value -> true));
+        assertReachable(map, wrapping, 1, 2);
+        assertEquals("displaced", map.get(displaced));
+        
+        assertTrue(map.removeIf(displaced, value -> true));
+        assertReachable(map, wrapping, 1, 2);
+        assertTrue(map.removeIf(wrapping[1], value -> true));
+        assertReachable(map, wrapping, 2);
+        assertEquals(1, map.size());
+    }
+    
+    @Test
+    void conditionalRemoveChecksInstance() {
+        ConcurrentLongMap<String> map = new ConcurrentLongMap<>();
+        String value = new String("a");
+        map.putIfAbsent(0L, value);
+        
+        assertFalse(map.remove(0L, new String("a")));
+        assertFalse(map.removeIf(0L, v -> false));
+        assertFalse(map.replace(0L, new String("a"), "b"));
+        assertTrue(map.replace(0L, value, "b"));
+        assertEquals("b", map.get(0L));
+        assertFalse(map.remove(1L, "b"));
+    }
+    
+    @Test
+    void matchesHashMapUnderRandomInsertsAndDeletes() {
+        ConcurrentLongMap<Long> map = new ConcurrentLongMap<>();
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        // A small key range keeps chains long and makes deletes hit present keys
+        for (int op = 0; op < 200_000; op++) {
+            long key = random.nextInt(4096) - 2048;
+            if (random.nextInt(3) == 0) {
+                Long present = expected.remove(key);
+                assertEquals(present != null, map.removeIf(key, value -> true));
+            } else {
+                Long value = map.computeIfAbsent(key, k -> k * 31);
+                assertEquals(expected.computeIfAbsent(key, k -> k * 31), value);
+            }
+        }
+        
+        assertEquals(expected.size(), map.size());
+        for (long key = -2048; key < 2048; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+        int[] visited = {0};
+        map.forEach((key, value) -> {
+            assertEquals(expected.get(key), value);
+            visited[0]++;
+        });
+        assertEquals(expected.size(), visited[0]);
+        
+        map.clear();
+        assertEquals(0, map.size());
+        assertNull(map.get(0L));
+    }
+    
+    /**
+     * Keys that fall in the same stripe and the same home slot of a fresh stripe.
+     */
+    private static long[] collidingKeys(int stripe, int home, int count) {
+        long[] keys = new long[count];
+        int found = 0;
+        for (long key = 0; found < count; key++) {
+            long hash = ConcurrentLongMap.mix(key);
+            if ((int) (hash >>> 58) == stripe && (int) (hash & (INITIAL_SLOTS - 1)) == home) {
+                keys[found++] = key;
+            }
+        }
+        return keys;
+    }
+    
+    private static void assertReachable(ConcurrentLongMap<String> map, long[] keys, int... indexes) {
+        for (int i : indexes) {
+            assertNotNull(map.get(keys[i]), "key " + i + " lost");
+        }
+    }
+}
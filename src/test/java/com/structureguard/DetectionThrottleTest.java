@@ -0,0 +1,83 @@
+package com.structureguard;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DetectionThrottleTest {
+    
+    private final StructureGuardPlugin plugin = mock(StructureGuardPlugin.class);
+    
+    DetectionThrottleTest() {
+        ConfigManager config = mock(ConfigManager.class);
+        when(plugin.getConfigManager()).thenReturn(config);
+    }
+    
+    @Test
+    void overloadHalvesLimitsDownToMinimum() {
+        DetectionThrottle throttle = new DetectionThrottle(plugin, 50, 1, 8, 4, 64);
+        assertLimits(throttle, 8, 64);
+        
+        throttle.adjust(80);
+        assertLimits(throttle, 4, 32);
+        throttle.adjust(80);
+        throttle.adjust(80);
+        assertLimits(throttle, 1, 8);
+        throttle.adjust(80);
+        throttle.adjust(80);
+        assertLimits(throttle, 1, 4);
+        assertEquals(80, throttle.getLastMspt());
+    }
+    
+    @Test
+    void headroomGrowsOneWorkerAndDoubleBatchUpToMaximum() {
+        DetectionThrottle throttle = new DetectionThrottle(plugin, 50, 1, 3, 4, 64);
+        for (int i = 0; i < 5; i++) {
+            throttle.adjust(200);
+        }
+        assertLimits(throttle, 1, 4);
+        
+        throttle.adjust(50);
+        assertLimits(throttle, 2, 8);
+        throttle.adjust(50);
+        assertLimits(throttle, 3, 16);
+        throttle.adjust(50);
+        throttle.adjust(50);
+        throttle.adjust(50);
+        assertLimits(throttle, 3, 64);
+    }
+    
+    @Test
+    void tickIntervalEstimateHoldsBetweenThresholds() {
+        // The 1.17 API has no getAverageTickTime, so MSPT is the tick interval:
+        // above 51ms is lag, below 50.5ms is headroom
+        DetectionThrottle throttle = new DetectionThrottle(plugin, 40, 1, 8, 4, 64);
+        assertFalse(throttle.usesServerMspt());
+        
+        throttle.adjust(50.8);
+        assertLimits(throttle, 8, 64);
+        throttle.adjust(51.5);
+        assertLimits(throttle, 4, 32);
+        throttle.adjust(50.8);
+        assertLimits(throttle, 4, 32);
+        throttle.adjust(50.2);
+        assertLimits(throttle, 5, 64);
+    }
+    
+    @Test
+    void disabledThrottleNeverAdjusts() {
+        DetectionThrottle throttle = new DetectionThrottle(plugin, 0, 1, 8, 4, 64);
+        assertFalse(throttle.isEnabled());
+        for (int i = 0; i < 100; i++) {
+            throttle.tick();
+        }
+        assertLimits(throttle, 8, 64);
+        assertEquals(0, throttle.getLastMspt());
+    }
+    
+    private static void assertLimits(DetectionThrottle throttle, int workers, int batch) {
+        assertEquals(workers, throttle.getWorkerLimit(), "workers");
+        assertEquals(batch, throttle.getBatchLimit(), "batch");
+    }
+}
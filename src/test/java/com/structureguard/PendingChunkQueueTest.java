@@ -0,0 +1,85 @@
+package com.structureguard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PendingChunkQueueTest {
+    
+    @Test
+    void drainsByPriorityThenArrival() {
+        PendingChunkQueue queue = new PendingChunkQueue(10, ConfigManager.OverflowPolicy.DROP_NEWEST);
+        queue.offer(task(1, 5));
+        queue.offer(task(2, 1));
+        queue.offer(task(3, 5));
+        queue.offer(task(4, 1));
+        
+        List<ChunkTask> first = queue.drain(3);
+        assertEquals(List.of(2, 4, 1), chunkXs(first));
+        assertEquals(List.of(3), chunkXs(queue.drain(10)));
+        assertTrue(queue.isEmpty());
+    }
+    
+    @Test
+    void dropNewestRejectsIncomingWhenFull() {
+        PendingChunkQueue queue = new PendingChunkQueue(2, ConfigManager.OverflowPolicy.DROP_NEWEST);
+        queue.offer(task(1, 5));
+        queue.offer(task(2, 5));
+        
+        // Even a more urgent chunk is turned away
+        ChunkTask incoming = task(3, 0);
+        assertSame(incoming, queue.offer(incoming));
+        assertEquals(List.of(1, 2), chunkXs(queue.drain(10)));
+    }
+    
+    @Test
+    void dropOldestEvictsOldestOfWorstPriority() {
+        PendingChunkQueue queue = new PendingChunkQueue(3, ConfigManager.OverflowPolicy.DROP_OLDEST);
+        ChunkTask urgent = task(1, 1);
+        ChunkTask oldestWorst = task(2, 5);
+        queue.offer(urgent);
+        queue.offer(oldestWorst);
+        queue.offer(task(3, 5));
+        
+        assertSame(oldestWorst, queue.offer(task(4, 3)));
+        assertEquals(3, queue.size());
+        
+        // Equal to the worst priority still displaces the oldest of them
+        ChunkTask next = queue.offer(task(5, 5));
+        assertEquals(3, next.chunkX);
+        assertEquals(List.of(1, 4, 5), chunkXs(queue.drain(10)));
+    }
+    
+    @Test
+    void dropOldestKeepsQueueWhenIncomingRanksLower() {
+        PendingChunkQueue queue = new PendingChunkQueue(2, ConfigManager.OverflowPolicy.DROP_OLDEST);
+        queue.offer(task(1, 2));
+        queue.offer(task(2, 4));
+        
+        ChunkTask incoming = task(3, 9);
+        assertSame(incoming, queue.offer(incoming));
+        assertEquals(List.of(1, 2), chunkXs(queue.drain(10)));
+    }
+    
+    @Test
+    void removeOnlyTakesQueuedTask() {
+        PendingChunkQueue queue = new PendingChunkQueue(4, ConfigManager.OverflowPolicy.DROP_OLDEST);
+        ChunkTask queued = task(1, 1);
+        queue.offer(queued);
+        
+        assertTrue(queue.remove(queued));
+        assertFalse(queue.remove(queued));
+        assertFalse(queue.remove(task(2, 1)));
+        assertTrue(queue.isEmpty());
+    }
+    
+    private static ChunkTask task(int chunkX, long priority) {
+        return new ChunkTask(null, chunkX, 0, "world", ScannedChunkIndex.pack(chunkX, 0), priority, false);
+    }
+    
+    private static List<Integer> chunkXs(List<ChunkTask> tasks) {
+        return tasks.stream().map(t -> t.chunkX).toList();
+    }
+}
@@ -0,0 +1,145 @@
+package com.structureguard;
+
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PlacementPredictorsTest {
+    
+    private static final long SEED = 12345L;
+    private static final String MANSION = "minecraft:mansion";
+    private static final String VILLAGE = "minecraft:village_plains";
+    
+    private final StructureGuardPlugin plugin = mock(StructureGuardPlugin.class);
+    private final World world = mock(World.class);
+    private PlacementPredictors predictors;
+    
+    @BeforeEach
+    void setUp() {
+        Server server = mock(Server.class);
+        BukkitScheduler scheduler = mock(BukkitScheduler.class);
+        StructureFinder finder = mock(StructureFinder.class);
+        StructureDatabase database = mock(StructureDatabase.class);
+        when(plugin.getServer()).thenReturn(server);
+        when(server.getScheduler()).thenReturn(scheduler);
+        when(plugin.getStructureFinder()).thenReturn(finder);
+        when(plugin.getDatabase()).thenReturn(database);
+        when(world.getName()).thenReturn("world");
+        
+        // Build in the calling thread, so a predictor is published by the time get() returns
+        when(scheduler.runTaskAsynchronously(any(), any())).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        });
+        when(finder.createPlacementPredictor(eq(world), any())).thenAnswer(invocation ->
+            vanillaPredictor(invocation.getArgument(1)));
+        
+        predictors = new PlacementPredictors(plugin);
+    }
+    
+    @Test
+    void reloadProtectingAnotherTypeMakesSkippedChunksCandidatesAgain() {
+        ConfigManager mansionRules = protecting(MANSION);
+        ConfigManager reloadedRules = protecting(MANSION, VILLAGE);
+        when(plugin.getConfigManager()).thenReturn(mansionRules);
+        predictors.get(world);
+        StructurePlacementPredictor mansionsOnly = predictors.get(world);
+        assertTrue(mansionsOnly.isPredicting());
+        
+        int[] chunk = villageChunkWithoutMansion(mansionsOnly);
+        assertFalse(mansionsOnly.mayStartStructure(chunk[0], chunk[1]));
+        
+        // /sg reload swaps in a new ConfigManager that also protects villages
+        when(plugin.getConfigManager()).thenReturn(reloadedRules);
+        assertFalse(predictors.get(world).isPredicting());
+        StructurePlacementPredictor reloaded = predictors.get(world);
+        
+        assertNotSame(mansionsOnly, reloaded);
+        assertEquals(Set.of(MANSION, VILLAGE), reloaded.getStructureTypes());
+        assertTrue(reloaded.mayStartStructure(chunk[0], chunk[1]));
+    }
+    
+    @Test
+    void predictionDisabledByReloadRulesNothingOut() {
+        ConfigManager mansionRules = protecting(MANSION);
+        when(plugin.getConfigManager()).thenReturn(mansionRules);
+        predictors.get(world);
+        int[] chunk = villageChunkWithoutMansion(predictors.get(world));
+        
+        ConfigManager disabled = protecting(MANSION);
+        when(disabled.isPlacementPredictionEnabled()).thenReturn(false);
+        when(plugin.getConfigManager()).thenReturn(disabled);
+        
+        assertTrue(predictors.get(world).mayStartStructure(chunk[0], chunk[1]));
+    }
+    
+    private static ConfigManager protecting(String... types) {
+        ConfigManager config = mock(ConfigManager.class);
+        when(config.isPlacementPredictionEnabled()).thenReturn(true);
+        for (String type : types) {
+            when(config.getProtectionRule(type)).thenReturn(new ConfigManager.ProtectionRule());
+        }
+        return config;
+    }
+    
+    /**
+     * The vanilla mansion and village structure sets, limited to those of interest.
+     */
+    private static StructurePlacementPredictor vanillaPredictor(Predicate<String> ofInterest) {
+        List<int[]> sets = new ArrayList<>();
+        List<Boolean> triangular = new ArrayList<>();
+        Set<String> types = new HashSet<>();
+        if (ofInterest.test(MANSION)) {
+            sets.add(new int[] {80, 20, 10387319});
+            triangular.add(true);
+            types.add(MANSION);
+        }
+        if (ofInterest.test(VILLAGE)) {
+            sets.add(new int[] {34, 8, 10387312});
+            triangular.add(false);
+            types.add(VILLAGE);
+        }
+        if (sets.isEmpty()) {
+            return StructurePlacementPredictor.ALL_CHUNKS;
+        }
+        
+        int[] spacing = new int[sets.size()];
+        int[] separation = new int[sets.size()];
+        int[] salt = new int[sets.size()];
+        boolean[] spread = new boolean[sets.size()];
+        for (int i = 0; i < sets.size(); i++) {
+            spacing[i] = sets.get(i)[0];
+            separation[i] = sets.get(i)[1];
+            salt[i] = sets.get(i)[2];
+            spread[i] = triangular.get(i);
+        }
+        return new StructurePlacementPredictor(SEED, spacing, separation, salt, spread, types);
+    }
+    
+    /**
+     * A chunk a village can start in but a mansion can't.
+     */
+    private static int[] villageChunkWithoutMansion(StructurePlacementPredictor mansions) {
+        StructurePlacementPredictor villages = vanillaPredictor(VILLAGE::equals);
+        for (int x = 0; x < 34; x++) {
+            for (int z = 0; z < 34; z++) {
+                if (villages.mayStartStructure(x, z) && !mansions.mayStartStructure(x, z)) {
+                    return new int[] {x, z};
+                }
+            }
+        }
+        throw new AssertionError("No village chunk in the first cell");
+    }
+}
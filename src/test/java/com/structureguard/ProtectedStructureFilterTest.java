@@ -0,0 +1,59 @@
+package com.structureguard;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProtectedStructureFilterTest {
+    
+    private static final String WORLD = "world";
+    private static final String VILLAGE = "minecraft:village_plains";
+    
+    @Test
+    void addedStructuresAreAlwaysFound() {
+        ProtectedStructureFilter filter = new ProtectedStructureFilter();
+        for (int i = 0; i < 4000; i++) {
+            filter.add(WORLD, VILLAGE, i * 16, -i * 48);
+        }
+        for (int i = 0; i < 4000; i++) {
+            assertTrue(filter.mightContain(WORLD, VILLAGE, i * 16, -i * 48));
+        }
+        assertFalse(filter.mightContain("world_nether", VILLAGE, 0, 0));
+    }
+    
+    @Test
+    void falsePositivesStayRareAtCapacity() {
+        ProtectedStructureFilter.Filter filter = new ProtectedStructureFilter.Filter(2048);
+        for (int i = 0; i < 4096; i++) {
+            filter.add(VILLAGE, i, i);
+        }
+        assertFalse(filter.isOverfull());
+        
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(VILLAGE, i, -1 - i)) {
+                falsePositives++;
+            }
+        }
+        // Sized for ~1%
+        assertTrue(falsePositives < 2_000, falsePositives + " false positives");
+    }
+    
+    @Test
+    void overfullOncePastCapacity() {
+        ProtectedStructureFilter filter = new ProtectedStructureFilter();
+        for (int i = 0; i < 4096; i++) {
+            filter.add(WORLD, VILLAGE, i, 0);
+        }
+        assertFalse(filter.isOverfull(WORLD));
+        filter.add(WORLD, VILLAGE, 4096, 0);
+        assertTrue(filter.isOverfull(WORLD));
+        
+        // A rebuilt filter sized for the world replaces it
+        ProtectedStructureFilter.Filter rebuilt = new ProtectedStructureFilter.Filter(4097);
+        rebuilt.add(VILLAGE, 7, 0);
+        filter.install(WORLD, rebuilt);
+        assertFalse(filter.isOverfull(WORLD));
+        assertTrue(filter.mightContain(WORLD, VILLAGE, 7, 0));
+    }
+}
@@ -0,0 +1,93 @@
+package com.structureguard;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RandomSpreadTest {
+    
+    enum RandomSpreadType { LINEAR, TRIANGULAR }
+    
+    static class StructurePlacement {
+        private final int salt;
+        
+        StructurePlacement(int salt) {
+            this.salt = salt;
+        }
+        
+        protected int salt() {
+            return salt;
+        }
+    }
+    
+    /**
+     * Fields declared in an order that doesn't match spacing, separation, salt.
+     */
+    static class RandomSpreadStructurePlacement extends StructurePlacement {
+        private final RandomSpreadType spreadType;
+        private final int separation;
+        private final int unrelated = 7;
+        private final int spacing;
+        
+        RandomSpreadStructurePlacement(int spacing, int separation, RandomSpreadType spreadType, int salt) {
+            super(salt);
+            this.spacing = spacing;
+            this.separation = separation;
+            this.spreadType = spreadType;
+        }
+        
+        public int spacing() {
+            return spacing;
+        }
+        
+        public int separation() {
+            return separation;
+        }
+        
+        public RandomSpreadType spreadType() {
+            return spreadType;
+        }
+    }
+    
+    /**
+     * Same values, but only reachable through the fields.
+     */
+    static class FieldsOnly {
+        static class RandomSpreadStructurePlacement {
+            private final int salt = 10387312;
+            private final RandomSpreadType spreadType = RandomSpreadType.LINEAR;
+            private final int separation = 8;
+            private final int spacing = 34;
+        }
+    }
+    
+    static class Unnamed {
+        static class RandomSpreadStructurePlacement {
+            private final int a = 34;
+            private final int b = 8;
+            private final int c = 10387312;
+            private final RandomSpreadType d = RandomSpreadType.LINEAR;
+        }
+    }
+    
+    @Test
+    void valuesAreReadByNameWhateverTheFieldOrder() throws ReflectiveOperationException {
+        int[] spread = StructureFinder.randomSpread(
+            new RandomSpreadStructurePlacement(80, 20, RandomSpreadType.TRIANGULAR, 10387319));
+        
+        assertArrayEquals(new int[]{80, 20, 10387319, 1}, spread);
+    }
+    
+    @Test
+    void fieldsAreUsedWithoutAccessors() throws ReflectiveOperationException {
+        int[] spread = StructureFinder.randomSpread(new FieldsOnly.RandomSpreadStructurePlacement());
+        
+        assertArrayEquals(new int[]{34, 8, 10387312, 0}, spread);
+    }
+    
+    @Test
+    void unknownNamesLeaveThePlacementUnpredicted() throws ReflectiveOperationException {
+        assertNull(StructureFinder.randomSpread(new Unnamed.RandomSpreadStructurePlacement()));
+        assertNull(StructureFinder.randomSpread(new StructurePlacement(1)));
+    }
+}
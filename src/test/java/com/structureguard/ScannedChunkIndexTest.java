@@ -0,0 +1,118 @@
+package com.structureguard;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ScannedChunkIndexTest {
+    
+    private static final String WORLD = "world";
+    // 1 MB cap: 4096 tiles, evicted down to 3681
+    private static final int MAX_TILES = 1024 * 1024 / ScannedChunkIndex.TILE_BYTES;
+    private static final int AFTER_EVICTION = MAX_TILES / 10 * 9;
+    
+    private final StructureGuardPlugin plugin = mock(StructureGuardPlugin.class);
+    private final StructureDatabase database = mock(StructureDatabase.class);
+    private ScannedChunkIndex index;
+    
+    @BeforeEach
+    void setUp() {
+        ConfigManager config = mock(ConfigManager.class);
+        when(config.getScannedIndexMemoryMb()).thenReturn(1);
+        when(plugin.getConfigManager()).thenReturn(config);
+        when(plugin.getDatabase()).thenReturn(database);
+        index = new ScannedChunkIndex(plugin);
+    }
+    
+    @Test
+    void storedRegionIsReadOnceAndMerged() {
+        byte[] stored = new byte[ScannedChunkIndex.BITMAP_BYTES];
+        ScannedChunkIndex.setBit(stored, 35, -2);
+        when(database.getScannedRegion(WORLD, 1, -1)).thenReturn(stored);
+        
+        assertFalse(index.isScannedIfLoaded(WORLD, ScannedChunkIndex.pack(35, -2)));
+        verifyNoInteractions(database);
+        
+        assertTrue(index.isScanned(WORLD, 35, -2));
+        assertFalse(index.isScanned(WORLD, 35, -3));
+        assertFalse(index.isScanned(WORLD, 36, -2));
+        assertTrue(index.isScannedIfLoaded(WORLD, ScannedChunkIndex.pack(35, -2)));
+        verify(database, times(1)).getScannedRegion(WORLD, 1, -1);
+        assertEquals(1, index.size(WORLD));
+    }
+    
+    @Test
+    void loadRangeLoadsEmptyRegionsToo() {
+        byte[] stored = new byte[ScannedChunkIndex.BITMAP_BYTES];
+        ScannedChunkIndex.setBit(stored, 40, 0);
+        doAnswer(invocation -> {
+            invocation.<StructureDatabase.ScannedRegionConsumer>getArgument(5).accept(1, 0, stored);
+            return null;
+        }).when(database).forEachScannedRegion(eq(WORLD), eq(0), eq(0), eq(1), eq(1), any());
+        
+        index.loadRange(WORLD, 0, 0, 63, 63);
+        
+        assertEquals(4, index.getResidentTiles());
+        assertTrue(index.isScanned(WORLD, 40, 0));
+        assertFalse(index.isScanned(WORLD, 5, 5));
+        assertFalse(index.isScanned(WORLD, 40, 40));
+        verify(database, never()).getScannedRegion(any(), anyInt(), anyInt());
+    }
+    
+    @Test
+    void evictsLeastRecentlyUsedTilesDownToNinetyPercent() {
+        for (int region = 0; region < MAX_TILES; region++) {
+            index.markScanned(WORLD, region << ScannedChunkIndex.REGION_SHIFT, 0);
+        }
+        assertEquals(MAX_TILES, index.getResidentTiles());
+        
+        // Region 0 is the oldest, but was just used
+        assertTrue(index.isScannedIfLoaded(WORLD, ScannedChunkIndex.pack(0, 0)));
+        index.markScanned(WORLD, MAX_TILES << ScannedChunkIndex.REGION_SHIFT, 0);
+        
+        assertEquals(AFTER_EVICTION, index.getResidentTiles());
+        assertTrue(index.isScannedIfLoaded(WORLD, ScannedChunkIndex.pack(0, 0)));
+        assertFalse(index.isScannedIfLoaded(WORLD, ScannedChunkIndex.pack(1 << ScannedChunkIndex.REGION_SHIFT, 0)));
+        assertTrue(index.isScannedIfLoaded(WORLD, ScannedChunkIndex.pack((MAX_TILES - 1) << ScannedChunkIndex.REGION_SHIFT, 0)));
+    }
+    
+    @Test
+    void pinnedTilesStayUntilSaved() {
+        // More pinned tiles than the cap allows
+        long[] pinned = new long[MAX_TILES + 1];
+        for (int region = 0; region < pinned.length; region++) {
+            pinned[region] = ScannedChunkIndex.pack(region << ScannedChunkIndex.REGION_SHIFT, 0);
+            index.markUnsaved(WORLD, pinned[region]);
+        }
+        assertEquals(MAX_TILES + 1, index.getResidentTiles());
+        for (long chunkKey : pinned) {
+            assertTrue(index.isScannedIfLoaded(WORLD, chunkKey));
+        }
+        
+        // That pass found nothing to evict, so marks back off instead of rescanning every tile
+        long unpinned = ScannedChunkIndex.pack(0, 1 << ScannedChunkIndex.REGION_SHIFT);
+        index.markScanned(WORLD, (int) unpinned, (int) (unpinned >>> 32));
+        assertTrue(index.isScannedIfLoaded(WORLD, unpinned));
+        assertEquals(MAX_TILES + 2, index.getResidentTiles());
+        
+        // Saving unpins them, and the next mark evicts again
+        index.markSaved(WORLD, pinned);
+        index.markScanned(WORLD, 0, 2 << ScannedChunkIndex.REGION_SHIFT);
+        assertEquals(AFTER_EVICTION, index.getResidentTiles());
+    }
+    
+    @Test
+    void clearWorldDropsOnlyThatWorld() {
+        index.markScanned(WORLD, 0, 0);
+        index.markScanned("world_nether", 0, 0);
+        
+        index.clearWorld(WORLD);
+        
+        assertEquals(1, index.getResidentTiles());
+        assertFalse(index.isScannedIfLoaded(WORLD, 0));
+        assertTrue(index.isScannedIfLoaded("world_nether", 0));
+    }
+}
@@ -0,0 +1,94 @@
+package com.structureguard;
+
+import org.bukkit.Keyed;
+import org.bukkit.NamespacedKey;
+import org.bukkit.World;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.world.WorldEvent;
+import org.bukkit.util.BoundingBox;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.mockito.Mockito.*;
+
+class StructureGenerateCaptureTest {
+    
+    private final World world = mock(World.class);
+    private final ChunkLoadListener listener = mock(ChunkLoadListener.class);
+    private StructureGenerateCapture capture;
+    
+    @BeforeEach
+    void setUp() throws ReflectiveOperationException {
+        StructureGuardPlugin plugin = mock(StructureGuardPlugin.class);
+        StructureFinder finder = mock(StructureFinder.class);
+        ConfigManager config = mock(ConfigManager.class);
+        when(plugin.getStructureFinder()).thenReturn(finder);
+        when(plugin.getConfigManager()).thenReturn(config);
+        capture = new StructureGenerateCapture(plugin, listener, TestStructureGenerateEvent.class);
+    }
+    
+    @Test
+    void worldGenerationCoversTheStartChunk() {
+        capture.execute(capture, new TestStructureGenerateEvent(world, 3, -4, TestStructureGenerateEvent.Cause.WORLD_GENERATION));
+        
+        verify(listener).onStructureGenerated(world, "minecraft:village_plains", 3, -4, 3, -4, true);
+    }
+    
+    @Test
+    void placedStructuresDoNotCoverTheStartChunk() {
+        capture.execute(capture, new TestStructureGenerateEvent(world, 3, -4, TestStructureGenerateEvent.Cause.COMMAND));
+        capture.execute(capture, new TestStructureGenerateEvent(world, 5, 6, TestStructureGenerateEvent.Cause.CUSTOM));
+        
+        verify(listener).onStructureGenerated(world, "minecraft:village_plains", 3, -4, 3, -4, false);
+        verify(listener).onStructureGenerated(world, "minecraft:village_plains", 5, 6, 5, 6, false);
+    }
+    
+    /**
+     * Same getters as AsyncStructureGenerateEvent, which the 1.17 API doesn't have.
+     */
+    public static class TestStructureGenerateEvent extends WorldEvent {
+        
+        public enum Cause { COMMAND, WORLD_GENERATION, CUSTOM }
+        
+        private static final HandlerList HANDLERS = new HandlerList();
+        private final int chunkX;
+        private final int chunkZ;
+        private final Cause cause;
+        
+        TestStructureGenerateEvent(World world, int chunkX, int chunkZ, Cause cause) {
+            super(world);
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.cause = cause;
+        }
+        
+        public int getChunkX() {
+            return chunkX;
+        }
+        
+        public int getChunkZ() {
+            return chunkZ;
+        }
+        
+        public Keyed getStructure() {
+            return () -> NamespacedKey.minecraft("village_plains");
+        }
+        
+        public BoundingBox getBoundingBox() {
+            return new BoundingBox(chunkX * 16, 0, chunkZ * 16, chunkX * 16 + 32, 64, chunkZ * 16 + 32);
+        }
+        
+        public Cause getCause() {
+            return cause;
+        }
+        
+        @Override
+        public HandlerList getHandlers() {
+            return HANDLERS;
+        }
+        
+        public static HandlerList getHandlerList() {
+            return HANDLERS;
+        }
+    }
+}